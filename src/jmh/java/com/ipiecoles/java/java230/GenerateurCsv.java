@@ -0,0 +1,97 @@
+package com.ipiecoles.java.java230;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Générateur de fichiers CSV d'employés au format de employes.csv, pour les benchmarks.
+ * Le fichier contient environ 10% de managers, 60% de techniciens et 30% de commerciaux, toutes les lignes
+ * sont valides et chaque technicien référence un manager déjà écrit plus haut dans le fichier.
+ *
+ * Utilisation : GenerateurCsv nbLignes fichier (ex : GenerateurCsv 1000000 /tmp/employes-1M.csv)
+ */
+public final class GenerateurCsv {
+
+    private static final String[] NOMS = {"durand", "dupont", "aubert", "martin", "bernard", "thomas", "petit", "robert"};
+
+    private static final String[] PRENOMS = {"jacques", "pierre", "michel", "marie", "jean", "anne", "paul", "sophie"};
+
+    private final Random random;
+
+    private int nbManagers;
+
+    public GenerateurCsv(long graine) {
+        this.random = new Random(graine);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Utilisation : GenerateurCsv nbLignes fichier");
+            System.exit(1);
+        }
+        new GenerateurCsv(42).generer(Paths.get(args[1]), Long.parseLong(args[0]));
+    }
+
+    /**
+     * Méthode qui écrit nbLignes lignes dans le fichier, en l'écrasant s'il existe
+     * @param fichier le fichier à écrire
+     * @param nbLignes le nombre de lignes
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public void generer(Path fichier, long nbLignes) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < nbLignes; i++) {
+                writer.write(ligne(i));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @param i le numéro de la ligne, à partir de 0
+     * @return la ligne i, dont le type dépend de son numéro (manager tous les 10, puis 6 techniciens et 3 commerciaux)
+     */
+    public String ligne(long i) {
+        switch ((int) (i % 10)) {
+            case 0:
+                return ligneManager();
+            case 7:
+            case 8:
+            case 9:
+                return ligneCommercial();
+            default:
+                return ligneTechnicien();
+        }
+    }
+
+    public String ligneManager() {
+        return "M" + matricule(nbManagers++) + "," + identite();
+    }
+
+    public String ligneTechnicien() {
+        int manager = nbManagers == 0 ? 0 : random.nextInt(nbManagers);
+        return "T" + matricule(random.nextInt(100000)) + "," + identite() + "," + (1 + random.nextInt(5)) + ",M" + matricule(manager);
+    }
+
+    public String ligneCommercial() {
+        return "C" + matricule(random.nextInt(100000)) + "," + identite() + ","
+                + String.format(Locale.ROOT, "%.1f", 10000 + random.nextInt(1000000) / 10d) + ","
+                + random.nextInt(101);
+    }
+
+    private String identite() {
+        return NOMS[random.nextInt(NOMS.length)] + "," + PRENOMS[random.nextInt(PRENOMS.length)] + ","
+                + String.format("%02d/%02d/%d", 1 + random.nextInt(28), 1 + random.nextInt(12), 1990 + random.nextInt(30)) + ","
+                + String.format(Locale.ROOT, "%.1f", 1200 + random.nextInt(30000) / 10d);
+    }
+
+    private static String matricule(int numero) {
+        return String.format("%05d", numero % 100000);
+    }
+}
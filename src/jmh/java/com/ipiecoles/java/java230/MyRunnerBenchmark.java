@@ -0,0 +1,58 @@
+package com.ipiecoles.java.java230;
+
+import com.ipiecoles.java.java230.batch.ResultatLigne;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de l'analyse d'une ligne (MyRunner.processLine via analyserLigne) pour chaque type d'employé,
+ * sans intégration ni accès à la BDD.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MyRunnerBenchmark {
+
+    private static final int NB_LIGNES = 1024;
+
+    @Param({"M", "T", "C"})
+    private String type;
+
+    private MyRunner myRunner;
+
+    private String[] lignes;
+
+    private int i;
+
+    @Setup
+    public void setup() {
+        myRunner = new MyRunner();
+        GenerateurCsv generateur = new GenerateurCsv(42);
+        lignes = new String[NB_LIGNES];
+        for (int j = 0; j < NB_LIGNES; j++) {
+            switch (type) {
+                case "M":
+                    lignes[j] = generateur.ligneManager();
+                    break;
+                case "T":
+                    lignes[j] = generateur.ligneTechnicien();
+                    break;
+                default:
+                    lignes[j] = generateur.ligneCommercial();
+            }
+        }
+        if (myRunner.analyserLigne(lignes[0]).isEnErreur()) {
+            throw new IllegalStateException("Ligne générée invalide : " + lignes[0]);
+        }
+    }
+
+    @Benchmark
+    public ResultatLigne processLine() {
+        i = (i + 1) & (NB_LIGNES - 1);
+        return myRunner.analyserLigne(lignes[i]);
+    }
+}
@@ -0,0 +1,88 @@
+package com.ipiecoles.java.java230;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.ipiecoles.java.java230.batch.IndexManagers;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture complète d'un fichier généré de 10k, 1M et 10M lignes en mémoire mappée, séquentiellement
+ * et en parallèle, sans écriture en BDD (aucun manager n'est trouvé en BDD).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class MyRunnerFichierBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private long nbLignes;
+
+    @Param({"1", "0"})
+    private int parallelisme;
+
+    private MyRunner myRunner;
+
+    private Path fichier;
+
+    private long nbEmployes;
+
+    @Setup
+    public void setup() throws IOException {
+        //hors de Spring Boot, logback est en DEBUG par défaut
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        fichier = Files.createTempFile("employes-" + nbLignes, ".csv");
+        new GenerateurCsv(42).generer(fichier, nbLignes);
+
+        //BDD vide : seul findByMatriculeIn est appelé par l'index des managers
+        ManagerRepository managerRepository = (ManagerRepository) Proxy.newProxyInstance(
+                ManagerRepository.class.getClassLoader(), new Class<?>[]{ManagerRepository.class},
+                (proxy, methode, args) -> {
+                    if (methode.getName().equals("findByMatriculeIn")) {
+                        return Collections.emptyList();
+                    }
+                    if (methode.getName().equals("toString")) {
+                        return "ManagerRepository vide";
+                    }
+                    throw new UnsupportedOperationException(methode.getName());
+                });
+        IndexManagers indexManagers = new IndexManagers();
+        ReflectionTestUtils.setField(indexManagers, "managerRepository", managerRepository);
+
+        myRunner = new MyRunner();
+        ReflectionTestUtils.setField(myRunner, "indexManagers", indexManagers);
+        ReflectionTestUtils.setField(myRunner, "tailleFenetre", 1000);
+        ReflectionTestUtils.setField(myRunner, "parallelisme", parallelisme);
+        ReflectionTestUtils.setField(myRunner, "tailleMorceau", 10000);
+        ReflectionTestUtils.setField(myRunner, "lignesAttenteManager", 100000);
+        ReflectionTestUtils.setField(myRunner, "tailleSegment", 256 * 1024 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(fichier);
+    }
+
+    @Benchmark
+    public long readMappedFile() {
+        nbEmployes = 0;
+        long nbLignesLues = myRunner.readMappedFile(fichier, employes -> nbEmployes += employes.size());
+        if (nbLignesLues != nbLignes) {
+            throw new IllegalStateException(nbLignesLues + " lignes lues au lieu de " + nbLignes);
+        }
+        return nbEmployes;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'une date d'embauche : DateTimeFormat.forPattern à chaque ligne (ancien code de MyRunner)
+ * comparé à DateEmbaucheParser, pour des dates valides qui se répètent et pour des dates invalides.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateEmbaucheParserBenchmark {
+
+    private static final int NB_DATES = 1024;
+
+    private String[] dates;
+
+    private String[] datesInvalides;
+
+    private int i;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        dates = new String[NB_DATES];
+        datesInvalides = new String[NB_DATES];
+        for (int j = 0; j < NB_DATES; j++) {
+            //environ 20 ans d'embauches
+            LocalDate date = new LocalDate(2000, 1, 1).plusDays(random.nextInt(7300));
+            dates[j] = date.toString(DateEmbaucheParser.FORMAT);
+            datesInvalides[j] = date.getDayOfMonth() + "/" + (13 + random.nextInt(87)) + "/" + date.getYear();
+        }
+    }
+
+    private String suivante(String[] valeurs) {
+        i = (i + 1) & (NB_DATES - 1);
+        return valeurs[i];
+    }
+
+    @Benchmark
+    public LocalDate joda() {
+        return DateTimeFormat.forPattern("dd/MM/yyyy").parseLocalDate(suivante(dates));
+    }
+
+    @Benchmark
+    public LocalDate dateEmbaucheParser() {
+        return DateEmbaucheParser.parser(suivante(dates));
+    }
+
+    @Benchmark
+    public LocalDate jodaInvalide() {
+        try {
+            return DateTimeFormat.forPattern("dd/MM/yyyy").parseLocalDate(suivante(datesInvalides));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public LocalDate dateEmbaucheParserInvalide() {
+        return DateEmbaucheParser.parser(suivante(datesInvalides));
+    }
+}
@@ -0,0 +1,72 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût par ligne du contrôle des champs : String.matches (compilation d'un Pattern à chaque appel)
+ * comparé à ValidateurChamps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidateurChampsBenchmark {
+
+    private static final String[] LIGNES = {
+            "M87654,durand,jacques,04/06/2013,1200.5",
+            "T98765,dupont,pierre,12/03/2003,1700.5,5,M87654",
+            "C32154,aubert,michel,05/09/2018,2200.5,150000.0,100"
+    };
+
+    private String[][] champs;
+
+    @Setup
+    public void setup() {
+        champs = new String[LIGNES.length][];
+        for (int i = 0; i < LIGNES.length; i++) {
+            champs[i] = LIGNES[i].split(",");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public int stringMatches() {
+        int nbValides = 0;
+        for (String[] c : champs) {
+            boolean valide = c[0].matches(ValidateurChamps.REGEX_MATRICULE)
+                    && c[1].matches(ValidateurChamps.REGEX_NOM)
+                    && c[2].matches(ValidateurChamps.REGEX_PRENOM)
+                    && c[4].matches(ValidateurChamps.REGEX_SALAIRE);
+            if (c.length == 7 && c[0].charAt(0) == 'C') {
+                valide = valide && c[5].matches(ValidateurChamps.REGEX_CA) && c[6].matches(ValidateurChamps.REGEX_PERF);
+            } else if (c.length == 7) {
+                valide = valide && c[6].matches(ValidateurChamps.REGEX_MATRICULE_MANAGER);
+            }
+            nbValides += valide ? 1 : 0;
+        }
+        return nbValides;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public int validateurChamps() {
+        int nbValides = 0;
+        for (String[] c : champs) {
+            boolean valide = ValidateurChamps.estMatricule(c[0])
+                    && ValidateurChamps.estNom(c[1])
+                    && ValidateurChamps.estPrenom(c[2])
+                    && ValidateurChamps.estDecimal(c[4]);
+            if (c.length == 7 && c[0].charAt(0) == 'C') {
+                valide = valide && ValidateurChamps.estDecimal(c[5]) && ValidateurChamps.estPerformance(c[6]);
+            } else if (c.length == 7) {
+                valide = valide && ValidateurChamps.estMatriculeManager(c[6]);
+            }
+            nbValides += valide ? 1 : 0;
+        }
+        return nbValides;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ipiecoles.java.java230.model;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des primes annuelles de nbEmployes employés : getPrimeAnnuelle sur chaque entité, puis ColonnesEmployes
+ * (construction de l'instantané comprise ou non).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColonnesEmployesBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int nbEmployes;
+
+    private List<Employe> employes;
+
+    private ColonnesEmployes colonnes;
+
+    /**
+     * Un manager tous les 10 employés, puis 6 techniciens de ce manager et 3 commerciaux
+     */
+    @Setup
+    public void setup() throws TechnicienException {
+        Random random = new Random(42);
+        employes = new ArrayList<>(nbEmployes);
+        Manager manager = null;
+        for (int i = 0; i < nbEmployes; i++) {
+            LocalDate dateEmbauche = new LocalDate(1990 + random.nextInt(30), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            double salaire = 1200 + random.nextInt(30000) / 10d;
+            Employe employe;
+            if (i % 10 == 0) {
+                manager = new Manager("durand", "jacques", "M" + i, dateEmbauche, salaire, new HashSet<>());
+                employe = manager;
+            } else if (i % 10 < 7) {
+                Technicien technicien = new Technicien("dupont", "pierre", "T" + i, dateEmbauche, salaire, 1 + random.nextInt(5));
+                manager.ajoutTechnicienEquipe(technicien);
+                employe = technicien;
+            } else {
+                employe = new Commercial("martin", "marie", "C" + i, dateEmbauche, salaire, 10000 + random.nextInt(1000000) / 10d);
+            }
+            employe.setId((long) i);
+            employes.add(employe);
+        }
+        colonnes = ColonnesEmployes.de(employes);
+    }
+
+    @Benchmark
+    public double[] primesEntites() {
+        double[] primes = new double[employes.size()];
+        for (int i = 0; i < primes.length; i++) {
+            primes[i] = employes.get(i).getPrimeAnnuelle();
+        }
+        return primes;
+    }
+
+    @Benchmark
+    public double[] primesColonnes() {
+        return colonnes.calculerPrimes();
+    }
+
+    @Benchmark
+    public double[] primesColonnesAvecConstruction() {
+        return ColonnesEmployes.de(employes).calculerPrimes();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ipiecoles.java.java230.model;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du calcul de la prime annuelle et du hashCode pour chaque type d'employé.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeBenchmark {
+
+    @Param({"Manager", "Technicien", "Commercial"})
+    private String type;
+
+    private Employe employe;
+
+    @Setup
+    public void setup() throws TechnicienException {
+        LocalDate dateEmbauche = new LocalDate(2010, 3, 12);
+        switch (type) {
+            case "Manager":
+                Manager manager = new Manager("durand", "jacques", "M00001", dateEmbauche, 2500d, new HashSet<>());
+                for (int i = 0; i < 10; i++) {
+                    manager.ajoutTechnicienEquipe("dupont", "pierre", String.format("T%05d", i), dateEmbauche, 1700d, 1 + i % 5);
+                }
+                employe = manager;
+                break;
+            case "Technicien":
+                employe = new Technicien("dupont", "pierre", "T00001", dateEmbauche, 1700d, 3);
+                break;
+            default:
+                employe = new Commercial("aubert", "michel", "C00001", dateEmbauche, 2200d, 150000d, 100);
+        }
+    }
+
+    @Benchmark
+    public Double getPrimeAnnuelle() {
+        return employe.getPrimeAnnuelle();
+    }
+
+    @Benchmark
+    public int calculerHashCode() {
+        return employe.hashCode();
+    }
+}
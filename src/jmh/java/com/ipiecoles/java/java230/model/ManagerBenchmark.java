@@ -0,0 +1,61 @@
+package com.ipiecoles.java.java230.model;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût des traitements sur l'équipe d'un manager en fonction de sa taille.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManagerBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int tailleEquipe;
+
+    private Manager manager;
+
+    //alterne augmentation et diminution pour que les salaires restent stables d'une itération à l'autre
+    private boolean augmentation;
+
+    @Setup
+    public void setup() throws TechnicienException {
+        Random random = new Random(42);
+        LocalDate dateEmbauche = new LocalDate(2010, 3, 12);
+        manager = new Manager("durand", "jacques", "M00001", dateEmbauche, 2500d, new HashSet<>());
+        for (int i = 0; i < tailleEquipe; i++) {
+            manager.ajoutTechnicienEquipe("dupont", "pierre", String.format("T%06d", i), dateEmbauche,
+                    1500d + random.nextInt(1000), 1 + random.nextInt(5));
+        }
+    }
+
+    @Benchmark
+    public Manager augmenterSalaire() {
+        augmentation = !augmentation;
+        manager.augmenterSalaire(augmentation ? 0.1 : -1 / 11d);
+        return manager;
+    }
+
+    //parcours complet : equipeParGrade ne fait que renvoyer une vue
+    @Benchmark
+    public void equipeParGrade(Blackhole blackhole) {
+        for (Technicien technicien : manager.equipeParGrade()) {
+            blackhole.consume(technicien);
+        }
+    }
+
+    @Benchmark
+    public double salaireEquipeGrade1() {
+        return manager.salaireEquipeGrade1();
+    }
+}
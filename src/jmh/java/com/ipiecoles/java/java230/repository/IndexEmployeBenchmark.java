@@ -0,0 +1,270 @@
+package com.ipiecoles.java.java230.repository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requêtes des finders de BaseEmployeRepository, TechnicienRepository et du chargement de Manager.equipe sur une
+ * base MySQL de nbEmployes employés, avec le schéma initial (version 1 des migrations) puis avec les index
+ * (version 2). Le plan d'exécution (EXPLAIN) de chaque requête est affiché avant les mesures.
+ *
+ * La base est vidée puis recréée par Flyway :
+ * -Dbenchmark.url=jdbc:mysql://localhost:3306/entreprise_benchmark -Dbenchmark.utilisateur=root -Dbenchmark.motDePasse=
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexEmployeBenchmark {
+
+    //colonnes et jointures des requêtes générées par Hibernate pour l'héritage JOINED
+    private static final String SELECT_EMPLOYE = "select e.id, e.dateEmbauche, e.matricule, e.nom, e.prenom, e.salaire, "
+            + "c.caAnnuel, c.performance, t.grade, t.manager_id from Employe e "
+            + "left outer join Manager m on e.id = m.id "
+            + "left outer join Technicien t on e.id = t.id "
+            + "left outer join Commercial c on e.id = c.id ";
+
+    private static final String FIND_BY_MATRICULE = SELECT_EMPLOYE + "where e.matricule = ?";
+
+    private static final String FIND_BY_NOM_AND_PRENOM = SELECT_EMPLOYE + "where e.nom = ? and e.prenom = ?";
+
+    private static final String FIND_BY_NOM_IGNORE_CASE = SELECT_EMPLOYE + "where e.nomMajuscules = upper(?)";
+
+    private static final String FIND_BY_NOM_OR_PRENOM_ALL_IGNORE_CASE = SELECT_EMPLOYE
+            + "where e.prenomMinuscules = lower(?) or e.nomMinuscules = lower(?)";
+
+    //schéma initial, sans les colonnes calculées : les mêmes recherches sur les expressions
+    private static final String FIND_BY_NOM_IGNORE_CASE_V1 = SELECT_EMPLOYE + "where upper(e.nom) = upper(?)";
+
+    private static final String FIND_BY_NOM_OR_PRENOM_ALL_IGNORE_CASE_V1 = SELECT_EMPLOYE
+            + "where lower(e.prenom) = lower(?) or lower(e.nom) = lower(?)";
+
+    private static final String FIND_BY_DATE_EMBAUCHE_BEFORE = SELECT_EMPLOYE + "where e.dateEmbauche < ?";
+
+    private static final String FIND_BY_SALAIRE_GREATER_THAN = SELECT_EMPLOYE + "where e.salaire > ? order by e.salaire desc";
+
+    private static final String FIND_BY_GRADE_BETWEEN = "select e.id, e.matricule, e.nom, e.salaire, t.grade, t.manager_id "
+            + "from Technicien t inner join Employe e on t.id = e.id where t.grade between ? and ?";
+
+    private static final String EQUIPE_MANAGER = "select t.id, t.grade, e.matricule, e.nom, e.salaire "
+            + "from Technicien t inner join Employe e on t.id = e.id where t.manager_id = ?";
+
+    private static final String[] NOMS = {"durand", "dupont", "aubert", "martin", "bernard", "thomas", "petit", "robert"};
+
+    private static final String[] PRENOMS = {"jacques", "pierre", "michel", "marie", "jean", "anne", "paul", "sophie"};
+
+    @Param({"1", "2"})
+    private String versionSchema;
+
+    @Param({"100000"})
+    private int nbEmployes;
+
+    private Connection connection;
+
+    private PreparedStatement findByMatricule;
+
+    private PreparedStatement findByNomAndPrenom;
+
+    private PreparedStatement findByNomIgnoreCase;
+
+    private PreparedStatement findByNomOrPrenomAllIgnoreCase;
+
+    private PreparedStatement findByDateEmbaucheBefore;
+
+    private PreparedStatement findBySalaireGreaterThan;
+
+    private PreparedStatement findByGradeBetween;
+
+    private PreparedStatement equipeManager;
+
+    @Setup
+    public void setup() throws SQLException {
+        //hors de Spring Boot, logback est en DEBUG par défaut
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        String url = System.getProperty("benchmark.url", "jdbc:mysql://localhost:3306/entreprise_benchmark");
+        String utilisateur = System.getProperty("benchmark.utilisateur", "root");
+        String motDePasse = System.getProperty("benchmark.motDePasse", "");
+
+        Flyway flyway = new Flyway();
+        flyway.setDataSource(url, utilisateur, motDePasse);
+        flyway.clean();
+        flyway.setTarget(MigrationVersion.fromVersion(versionSchema));
+        flyway.migrate();
+
+        connection = DriverManager.getConnection(url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true",
+                utilisateur, motDePasse);
+        inserer();
+
+        findByMatricule = preparer(FIND_BY_MATRICULE, matricule('M', nbEmployes / 2 + 1));
+        findByNomAndPrenom = preparer(FIND_BY_NOM_AND_PRENOM, nom(nbEmployes / 2), PRENOMS[0]);
+        boolean schemaInitial = "1".equals(versionSchema);
+        findByNomIgnoreCase = preparer(schemaInitial ? FIND_BY_NOM_IGNORE_CASE_V1 : FIND_BY_NOM_IGNORE_CASE,
+                nom(nbEmployes / 2).toUpperCase());
+        findByNomOrPrenomAllIgnoreCase = preparer(schemaInitial ? FIND_BY_NOM_OR_PRENOM_ALL_IGNORE_CASE_V1 : FIND_BY_NOM_OR_PRENOM_ALL_IGNORE_CASE,
+                nom(nbEmployes / 2), nom(nbEmployes / 2));
+        findByDateEmbaucheBefore = preparer(FIND_BY_DATE_EMBAUCHE_BEFORE, Date.valueOf("1990-04-01"));
+        findBySalaireGreaterThan = preparer(FIND_BY_SALAIRE_GREATER_THAN, 4150.0);
+        findByGradeBetween = preparer(FIND_BY_GRADE_BETWEEN, 5, 5);
+        equipeManager = preparer(EQUIPE_MANAGER, (long) nbEmployes / 2 + 1);
+        for (PreparedStatement requete : new PreparedStatement[]{findByMatricule, findByNomAndPrenom, findByNomIgnoreCase,
+                findByNomOrPrenomAllIgnoreCase, findByDateEmbaucheBefore, findBySalaireGreaterThan, findByGradeBetween, equipeManager}) {
+            expliquer(requete);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Employés numérotés à partir de 1 : un manager tous les 10, puis 6 techniciens de ce manager et 3 commerciaux.
+     * Noms de 1000 valeurs différentes, dates d'embauche sur 30 ans et salaires de 1200 à 4200 €
+     */
+    private void inserer() throws SQLException {
+        Random random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement employe = connection.prepareStatement("insert into Employe (id, dateEmbauche, matricule, nom, prenom, salaire) values (?, ?, ?, ?, ?, ?)");
+             PreparedStatement manager = connection.prepareStatement("insert into Manager (id) values (?)");
+             PreparedStatement technicien = connection.prepareStatement("insert into Technicien (grade, id, manager_id) values (?, ?, ?)");
+             PreparedStatement commercial = connection.prepareStatement("insert into Commercial (caAnnuel, performance, id) values (?, ?, ?)")) {
+            long idManager = 0;
+            for (int i = 0; i < nbEmployes; i++) {
+                long id = i + 1;
+                char type = i % 10 == 0 ? 'M' : i % 10 >= 7 ? 'C' : 'T';
+                employe.setLong(1, id);
+                employe.setDate(2, Date.valueOf((1990 + random.nextInt(30)) + "-" + (1 + random.nextInt(12)) + "-" + (1 + random.nextInt(28))));
+                employe.setString(3, matricule(type, id));
+                employe.setString(4, nom(i));
+                employe.setString(5, PRENOMS[random.nextInt(PRENOMS.length)]);
+                employe.setDouble(6, 1200 + random.nextInt(30000) / 10d);
+                employe.addBatch();
+                if (type == 'M') {
+                    idManager = id;
+                    manager.setLong(1, id);
+                    manager.addBatch();
+                } else if (type == 'T') {
+                    technicien.setInt(1, 1 + random.nextInt(5));
+                    technicien.setLong(2, id);
+                    technicien.setLong(3, idManager);
+                    technicien.addBatch();
+                } else {
+                    commercial.setDouble(1, 10000 + random.nextInt(1000000) / 10d);
+                    commercial.setInt(2, random.nextInt(101));
+                    commercial.setLong(3, id);
+                    commercial.addBatch();
+                }
+                if (i % 1000 == 999 || i == nbEmployes - 1) {
+                    employe.executeBatch();
+                    manager.executeBatch();
+                    technicien.executeBatch();
+                    commercial.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        connection.setAutoCommit(true);
+        try (PreparedStatement analyse = connection.prepareStatement("analyze table Employe, Manager, Technicien, Commercial")) {
+            analyse.execute();
+        }
+    }
+
+    private static String matricule(char type, long id) {
+        return type + String.format("%06d", id);
+    }
+
+    private static String nom(int i) {
+        return NOMS[i % NOMS.length] + (i % 1000);
+    }
+
+    private PreparedStatement preparer(String sql, Object... parametres) throws SQLException {
+        PreparedStatement requete = connection.prepareStatement(sql);
+        for (int i = 0; i < parametres.length; i++) {
+            requete.setObject(i + 1, parametres[i]);
+        }
+        return requete;
+    }
+
+    private void expliquer(PreparedStatement requete) throws SQLException {
+        //le toString du PreparedStatement MySQL contient la requête avec ses paramètres
+        String sql = requete.toString().substring(requete.toString().indexOf(": ") + 2);
+        System.out.println("schéma v" + versionSchema + " : " + sql);
+        try (ResultSet plan = connection.createStatement().executeQuery("explain " + sql)) {
+            ResultSetMetaData colonnes = plan.getMetaData();
+            while (plan.next()) {
+                StringBuilder ligne = new StringBuilder("    ");
+                for (String colonne : new String[]{"table", "type", "key", "rows", "Extra"}) {
+                    ligne.append(colonne).append('=').append(plan.getString(colonne)).append(' ');
+                }
+                System.out.println(ligne);
+            }
+        }
+    }
+
+    private static int lire(PreparedStatement requete) throws SQLException {
+        int nbLignes = 0;
+        try (ResultSet resultat = requete.executeQuery()) {
+            while (resultat.next()) {
+                nbLignes++;
+            }
+        }
+        return nbLignes;
+    }
+
+    @Benchmark
+    public int findByMatricule() throws SQLException {
+        return lire(findByMatricule);
+    }
+
+    @Benchmark
+    public int findByNomAndPrenom() throws SQLException {
+        return lire(findByNomAndPrenom);
+    }
+
+    @Benchmark
+    public int findByNomIgnoreCase() throws SQLException {
+        return lire(findByNomIgnoreCase);
+    }
+
+    @Benchmark
+    public int findByNomOrPrenomAllIgnoreCase() throws SQLException {
+        return lire(findByNomOrPrenomAllIgnoreCase);
+    }
+
+    @Benchmark
+    public int findByDateEmbaucheBefore() throws SQLException {
+        return lire(findByDateEmbaucheBefore);
+    }
+
+    @Benchmark
+    public int findBySalaireGreaterThanOrderBySalaireDesc() throws SQLException {
+        return lire(findBySalaireGreaterThan);
+    }
+
+    @Benchmark
+    public int findByGradeBetween() throws SQLException {
+        return lire(findByGradeBetween);
+    }
+
+    @Benchmark
+    public int equipeManager() throws SQLException {
+        return lire(equipeManager);
+    }
+}
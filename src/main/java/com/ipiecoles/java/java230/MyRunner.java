@@ -1,110 +1,898 @@
 package com.ipiecoles.java.java230;
 
+import com.ipiecoles.java.java230.batch.CurseurChamps;
+import com.ipiecoles.java.java230.batch.DateEmbaucheParser;
+import com.ipiecoles.java.java230.batch.EmployeBatchWriter;
+import com.ipiecoles.java.java230.batch.EmpreinteEmploye;
+import com.ipiecoles.java.java230.batch.FichierMappe;
+import com.ipiecoles.java.java230.batch.ImportDelta;
+import com.ipiecoles.java.java230.batch.IndexEmpreintes;
+import com.ipiecoles.java.java230.batch.IndexManagers;
+import com.ipiecoles.java.java230.batch.LecteurLignes;
+import com.ipiecoles.java.java230.batch.PointReprise;
+import com.ipiecoles.java.java230.batch.ResultatLigne;
+import com.ipiecoles.java.java230.batch.TechniciensEnAttente;
+import com.ipiecoles.java.java230.batch.ValidateurChamps;
 import com.ipiecoles.java.java230.exceptions.BatchException;
 import com.ipiecoles.java.java230.exceptions.TechnicienException;
 import com.ipiecoles.java.java230.model.Commercial;
 import com.ipiecoles.java.java230.model.Employe;
 import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.ReferencePaie;
 import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.CurseurKeyset;
 import com.ipiecoles.java.java230.repository.EmployeRepository;
-import com.ipiecoles.java.java230.repository.ManagerRepository;
 import org.joda.time.LocalDate;
-import org.joda.time.format.DateTimeFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.DefaultApplicationArguments;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Component
 public class MyRunner implements CommandLineRunner {
 
-    private static final String REGEX_MATRICULE = "^[MTC][0-9]{5}$";
-    private static final String REGEX_NOM = "^[\\p{L}- ]*$";
-    private static final String REGEX_PRENOM = "^[\\p{L}- ]*$";
     private static final int NB_CHAMPS_MANAGER = 5;
     private static final int NB_CHAMPS_TECHNICIEN = 7;
-    private static final String REGEX_MATRICULE_MANAGER = "^M[0-9]{5}$";
     private static final int NB_CHAMPS_COMMERCIAL = 7;
-    //regex du salaire (nombre.nombre)
-    private static final String REGEX_SALAIRE = "^[0-9]+(\\.[0-9]{1,2})?$";
-    //regex du chiffre d'affaire (nombre.nombre)
-    private static final String REGEX_CA = "^[0-9]+(\\.[0-9]{1,2})?$";
-    //regex de la performance (0-100)
-    private static final String REGEX_PERF = "^[0-9]$|^[1-9][0-9]$|^(100)$";
+    //nombre maximum de matricules par requête IN
+    private static final int TAILLE_REQUETE_IN = 1000;
 
     @Autowired
     private EmployeRepository employeRepository;
 
     @Autowired
-    private ManagerRepository managerRepository;
+    private IndexManagers indexManagers;
 
-    private List<Employe> employes = new ArrayList<>();
+    @Autowired
+    private EmployeBatchWriter employeBatchWriter;
+
+    //enregistre ou non en BDD les employés valides du fichier
+    @Value("${batch.ecriture-bdd:true}")
+    private boolean ecritureBdd;
+
+    //nombre maximum d'employés conservés en mémoire avant d'être transmis au traitement suivant
+    @Value("${batch.taille-fenetre:1000}")
+    private int tailleFenetre;
+
+    //nombre de threads analysant les lignes (1 : analyse séquentielle, 0 : un thread par cœur)
+    @Value("${batch.parallelisme:1}")
+    private int parallelisme;
+
+    //nombre de lignes analysées avant d'être intégrées (par un thread d'analyse en mode parallèle) : les managers
+    //qu'elles référencent sont cherchés en BDD en une seule requête
+    @Value("${batch.taille-morceau:10000}")
+    private int tailleMorceau;
+
+    //nombre de lignes lues après un technicien pendant lesquelles son manager est attendu : au-delà, le technicien est
+    //rejeté, le nombre de techniciens en attente ne dépend donc pas de la taille du fichier
+    @Value("${batch.attente-manager-lignes:100000}")
+    private int lignesAttenteManager;
+
+    //taille maximum d'une portion de fichier mappée en mémoire (un buffer mappé est limité à 2 Go)
+    @Value("${batch.taille-segment:268435456}")
+    private int tailleSegment;
+
+    //n'écrit en BDD que les employés nouveaux ou modifiés depuis le dernier import et supprime ceux absents du fichier
+    @Value("${batch.mode-delta:false}")
+    private boolean modeDelta;
+
+    //fichier des empreintes des employés du dernier import différentiel
+    @Value("${batch.index-delta:employes.delta}")
+    private String fichierIndexDelta;
+
+    //enregistre un point de reprise à chaque fenêtre enregistrée en BDD, pour l'option --resume
+    @Value("${batch.reprise.actif:true}")
+    private boolean repriseActive;
+
+    //fichier du point de reprise de l'intégration des fichiers passés en argument
+    @Value("${batch.reprise.fichier:employes.reprise}")
+    private String fichierReprise;
+
+    //date de référence des calculs de paie pendant le traitement (aaaa-mm-jj), la date du jour si vide
+    @Value("${batch.date-reference:}")
+    private String dateReference;
+
+    //curseur de découpage des lignes propre à chaque thread d'analyse
+    private final ThreadLocal<CurseurChamps> curseurs = ThreadLocal.withInitial(CurseurChamps::new);
+
+    //état de la lecture en cours
+    private List<Employe> fenetre;
+    private Consumer<List<Employe>> consommateur;
+    private long numeroLigne;
+    private boolean modeParallele;
+    private int nbThreads;
+    private ExecutorService executor;
+    private Deque<Future<List<ResultatLigne>>> morceaux;
+
+    //techniciens dont le manager n'était pas encore connu, rattachés à la lecture de leur manager s'il se trouve dans
+    //les lignesAttenteManager lignes suivantes
+    private TechniciensEnAttente techniciensEnAttente;
+
+    //matricules du morceau en cours déjà en BDD, et matricules lus depuis cette vérification ou pas encore enregistrés
+    //à ce moment : un employé dont le matricule est dans l'un des deux est un doublon (null en mode delta)
+    private Set<String> matriculesEnBdd;
+    private Set<String> matriculesLus;
+
+    //état de l'import différentiel, null hors mode delta
+    private ImportDelta importDelta;
+    private boolean lectureIncomplete;
+
+    //état des points de reprise, enregistrés seulement pour les fichiers lus en mémoire mappée hors mode delta
+    private boolean pointsReprise;
+    private Path fichierEnCours;
+    //position et numéro de la ligne suivant le dernier employé enregistré en BDD
+    private long positionValidee;
+    private long numeroLigneValide;
+    //techniciens en attente rattachés depuis l'enregistrement de la dernière fenêtre
+    private List<ResultatLigne> techniciensDansFenetre;
+    //fin de la fenêtre peut-être validée avant l'arrêt, -1 hors reprise
+    private long finFenetreIncertaine;
+    //dernière version enregistrée des techniciens en attente, null si elle ne concerne pas le fichier en cours
+    private long versionAttente;
+    private Map<Long, String> attenteEnregistree;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Override
     public void run(String... strings) throws Exception {
-        String fileName = "employes.csv";
-        readFile(fileName);
-        //readFile(strings[0]);
+        //l'ancienneté et les primes sont calculées à la même date pendant tout le traitement
+        ReferencePaie.fixer(dateReference.isEmpty() ? LocalDate.now() : LocalDate.parse(dateReference));
+        try {
+            integrer(strings);
+        } finally {
+            ReferencePaie.liberer();
+        }
+    }
+
+    private void integrer(String... strings) throws Exception {
+        //les arguments qui ne sont pas des options (--xxx) sont les chemins des fichiers à intégrer
+        ApplicationArguments arguments = new DefaultApplicationArguments(strings);
+        List<String> fichiers = arguments.getNonOptionArgs();
+        Consumer<List<Employe>> consommateur;
+        if (!ecritureBdd) {
+            consommateur = employes -> { };
+        } else if (modeDelta) {
+            consommateur = employeBatchWriter::ecrireDelta;
+        } else {
+            consommateur = employeBatchWriter::ecrire;
+        }
+
+        //un import différentiel déjà commencé peut simplement être relancé : les employés déjà écrits sont inchangés
+        pointsReprise = ecritureBdd && !modeDelta && repriseActive;
+        PointReprise pointReprise = null;
+        if (arguments.containsOption("resume")) {
+            pointReprise = chargerPointReprise(fichiers);
+            if (pointReprise == null) {
+                return;
+            }
+            versionAttente = pointReprise.getVersionAttente();
+        } else if (pointsReprise) {
+            //les versions des techniciens en attente d'une intégration abandonnée ne doivent pas être réutilisées
+            PointReprise.supprimer(Paths.get(fichierReprise));
+            versionAttente = 0;
+        }
+
+        employeBatchWriter.demarrer();
+        lectureIncomplete = false;
+        if (modeDelta) {
+            importDelta = new ImportDelta(chargerIndexDelta(Paths.get(fichierIndexDelta)));
+        }
+        if (fichiers.isEmpty()) {
+            readFile("employes.csv", consommateur);
+        }
+        for (String fichier : fichiers) {
+            Path chemin = Paths.get(fichier);
+            if (pointReprise != null && !pointReprise.concerne(chemin)) {
+                logger.info("Fichier " + chemin + " déjà intégré avant le point de reprise");
+                continue;
+            }
+            if (pointReprise != null && pointReprise.isTermine()) {
+                logger.info("Fichier " + chemin + " déjà intégré avant le point de reprise");
+                pointReprise = null;
+                continue;
+            }
+            logger.info("Lecture du fichier : " + chemin);
+            integrerFichier(chemin, true, consommateur, pointReprise);
+            pointReprise = null;
+        }
+        if (modeDelta) {
+            terminerImportDelta(Paths.get(fichierIndexDelta));
+        }
+        if (pointsReprise && !lectureIncomplete) {
+            PointReprise.supprimer(Paths.get(fichierReprise));
+        }
+        if (ecritureBdd) {
+            logger.info(employeBatchWriter.getNbEcrits() + " employés intégrés en BDD (" + employeBatchWriter.getDebit() + " lignes/s)");
+        }
+    }
+
+    /**
+     * Méthode qui charge le point de reprise de l'option --resume et vérifie qu'il correspond à un des fichiers
+     * passés en argument, tel qu'il était lors de l'enregistrement du point de reprise
+     * @param fichiers les fichiers passés en argument
+     * @return le point de reprise, ou null s'il n'est pas utilisable
+     * @throws IOException si le point de reprise ne peut pas être lu
+     */
+    private PointReprise chargerPointReprise(List<String> fichiers) throws IOException {
+        Path chemin = Paths.get(fichierReprise);
+        if (!pointsReprise || fichiers.isEmpty()) {
+            logger.error("La reprise n'est possible que pour les fichiers passés en argument, avec batch.ecriture-bdd=true, batch.mode-delta=false et batch.reprise.actif=true");
+            return null;
+        }
+        if (!Files.exists(chemin)) {
+            logger.error("Aucun point de reprise " + chemin);
+            return null;
+        }
+        PointReprise pointReprise = PointReprise.charger(chemin);
+        Path fichier = fichiers.stream().map(Paths::get).filter(pointReprise::concerne).findFirst().orElse(null);
+        if (fichier == null) {
+            logger.error("Le fichier " + pointReprise.getFichier() + " du point de reprise ne fait pas partie des fichiers à intégrer");
+            return null;
+        }
+        if (Files.size(fichier) != pointReprise.getTailleFichier()) {
+            logger.error("Le fichier " + fichier + " a été modifié depuis le point de reprise");
+            return null;
+        }
+        logger.info("Reprise du fichier " + fichier + " après la ligne " + pointReprise.getNumeroLigne()
+                + " (octet " + pointReprise.getPosition() + ")");
+        return pointReprise;
+    }
+
+    /**
+     * Méthode qui enregistre le point de reprise du fichier en cours de lecture
+     * @param position la position dans le fichier de la ligne suivant le dernier employé enregistré en BDD
+     * @param numero le numéro de la ligne précédant cette position
+     * @param finFenetre la position de la fin de la fenêtre en cours d'enregistrement, -1 si aucune : les employés lus
+     *                   jusqu'à cette position seront réécrits à la reprise en remplaçant ceux de même matricule, au
+     *                   cas où la fenêtre aurait été validée
+     */
+    private void enregistrerPointReprise(long position, long numero, long finFenetre) {
+        //une fenêtre incertaine d'un arrêt précédent reste incertaine tant qu'elle n'a pas été entièrement réécrite
+        long finIncertaine = finFenetreIncertaine > position ? Math.max(finFenetre, finFenetreIncertaine) : finFenetre;
+        List<ResultatLigne> techniciens = new ArrayList<>();
+        if (finFenetre >= 0) {
+            techniciens.addAll(techniciensDansFenetre);
+        }
+        techniciens.addAll(techniciensEnAttente.tous());
+        //les lignes après la position seront relues à la reprise
+        techniciens.removeIf(resultat -> resultat.getFin() > position);
+        //les techniciens en attente ne sont réécrits que s'ils ont changé depuis le dernier point de reprise
+        boolean attenteModifiee = !memesNumeros(techniciens, attenteEnregistree);
+        Map<Long, String> enAttente = attenteEnregistree;
+        if (attenteModifiee) {
+            enAttente = new LinkedHashMap<>();
+            for (ResultatLigne resultat : techniciens) {
+                enAttente.put(resultat.getNumero(), resultat.getLigne());
+            }
+        }
+        long version = attenteModifiee ? versionAttente + 1 : versionAttente;
+        try {
+            new PointReprise(fichierEnCours, position, numero, indexManagers.size(), enAttente, version, finIncertaine)
+                    .enregistrer(Paths.get(fichierReprise), attenteModifiee);
+            versionAttente = version;
+            attenteEnregistree = enAttente;
+        } catch (IOException e) {
+            logger.error("Impossible d'enregistrer le point de reprise " + fichierReprise + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param techniciens des techniciens en attente
+     * @param enregistres les techniciens en attente du dernier point de reprise, null s'il n'y en a pas
+     * @return true si ce sont les mêmes lignes, dans le même ordre
+     */
+    private static boolean memesNumeros(List<ResultatLigne> techniciens, Map<Long, String> enregistres) {
+        if (enregistres == null || enregistres.size() != techniciens.size()) {
+            return false;
+        }
+        Iterator<Long> numeros = enregistres.keySet().iterator();
+        for (ResultatLigne resultat : techniciens) {
+            if (resultat.getNumero() != numeros.next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Méthode qui charge les empreintes du dernier import différentiel. Au premier import, elles sont calculées
+     * à partir des employés déjà en BDD
+     * @param fichier le fichier de l'index
+     * @return l'index des empreintes par matricule
+     * @throws IOException si le fichier existe mais ne peut pas être lu
+     */
+    private IndexEmpreintes chargerIndexDelta(Path fichier) throws IOException {
+        if (Files.exists(fichier)) {
+            IndexEmpreintes index = IndexEmpreintes.charger(fichier);
+            logger.info(index.size() + " empreintes chargées depuis " + fichier);
+            return index;
+        }
+        logger.info("Index " + fichier + " absent, calcul des empreintes des employés en BDD");
+        IndexEmpreintes index = new IndexEmpreintes();
+        CurseurKeyset<Employe> employes = CurseurKeyset.parId(employeRepository, tailleFenetre);
+        while (employes.hasNext()) {
+            Employe employe = employes.next();
+            index.put(employe.getMatricule(), EmpreinteEmploye.calculer(employe));
+        }
+        return index;
+    }
+
+    /**
+     * Méthode qui supprime les employés absents des fichiers lus puis enregistre l'index du prochain import.
+     * Si un fichier n'a pas pu être lu, rien n'est supprimé et l'index précédent est conservé : les employés
+     * écrits lors de cet import seront retrouvés par leur matricule au prochain import
+     * @param fichier le fichier de l'index
+     * @throws IOException si l'index ne peut pas être écrit
+     */
+    private void terminerImportDelta(Path fichier) throws IOException {
+        List<String> aSupprimer = importDelta.aSupprimer();
+        logger.info("Import différentiel : " + importDelta.getNbInseres() + " nouveaux, " + importDelta.getNbModifies()
+                + " modifiés, " + importDelta.getNbInchanges() + " inchangés, " + aSupprimer.size() + " absents du fichier");
+        if (lectureIncomplete) {
+            logger.error("Lecture incomplète, aucune suppression et index " + fichier + " non mis à jour");
+        } else if (ecritureBdd) {
+            if (!aSupprimer.isEmpty()) {
+                employeBatchWriter.supprimer(aSupprimer);
+            }
+            importDelta.getNouvelIndex().enregistrer(fichier);
+        }
+        importDelta = null;
     }
 
     /**
      * Méthode qui lit le fichier CSV en paramètre afin d'intégrer son contenu en BDD
      * @param fileName Le nom du fichier (à mettre dans src/main/resources)
-     * @return une liste contenant les employés à insérer en BDD ou null si le fichier n'a pas pu être le
+     * @return une liste contenant les employés à insérer en BDD ou une liste vide si le fichier n'a pas pu être lu
      */
     public List<Employe> readFile(String fileName){
-        Stream<String> stream;
-        logger.info("Lecture du fichier : " + fileName);
+        List<Employe> employes = new ArrayList<>();
+        readFile(fileName, employes::addAll);
+        return employes;
+    }
 
-        try{
-            stream = Files.lines(Paths.get(new ClassPathResource(fileName).getURI()));
-        } catch(IOException e){
+    /**
+     * Méthode qui lit le fichier CSV ligne à ligne et transmet les employés valides par fenêtres d'au plus
+     * tailleFenetre éléments, de sorte que la mémoire utilisée ne dépende pas de la taille du fichier. Une ligne
+     * invalide, y compris une ligne vide, est affichée en erreur et la lecture continue
+     * @param fileName Le nom du fichier (à mettre dans src/main/resources)
+     * @param consommateur le traitement appliqué à chaque fenêtre d'employés (la liste est vidée après l'appel)
+     * @return le nombre de lignes lues
+     */
+    public long readFile(String fileName, Consumer<List<Employe>> consommateur){
+        logger.info("Lecture du fichier : " + fileName);
+        Path chemin;
+        try {
+            chemin = Paths.get(new ClassPathResource(fileName).getURI());
+        } catch (IOException e) {
             logger.error("Problème dans l'ouverture du fichier " + fileName);
-            return new ArrayList<>();
+            lectureIncomplete = true;
+            return 0;
+        }
+        return integrerFichier(chemin, false, consommateur, null);
+    }
+
+    /**
+     * Méthode qui intègre un fichier CSV quelconque du système de fichiers en le lisant en mémoire mappée,
+     * par segments de tailleSegment octets, ce qui permet de lire des fichiers de plus de 2 Go. En mode parallèle,
+     * chaque segment est découpé en parties de tailleMorceau lignes que les threads d'analyse lisent directement
+     * @param chemin le chemin du fichier
+     * @param consommateur le traitement appliqué à chaque fenêtre d'employés (la liste est vidée après l'appel)
+     * @return le nombre de lignes lues
+     */
+    public long readMappedFile(Path chemin, Consumer<List<Employe>> consommateur){
+        logger.info("Lecture du fichier : " + chemin);
+        return integrerFichier(chemin, true, consommateur, null);
+    }
+
+    /**
+     * Méthode qui intègre un fichier, depuis le début ou depuis un point de reprise
+     * @param chemin le chemin du fichier
+     * @param memoireMappee true pour lire le fichier en mémoire mappée, seul mode avec des points de reprise
+     * @param consommateur le traitement appliqué à chaque fenêtre d'employés (la liste est vidée après l'appel)
+     * @param pointReprise le point de reprise de ce fichier, null pour l'intégrer depuis le début
+     * @return le nombre de lignes lues, y compris celles lues avant le point de reprise
+     */
+    private long integrerFichier(Path chemin, boolean memoireMappee, Consumer<List<Employe>> consommateur, PointReprise pointReprise) {
+        this.fenetre = new ArrayList<>(tailleFenetre);
+        this.consommateur = consommateur;
+        this.numeroLigne = pointReprise == null ? 0 : pointReprise.getNumeroLigne();
+        this.techniciensEnAttente = new TechniciensEnAttente();
+        this.techniciensDansFenetre = new ArrayList<>();
+        this.nbThreads = parallelisme > 0 ? parallelisme : Runtime.getRuntime().availableProcessors();
+        this.modeParallele = nbThreads > 1;
+        this.fichierEnCours = chemin;
+        this.positionValidee = pointReprise == null ? 0 : pointReprise.getPosition();
+        this.numeroLigneValide = numeroLigne;
+        this.attenteEnregistree = pointReprise == null ? null : pointReprise.getTechniciensEnAttente();
+        this.matriculesEnBdd = null;
+        this.matriculesLus = null;
+        this.finFenetreIncertaine = pointReprise == null ? -1 : pointReprise.getFinFenetreIncertaine();
+
+        boolean lu = false;
+        try {
+            //les managers du fichier enregistrés avant le point de reprise sont rechargés depuis la BDD avec chaque morceau
+            indexManagers.vider();
+            if (pointReprise != null) {
+                for (Map.Entry<Long, String> technicien : pointReprise.getTechniciensEnAttente().entrySet()) {
+                    ResultatLigne resultat = analyserLigne(technicien.getValue());
+                    resultat.setNumero(technicien.getKey());
+                    techniciensEnAttente.ajouter(resultat);
+                }
+                //ceux dont le manager a été enregistré avant le point de reprise sont rattachés tout de suite
+                Set<String> matricules = matriculesEnAttente();
+                indexManagers.prechauffer(matricules);
+                for (String matricule : matricules) {
+                    if (indexManagers.trouver(matricule) != null) {
+                        rattacherTechniciensEnAttente(matricule, pointReprise.getPosition());
+                    }
+                }
+                logger.info(indexManagers.size() + " managers rechargés (" + pointReprise.getNbManagers()
+                        + " au point de reprise), " + techniciensEnAttente.size() + " techniciens en attente de leur manager");
+            }
+            if (modeParallele) {
+                executor = Executors.newFixedThreadPool(nbThreads);
+                morceaux = new ArrayDeque<>();
+            }
+            if (memoireMappee) {
+                lireFichierMappe(chemin, pointReprise == null ? 0 : pointReprise.getPosition());
+            } else {
+                lireFichier(chemin);
+            }
+            lu = true;
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Problème dans l'ouverture du fichier " + chemin + " : " + e.getMessage());
+            lectureIncomplete = true;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
+        long finFichier = lu && memoireMappee ? chemin.toFile().length() : -1;
+        if (!techniciensEnAttente.isEmpty() && !fenetre.isEmpty()) {
+            //les employés lus avant le rattachement des techniciens en attente sont enregistrés à part
+            transmettreFenetre(finFichier);
+        }
+        resoudreTechniciensEnAttente(finFichier);
+        if (!fenetre.isEmpty()) {
+            transmettreFenetre(finFichier);
         }
-        List<String> lignes = stream.collect(Collectors.toList());
-        logger.info(lignes.size() + " lignes lues");
+        if (pointsReprise && finFichier >= 0) {
+            enregistrerPointReprise(finFichier, numeroLigne, -1);
+        }
+        logger.info(numeroLigne + " lignes lues");
+
+        return numeroLigne;
+    }
 
-        for (int i = 0; i < lignes.size(); i++){
-            try {
-                processLine(lignes.get(i));
-            } catch (BatchException e) {
-                logger.error("Ligne " + (i+1) + " : " + e.getMessage() + " => " + lignes.get(i));
+    private void lireFichier(Path chemin) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(chemin)) {
+            if (modeParallele) {
+                lireEnParallele(reader);
+            } else {
+                List<ResultatLigne> morceau = new ArrayList<>(tailleMorceau);
+                String ligne;
+                while ((ligne = reader.readLine()) != null) {
+                    morceau.add(analyserLigne(ligne));
+                    if (morceau.size() == tailleMorceau) {
+                        integrerLignes(morceau);
+                        morceau.clear();
+                    }
+                }
+                integrerLignes(morceau);
             }
         }
-        //TODO
+    }
 
-        return employes;
+    private void lireFichierMappe(Path chemin, long debutLecture) throws IOException {
+        try (FichierMappe fichier = new FichierMappe(chemin, tailleSegment)) {
+            long debut = debutLecture;
+            while (debut < fichier.taille()) {
+                FichierMappe.Segment segment = fichier.segment(debut);
+                if (modeParallele) {
+                    //des parties de tailleMorceau lignes, comme en lecture séquentielle : soumettreMorceau limite le
+                    //nombre de parties analysées en mémoire, quelle que soit la taille du segment
+                    long debutPartie = segment.debut();
+                    while (debutPartie < segment.fin()) {
+                        ByteBuffer partie = segment.partie(debutPartie, tailleMorceau);
+                        long position = debutPartie;
+                        soumettreMorceau(() -> analyserLignes(new LecteurLignes(partie), position));
+                        debutPartie += partie.limit();
+                    }
+                } else {
+                    LecteurLignes lecteur = new LecteurLignes(segment.contenu());
+                    List<ResultatLigne> morceau = new ArrayList<>(tailleMorceau);
+                    String ligne;
+                    while ((ligne = lecteur.suivante()) != null) {
+                        ResultatLigne resultat = analyserLigne(ligne);
+                        resultat.setFin(segment.debut() + lecteur.position());
+                        morceau.add(resultat);
+                        if (morceau.size() == tailleMorceau) {
+                            integrerLignes(morceau);
+                            morceau.clear();
+                        }
+                    }
+                    integrerLignes(morceau);
+                }
+                debut = segment.fin();
+            }
+            terminerMorceaux();
+        }
+    }
+
+    /**
+     * Méthode qui découpe le fichier en morceaux de tailleMorceau lignes analysés par les threads d'analyse
+     * @param reader le fichier en cours de lecture
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    private void lireEnParallele(BufferedReader reader) throws IOException {
+        List<String> morceau = new ArrayList<>(tailleMorceau);
+        String ligne;
+        while ((ligne = reader.readLine()) != null) {
+            morceau.add(ligne);
+            if (morceau.size() == tailleMorceau) {
+                List<String> lignes = morceau;
+                soumettreMorceau(() -> analyserLignes(lignes));
+                morceau = new ArrayList<>(tailleMorceau);
+            }
+        }
+        if (!morceau.isEmpty()) {
+            List<String> lignes = morceau;
+            soumettreMorceau(() -> analyserLignes(lignes));
+        }
+        terminerMorceaux();
+    }
+
+    /**
+     * Méthode qui confie un morceau du fichier aux threads d'analyse. Les résultats sont intégrés dans l'ordre
+     * du fichier, ce qui garantit les mêmes numéros de ligne et le même ordre des erreurs quel que soit le
+     * nombre de threads. Au plus 2 morceaux par thread sont gardés en mémoire
+     * @param analyse l'analyse des lignes du morceau
+     */
+    private void soumettreMorceau(Callable<List<ResultatLigne>> analyse) {
+        morceaux.add(executor.submit(analyse));
+        if (morceaux.size() > 2 * nbThreads) {
+            integrerMorceau(morceaux.poll());
+        }
+    }
+
+    private void terminerMorceaux() {
+        while (morceaux != null && !morceaux.isEmpty()) {
+            integrerMorceau(morceaux.poll());
+        }
+    }
+
+    private List<ResultatLigne> analyserLignes(List<String> lignes) {
+        return lignes.stream().map(this::analyserLigne).collect(Collectors.toList());
+    }
+
+    private List<ResultatLigne> analyserLignes(LecteurLignes lecteur, long debut) throws IOException {
+        List<ResultatLigne> resultats = new ArrayList<>();
+        String ligne;
+        while ((ligne = lecteur.suivante()) != null) {
+            ResultatLigne resultat = analyserLigne(ligne);
+            resultat.setFin(debut + lecteur.position());
+            resultats.add(resultat);
+        }
+        return resultats;
+    }
+
+    private void integrerMorceau(Future<List<ResultatLigne>> morceau) {
+        try {
+            integrerLignes(morceau.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lecture du fichier interrompue", e);
+        } catch (ExecutionException e) {
+            //comme en lecture séquentielle, un fichier illisible (UTF-8 invalide) interrompt la lecture sans arrêter le batch
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException("Erreur lors de l'analyse du fichier", e.getCause());
+        }
+    }
+
+    /**
+     * Méthode qui intègre un morceau de lignes analysées, dans l'ordre du fichier, après avoir chargé en une fois
+     * les managers en BDD référencés par le morceau qui ne sont pas encore dans l'index
+     * @param resultats les résultats de l'analyse des lignes suivantes du fichier
+     */
+    private void integrerLignes(List<ResultatLigne> resultats) {
+        Set<String> matricules = new HashSet<>();
+        for (ResultatLigne resultat : resultats) {
+            if (resultat.getEmploye() instanceof Manager) {
+                //un manager déjà en BDD reste prioritaire sur celui du fichier
+                matricules.add(resultat.getEmploye().getMatricule());
+            } else if (resultat.getMatriculeManager() != null) {
+                matricules.add(resultat.getMatriculeManager());
+            }
+        }
+        indexManagers.prechauffer(matricules);
+        if (!modeDelta) {
+            chercherMatriculesEnBdd(resultats);
+        }
+        resultats.forEach(this::integrerLigne);
+    }
+
+    /**
+     * Méthode qui cherche en BDD les matricules des employés d'un morceau, par une requête IN pour 1000 matricules.
+     * Les matricules lus avant et pas encore enregistrés (fenêtre en cours, techniciens en attente) sont conservés,
+     * les autres ont été validés et seront trouvés en BDD : la mémoire utilisée ne dépend pas de la taille du fichier
+     * @param resultats les lignes analysées du morceau
+     */
+    private void chercherMatriculesEnBdd(List<ResultatLigne> resultats) {
+        matriculesLus = new HashSet<>();
+        for (Employe employe : fenetre) {
+            matriculesLus.add(employe.getMatricule());
+        }
+        for (ResultatLigne resultat : techniciensEnAttente.tous()) {
+            matriculesLus.add(resultat.getEmploye().getMatricule());
+        }
+        matriculesEnBdd = new HashSet<>();
+        if (!ecritureBdd) {
+            return;
+        }
+        List<String> lot = new ArrayList<>(TAILLE_REQUETE_IN);
+        for (ResultatLigne resultat : resultats) {
+            if (resultat.isEnErreur() || dansFenetreIncertaine(resultat)) {
+                continue;
+            }
+            lot.add(resultat.getEmploye().getMatricule());
+            if (lot.size() == TAILLE_REQUETE_IN) {
+                matriculesEnBdd.addAll(employeRepository.findMatriculesIn(lot));
+                lot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            matriculesEnBdd.addAll(employeRepository.findMatriculesIn(lot));
+        }
+    }
+
+    /**
+     * Méthode qui vérifie que le matricule d'un employé n'est ni en BDD ni sur une ligne précédente du fichier,
+     * ce que la contrainte d'unicité ferait échouer à l'écriture de toute la fenêtre
+     * @param resultat la ligne analysée sans erreur
+     * @return true si le matricule est en double, l'erreur est alors renseignée dans le résultat
+     */
+    private boolean matriculeEnDouble(ResultatLigne resultat) {
+        if (matriculesLus == null) {
+            return false;
+        }
+        String matricule = resultat.getEmploye().getMatricule();
+        //les lignes de la fenêtre incertaine d'un arrêt précédent sont peut-être en BDD, elles y seront remplacées
+        if (!dansFenetreIncertaine(resultat) && matriculesEnBdd.contains(matricule)) {
+            resultat.setErreur(new BatchException("Un employé de matricule " + matricule + " existe déjà en BDD"));
+            return true;
+        }
+        if (!matriculesLus.add(matricule)) {
+            resultat.setErreur(new BatchException("Le matricule " + matricule + " est déjà présent dans le fichier"));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true si la ligne fait partie de la fenêtre peut-être validée avant l'arrêt précédent
+     */
+    private boolean dansFenetreIncertaine(ResultatLigne resultat) {
+        return resultat.getFin() >= 0 && resultat.getFin() <= finFenetreIncertaine;
+    }
+
+    /**
+     * Méthode qui analyse une ligne sans accéder à la BDD ni à l'état du batch, elle peut donc être
+     * appelée depuis plusieurs threads (visible dans le package pour les benchmarks)
+     * @param ligne la ligne à analyser
+     * @return le résultat de l'analyse
+     */
+    ResultatLigne analyserLigne(String ligne) {
+        ResultatLigne resultat = new ResultatLigne(ligne);
+        try {
+            processLine(ligne, resultat);
+        } catch (BatchException e) {
+            resultat.setErreur(e);
+        }
+        return resultat;
+    }
+
+    /**
+     * Méthode qui intègre le résultat de l'analyse d'une ligne, dans l'ordre du fichier : affiche l'erreur
+     * éventuelle, rattache le technicien à son manager et ajoute l'employé à la fenêtre en cours. Un technicien
+     * dont le manager n'est pas encore connu est mis en attente, quel que soit le nombre de threads d'analyse
+     * @param resultat le résultat de l'analyse de la ligne suivante du fichier
+     */
+    private void integrerLigne(ResultatLigne resultat) {
+        resultat.setNumero(++numeroLigne);
+        rejeterTechniciensExpires();
+        if (resultat.isEnErreur() || matriculeEnDouble(resultat)) {
+            rejeter(resultat);
+            return;
+        }
+        if (resultat.getEmploye() instanceof Manager) {
+            Manager manager = (Manager) resultat.getEmploye();
+            indexManagers.ajouter(manager);
+            ajouterAFenetre(manager, resultat.getFin());
+            rattacherTechniciensEnAttente(manager.getMatricule(), resultat.getFin());
+            return;
+        }
+        if (resultat.getMatriculeManager() != null && !rattacherManager(resultat)) {
+            //le manager peut se trouver plus loin dans le fichier
+            techniciensEnAttente.ajouter(resultat);
+            return;
+        }
+        ajouterAFenetre(resultat.getEmploye(), resultat.getFin());
+    }
+
+    /**
+     * Méthode qui rattache au manager qui vient d'être lu les techniciens qui l'attendaient. Ils sont enregistrés
+     * juste après lui, dans l'ordre du fichier
+     * @param matriculeManager le matricule du manager lu
+     * @param fin la position dans le fichier de la fin de la ligne du manager
+     */
+    private void rattacherTechniciensEnAttente(String matriculeManager, long fin) {
+        ResultatLigne resultat;
+        while ((resultat = techniciensEnAttente.retirer(matriculeManager)) != null) {
+            rattacherManager(resultat);
+            techniciensDansFenetre.add(resultat);
+            ajouterAFenetre(resultat.getEmploye(), fin);
+        }
+    }
+
+    /**
+     * Méthode qui rejette les techniciens dont le manager n'a pas été lu dans les lignesAttenteManager lignes qui
+     * les suivent. Leur manager a déjà été cherché en BDD avec leur morceau
+     */
+    private void rejeterTechniciensExpires() {
+        while (techniciensEnAttente.premierNumero() < numeroLigne - lignesAttenteManager) {
+            ResultatLigne resultat = techniciensEnAttente.retirerPremier();
+            resultat.setErreur(new BatchException("Le manager de matricule " + resultat.getMatriculeManager()
+                    + " n'a pas été trouvé en BDD ou dans les " + lignesAttenteManager + " lignes suivantes"));
+            rejeter(resultat);
+        }
+    }
+
+    /**
+     * Méthode qui traite, une fois tout le fichier lu, les techniciens encore en attente : leur manager est cherché
+     * une dernière fois dans l'index, sinon ils sont rejetés
+     */
+    private void resoudreTechniciensEnAttente(long finFichier) {
+        indexManagers.prechauffer(matriculesEnAttente());
+        ResultatLigne resultat;
+        while ((resultat = techniciensEnAttente.retirerPremier()) != null) {
+            techniciensDansFenetre.add(resultat);
+            if (rattacherManager(resultat)) {
+                ajouterAFenetre(resultat.getEmploye(), finFichier);
+            } else {
+                resultat.setErreur(new BatchException("Le manager de matricule " + resultat.getMatriculeManager() + " n'a pas été trouvé dans le fichier ou en BDD"));
+                rejeter(resultat);
+            }
+        }
+    }
+
+    private Set<String> matriculesEnAttente() {
+        return techniciensEnAttente.tous().stream().map(ResultatLigne::getMatriculeManager).collect(Collectors.toSet());
+    }
+
+    /**
+     * Méthode qui cherche le manager du technicien dans l'index des managers en BDD et lus dans le fichier
+     * @param resultat le résultat de l'analyse d'une ligne technicien
+     * @return true si le manager a été trouvé et rattaché au technicien
+     */
+    private boolean rattacherManager(ResultatLigne resultat) {
+        Manager manager = indexManagers.trouver(resultat.getMatriculeManager());
+        if (manager == null){
+            return false;
+        }
+        ((Technicien) resultat.getEmploye()).setManager(manager);
+        return true;
+    }
+
+    /**
+     * Méthode qui ajoute un employé à la fenêtre en cours, transmise au consommateur lorsqu'elle est pleine
+     * @param employe l'employé valide
+     * @param fin la position dans le fichier de la fin de la ligne de l'employé, -1 si elle n'est pas connue
+     */
+    private void ajouterAFenetre(Employe employe, long fin) {
+        if (importDelta != null && !importDelta.aEcrire(employe)) {
+            return;
+        }
+        fenetre.add(employe);
+        if (fenetre.size() >= tailleFenetre) {
+            transmettreFenetre(fin);
+        }
+    }
+
+    /**
+     * Méthode qui transmet la fenêtre au consommateur. Le point de reprise est enregistré avant l'écriture, en
+     * indiquant la fin de la fenêtre incertaine, puis après l'écriture avec la nouvelle position : un arrêt à
+     * n'importe quel moment ne fait donc jamais enregistrer deux fois le même employé. À la reprise, les fenêtres
+     * qui commencent avant la fin de la fenêtre incertaine remplacent les employés de même matricule : leurs
+     * limites ne sont pas forcément les mêmes qu'avant l'arrêt
+     * @param fin la position dans le fichier de la fin de la dernière ligne de la fenêtre, -1 si elle n'est pas connue
+     */
+    private void transmettreFenetre(long fin) {
+        boolean reprise = pointsReprise && fin >= 0;
+        if (reprise) {
+            enregistrerPointReprise(positionValidee, numeroLigneValide, fin);
+        }
+        if (positionValidee < finFenetreIncertaine) {
+            employeBatchWriter.ecrireDelta(fenetre);
+        } else {
+            consommateur.accept(fenetre);
+        }
+        fenetre.clear();
+        techniciensDansFenetre.clear();
+        if (reprise) {
+            positionValidee = fin;
+            numeroLigneValide = numeroLigne;
+            enregistrerPointReprise(positionValidee, numeroLigneValide, -1);
+        }
+    }
+
+    /**
+     * Méthode qui affiche une ligne en erreur dès son rejet : seul un technicien en attente de son manager est
+     * affiché après les lignes qui le suivent
+     * @param resultat la ligne en erreur
+     */
+    private void rejeter(ResultatLigne resultat) {
+        logErreur(resultat);
+        if (importDelta != null) {
+            importDelta.conserver(resultat.getLigne());
+        }
+    }
+
+    private void logErreur(ResultatLigne resultat) {
+        logger.error("Ligne " + resultat.getNumero() + " : " + resultat.getErreur().getMessage() + " => " + resultat.getLigne());
     }
 
     /**
      * Méthode qui regarde le premier caractère de la ligne et appelle la bonne méthode de création d'employé
      * @param ligne la ligne à analyser
+     * @param resultat le résultat dans lequel est placé l'employé créé
      * @throws BatchException si le type d'employé n'a pas été reconnu
      */
-    private void processLine(String ligne) throws BatchException {
-        String premiereLettre = ligne.substring(0,1);
-        switch (premiereLettre){
-            case "T" :
-                processTechnicien(ligne);
+    private void processLine(String ligne, ResultatLigne resultat) throws BatchException {
+        if (ligne.isEmpty()){
+            throw new BatchException("Ligne vide");
+        }
+        CurseurChamps champs = curseurs.get().positionner(ligne);
+        switch (champs.premierCaractere()){
+            case 'T' :
+                processTechnicien(champs, resultat);
                 break;
-            case "M" :
-                processManager(ligne);
+            case 'M' :
+                resultat.setEmploye(processManager(champs));
                 break;
-            case "C" :
-                processCommercial(ligne);
+            case 'C' :
+                resultat.setEmploye(processCommercial(champs));
                 break;
             default :
                 throw new BatchException("Type d'employé inconnu");
@@ -114,150 +902,125 @@ public class MyRunner implements CommandLineRunner {
 
     /**
      * Méthode qui regroupe les méthodes communes à tout les types d'employés et les ajoute à l'employé créé
-     * @param ligneEmploye la ligne contenant les infos de l'employé à intégrer
+     * @param champs les champs de la ligne contenant les infos de l'employé à intégrer
      * @throws BatchException s'il y a un problème sur cette ligne
      */
-    private void processEmploye (String ligneEmploye, Employe e) throws BatchException{
-        String[] employeFields = ligneEmploye.split(",");
-
+    private void processEmploye (CurseurChamps champs, Employe e) throws BatchException{
         //Contrôle le matricule
-        if (!employeFields[0].matches(REGEX_MATRICULE)){
-            throw new BatchException("la chaîne " + employeFields[0] + " ne respecte pas l'expression régulière " + REGEX_MATRICULE);
+        if (!champs.estMatricule(0)){
+            throw new BatchException("la chaîne " + champs.texte(0) + " ne respecte pas l'expression régulière " + ValidateurChamps.REGEX_MATRICULE);
         }
 
         //Contrôle le nom
-        if(!employeFields[1].matches(REGEX_NOM)){
-            throw new BatchException("la chaîne " + employeFields[1] + " ne respecte pas l'expression régulière " + REGEX_NOM);
+        if(!champs.estNom(1)){
+            throw new BatchException("la chaîne " + champs.texte(1) + " ne respecte pas l'expression régulière " + ValidateurChamps.REGEX_NOM);
         }
 
         //Contrôle le prénom
-        if (!employeFields[2].matches(REGEX_PRENOM)){
-            throw new BatchException("la chaîne " + employeFields[2] + " ne respecte pas l'expression régulière " + REGEX_PRENOM);
+        if (!champs.estPrenom(2)){
+            throw new BatchException("la chaîne " + champs.texte(2) + " ne respecte pas l'expression régulière " + ValidateurChamps.REGEX_PRENOM);
         }
 
         //Contrôle la date
-        LocalDate date;
-        try {
-            date = DateTimeFormat.forPattern("dd/MM/yyyy").parseLocalDate(employeFields[3]);
-        } catch (Exception exc){
-            throw new BatchException(employeFields[3] + " ne respecte pas le format de date dd/MM/yyyy");
+        LocalDate date = champs.lireDate(3);
+        if (date == null){
+            throw new BatchException(champs.texte(3) + " ne respecte pas le format de date " + DateEmbaucheParser.FORMAT);
         }
 
         //Contrôle le salaire
-        if (!employeFields[4].matches(REGEX_SALAIRE)){
-            throw new BatchException(employeFields[4] + " n'est pas un nombre valide pour le salaire");
+        if (!champs.estDecimal(4)){
+            throw new BatchException(champs.texte(4) + " n'est pas un nombre valide pour le salaire");
         }
-        Double salaire = Double.parseDouble(employeFields[4]);
 
-        e.setMatricule(employeFields[0]);
-        e.setNom(employeFields[1]);
-        e.setPrenom(employeFields[2]);
+        e.setMatricule(champs.texte(0));
+        e.setNom(champs.texte(1));
+        e.setPrenom(champs.texte(2));
         e.setDateEmbauche(date);
-        e.setSalaire(salaire);
+        e.setSalaire(champs.lireDecimal(4));
     }
 
     /**
-     * Méthode qui crée un Commercial à partir d'une ligne contenant les informations d'un commercial et l'ajoute dans la liste globale des employés
-     * @param ligneCommercial la ligne contenant les infos du commercial à intégrer
+     * Méthode qui crée un Commercial à partir d'une ligne contenant les informations d'un commercial
+     * @param champs les champs de la ligne contenant les infos du commercial à intégrer
+     * @return le commercial créé
      * @throws BatchException s'il y a un problème sur cette ligne
      */
-    private void processCommercial(String ligneCommercial) throws BatchException {
-        String[] commercialFields = ligneCommercial.split(",");
-
+    private Commercial processCommercial(CurseurChamps champs) throws BatchException {
         //Contrôle la longueur de la ligne
-        if (commercialFields.length != NB_CHAMPS_COMMERCIAL){
-            throw new BatchException("La ligne commercial ne contient pas " + NB_CHAMPS_COMMERCIAL + " éléments mais " + commercialFields.length);
+        if (champs.nbChamps() != NB_CHAMPS_COMMERCIAL){
+            throw new BatchException("La ligne commercial ne contient pas " + NB_CHAMPS_COMMERCIAL + " éléments mais " + champs.nbChamps());
         }
         Commercial c = new Commercial();
-        processEmploye(ligneCommercial,c);
+        processEmploye(champs, c);
 
         //Contrôle le Chiffre d'affaire
-        if (!commercialFields[5].matches(REGEX_CA)){
-            throw new BatchException("Le chiffre d'affaire du commercial est incorrect : " + commercialFields[5]);
+        if (!champs.estDecimal(5)){
+            throw new BatchException("Le chiffre d'affaire du commercial est incorrect : " + champs.texte(5));
         }
-        Double CA = Double.parseDouble(commercialFields[5]);
 
         //Contrôle la performance
-        if (!commercialFields[6].matches(REGEX_PERF)){
-            throw new BatchException("La performance du commercial est incorrecte : " + commercialFields[6]);
+        if (!champs.estPerformance(6)){
+            throw new BatchException("La performance du commercial est incorrecte : " + champs.texte(6));
         }
-        Integer perf = Integer.parseInt(commercialFields[6]);
 
-        c.setCaAnnuel(CA);
-        c.setPerformance(perf);
-        employes.add(c);
+        c.setCaAnnuel(champs.lireDecimal(5));
+        c.setPerformance(champs.lireEntier(6));
+        return c;
     }
 
     /**
-     * Méthode qui crée un Manager à partir d'une ligne contenant les informations d'un manager et l'ajoute dans la liste globale des employés
-     * @param ligneManager la ligne contenant les infos du manager à intégrer
+     * Méthode qui crée un Manager à partir d'une ligne contenant les informations d'un manager
+     * @param champs les champs de la ligne contenant les infos du manager à intégrer
+     * @return le manager créé
      * @throws BatchException s'il y a un problème sur cette ligne
      */
-    private void processManager(String ligneManager) throws BatchException {
-        String[] managerFields = ligneManager.split(",");
-
+    private Manager processManager(CurseurChamps champs) throws BatchException {
         Manager m = new Manager();
 
         //Contrôle la longueur de la ligne
-        if (managerFields.length != NB_CHAMPS_MANAGER){
-            throw new BatchException("La ligne commercial ne contient pas " + NB_CHAMPS_MANAGER + " éléments mais " + managerFields.length);
+        if (champs.nbChamps() != NB_CHAMPS_MANAGER){
+            throw new BatchException("La ligne commercial ne contient pas " + NB_CHAMPS_MANAGER + " éléments mais " + champs.nbChamps());
         }
 
-        processEmploye(ligneManager, m);
+        processEmploye(champs, m);
 
-        employes.add(m);
+        return m;
     }
 
     /**
-     * Méthode qui crée un Technicien à partir d'une ligne contenant les informations d'un technicien et l'ajoute dans la liste globale des employés
-     * @param ligneTechnicien la ligne contenant les infos du technicien à intégrer
+     * Méthode qui crée un Technicien à partir d'une ligne contenant les informations d'un technicien. Le manager
+     * n'est pas recherché ici mais au moment de l'intégration de la ligne, à partir du matricule mémorisé dans le résultat
+     * @param champs les champs de la ligne contenant les infos du technicien à intégrer
+     * @param resultat le résultat dans lequel sont placés le technicien créé et le matricule de son manager
      * @throws BatchException s'il y a un problème sur cette ligne
      */
-    private void processTechnicien(String ligneTechnicien) throws BatchException {
-        String[] technicienFields = ligneTechnicien.split(",");
-
+    private void processTechnicien(CurseurChamps champs, ResultatLigne resultat) throws BatchException {
         //Contrôle la longueur de la ligne
-        if (technicienFields.length != NB_CHAMPS_TECHNICIEN){
-            throw new BatchException("La ligne commercial ne contient pas " + NB_CHAMPS_TECHNICIEN + " éléments mais " + technicienFields.length);
+        if (champs.nbChamps() != NB_CHAMPS_TECHNICIEN){
+            throw new BatchException("La ligne commercial ne contient pas " + NB_CHAMPS_TECHNICIEN + " éléments mais " + champs.nbChamps());
         }
 
         Technicien t = new Technicien();
 
         //Contrôle si le grade est un chiffre
-        Integer grade;
-        try{
-            grade = Integer.parseInt(technicienFields[5]);
-        } catch (Exception e){
-            throw new BatchException("Le grade du technicien est incorrect : " + technicienFields[5]);
+        if (!champs.estEntier(5)){
+            throw new BatchException("Le grade du technicien est incorrect : " + champs.texte(5));
         }
 
         //Contrôle si le grade est compris entre 1 et 5 et le set si valide
         try{
-            t.setGrade(grade);
+            t.setGrade(champs.lireEntier(5));
         }catch (Exception e){
             throw new BatchException("Le grade doit être compris entre 1 et 5");
         }
 
-        processEmploye(ligneTechnicien, t);
+        processEmploye(champs, t);
 
         //Contrôle la validité du matricule manager
-        if (!technicienFields[6].matches(REGEX_MATRICULE_MANAGER)){
-            throw new BatchException("la chaîne " + technicienFields[6] + " ne respecte pas l'expression régulière " + REGEX_MATRICULE_MANAGER);
+        if (!champs.estMatriculeManager(6)){
+            throw new BatchException("la chaîne " + champs.texte(6) + " ne respecte pas l'expression régulière " + ValidateurChamps.REGEX_MATRICULE_MANAGER);
         }
-        //Contrôle si le manager existe dans la BDD puis dans le fichier
-        Manager manager = managerRepository.findByMatricule(technicienFields[6]);
-        if (manager == null){
-            for (int i = 0; i < employes.size(); i++){
-                if(!(employes.get(i) instanceof Manager) || !employes.get(i).getMatricule().equals(technicienFields[6])){
-                    throw new BatchException("Le manager de matricule " + technicienFields[6] + " n'a pas été trouvé dans le fichier ou en BDD");
-                }else {
-                    manager = (Manager) employes.get(i);
-                    break;
-                }
-            }
-        }
-
-        t.setManager(manager);
-        employes.add(t);
+        resultat.setEmploye(t);
+        resultat.setMatriculeManager(champs.texte(6));
     }
 }
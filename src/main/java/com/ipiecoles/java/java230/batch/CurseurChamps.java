@@ -0,0 +1,195 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.joda.time.LocalDate;
+
+import java.util.Arrays;
+
+/**
+ * Curseur réutilisable sur les champs d'une ligne CSV séparés par des virgules.
+ * Les bornes des champs sont calculées une seule fois par ligne, sans créer de tableau ni de sous-chaîne :
+ * les champs sont contrôlés et convertis en nombres directement à partir des caractères de la ligne.
+ * Une instance n'est pas thread-safe, chaque thread d'analyse doit utiliser la sienne.
+ */
+public class CurseurChamps {
+
+    private static final char SEPARATEUR = ',';
+
+    //au-delà, la valeur entière d'un décimal ne tient plus exactement dans un double
+    private static final long MAX_EXACT = 1L << 53;
+
+    private CharSequence ligne;
+
+    private int[] debuts = new int[8];
+
+    private int[] fins = new int[8];
+
+    private int nbChamps;
+
+    /**
+     * Méthode qui place le curseur sur une nouvelle ligne. Le nombre de champs est le même que celui
+     * du tableau renvoyé par String.split(",") : les champs vides en fin de ligne ne sont pas comptés
+     * @param ligne la ligne à découper
+     * @return ce curseur
+     */
+    public CurseurChamps positionner(CharSequence ligne) {
+        this.ligne = ligne;
+        this.nbChamps = 0;
+        int longueur = ligne.length();
+        int debut = 0;
+        for (int i = 0; i < longueur; i++) {
+            if (ligne.charAt(i) == SEPARATEUR) {
+                ajouterChamp(debut, i);
+                debut = i + 1;
+            }
+        }
+        if (nbChamps == 0) {
+            ajouterChamp(0, longueur);
+            return this;
+        }
+        ajouterChamp(debut, longueur);
+        while (nbChamps > 0 && debuts[nbChamps - 1] == fins[nbChamps - 1]) {
+            nbChamps--;
+        }
+        return this;
+    }
+
+    private void ajouterChamp(int debut, int fin) {
+        if (nbChamps == debuts.length) {
+            debuts = Arrays.copyOf(debuts, nbChamps * 2);
+            fins = Arrays.copyOf(fins, nbChamps * 2);
+        }
+        debuts[nbChamps] = debut;
+        fins[nbChamps] = fin;
+        nbChamps++;
+    }
+
+    public int nbChamps() {
+        return nbChamps;
+    }
+
+    /**
+     * @return le premier caractère de la ligne
+     */
+    public char premierCaractere() {
+        return ligne.charAt(0);
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @return le champ sous forme de chaîne, à réserver aux valeurs conservées et aux messages d'erreur
+     */
+    public String texte(int i) {
+        return ligne.subSequence(debuts[i], fins[i]).toString();
+    }
+
+    public boolean estMatricule(int i) {
+        return ValidateurChamps.estMatricule(ligne, debuts[i], fins[i]);
+    }
+
+    public boolean estMatriculeManager(int i) {
+        return ValidateurChamps.estMatriculeManager(ligne, debuts[i], fins[i]);
+    }
+
+    public boolean estNom(int i) {
+        return ValidateurChamps.estNom(ligne, debuts[i], fins[i]);
+    }
+
+    public boolean estPrenom(int i) {
+        return ValidateurChamps.estPrenom(ligne, debuts[i], fins[i]);
+    }
+
+    public boolean estDecimal(int i) {
+        return ValidateurChamps.estDecimal(ligne, debuts[i], fins[i]);
+    }
+
+    public boolean estPerformance(int i) {
+        return ValidateurChamps.estPerformance(ligne, debuts[i], fins[i]);
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @return la date au format dd/MM/yyyy contenue dans le champ, ou null si elle est invalide
+     */
+    public LocalDate lireDate(int i) {
+        return DateEmbaucheParser.parser(ligne, debuts[i], fins[i]);
+    }
+
+    /**
+     * @param i l'indice du champ
+     * @return true si le champ est un entier accepté par Integer.parseInt (signe facultatif et chiffres ASCII)
+     */
+    public boolean estEntier(int i) {
+        int debut = debuts[i];
+        int fin = fins[i];
+        if (debut < fin && (ligne.charAt(debut) == '-' || ligne.charAt(debut) == '+')) {
+            debut++;
+        }
+        if (debut == fin) {
+            return false;
+        }
+        long valeur = 0;
+        for (int j = debut; j < fin; j++) {
+            char c = ligne.charAt(j);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            valeur = valeur * 10 + (c - '0');
+            if (valeur > Integer.MAX_VALUE + 1L) {
+                return false;
+            }
+        }
+        return ligne.charAt(debuts[i]) == '-' || valeur <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param i l'indice d'un champ contrôlé avec {@link #estEntier(int)}
+     * @return la valeur entière du champ
+     */
+    public int lireEntier(int i) {
+        int debut = debuts[i];
+        boolean negatif = ligne.charAt(debut) == '-';
+        if (negatif || ligne.charAt(debut) == '+') {
+            debut++;
+        }
+        long valeur = 0;
+        for (int j = debut; j < fins[i]; j++) {
+            valeur = valeur * 10 + (ligne.charAt(j) - '0');
+        }
+        return (int) (negatif ? -valeur : valeur);
+    }
+
+    /**
+     * Méthode qui convertit un champ contrôlé avec {@link #estDecimal(int)}. Le résultat est identique à celui
+     * de Double.parseDouble : les chiffres sont lus comme un entier exact puis divisés par 10 ou 100, division
+     * qui est correctement arrondie
+     * @param i l'indice du champ
+     * @return la valeur décimale du champ
+     */
+    public double lireDecimal(int i) {
+        long mantisse = 0;
+        int nbDecimales = 0;
+        boolean apresPoint = false;
+        for (int j = debuts[i]; j < fins[i]; j++) {
+            char c = ligne.charAt(j);
+            if (c == '.') {
+                apresPoint = true;
+                continue;
+            }
+            mantisse = mantisse * 10 + (c - '0');
+            if (mantisse >= MAX_EXACT) {
+                return Double.parseDouble(texte(i));
+            }
+            if (apresPoint) {
+                nbDecimales++;
+            }
+        }
+        switch (nbDecimales) {
+            case 0:
+                return mantisse;
+            case 1:
+                return mantisse / 10d;
+            default:
+                return mantisse / 100d;
+        }
+    }
+}
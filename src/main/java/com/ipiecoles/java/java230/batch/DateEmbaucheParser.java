@@ -0,0 +1,129 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Lecture des dates d'embauche au format dd/MM/yyyy directement à partir des caractères, sans exception
+ * pour les dates invalides. Les formats acceptés sont ceux de DateTimeFormat.forPattern("dd/MM/yyyy") :
+ * jour et mois sur 1 ou 2 chiffres, année signée sur 1 à 9 chiffres.
+ * Les dates d'embauche se répétant beaucoup d'une ligne à l'autre, les LocalDate créées sont gardées
+ * dans un petit cache partagé par tous les threads.
+ */
+public final class DateEmbaucheParser {
+
+    public static final String FORMAT = "dd/MM/yyyy";
+
+    private static final int TAILLE_CACHE = 1 << 14;
+
+    private static final int[] JOURS_PAR_MOIS = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private static final int MAX_CHIFFRES_ANNEE = 9;
+
+    //années gérées par la chronologie ISO de Joda
+    private static final int ANNEE_MIN = -292275054;
+    private static final int ANNEE_MAX = 292278993;
+
+    //cache à correspondance directe : une date remplace simplement celle qui occupait la même case
+    private static final Entree[] CACHE = new Entree[TAILLE_CACHE];
+
+    private DateEmbaucheParser() {
+
+    }
+
+    /**
+     * @param s la séquence contenant la date
+     * @param debut l'indice du premier caractère de la date
+     * @param fin l'indice suivant le dernier caractère de la date
+     * @return la date lue, ou null si la portion ne respecte pas le format dd/MM/yyyy ou n'est pas une date valide
+     */
+    public static LocalDate parser(CharSequence s, int debut, int fin) {
+        //jour
+        int i = debut;
+        int jour = 0;
+        while (i < fin && i - debut < 2 && estChiffre(s.charAt(i))) {
+            jour = jour * 10 + s.charAt(i++) - '0';
+        }
+        if (i == debut || i >= fin || s.charAt(i++) != '/') {
+            return null;
+        }
+        //mois
+        int debutMois = i;
+        int mois = 0;
+        while (i < fin && i - debutMois < 2 && estChiffre(s.charAt(i))) {
+            mois = mois * 10 + s.charAt(i++) - '0';
+        }
+        if (i == debutMois || i >= fin || s.charAt(i++) != '/') {
+            return null;
+        }
+        //année
+        boolean negative = false;
+        if (i < fin && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i++) == '-';
+        }
+        int debutAnnee = i;
+        int annee = 0;
+        while (i < fin && estChiffre(s.charAt(i))) {
+            if (i - debutAnnee == MAX_CHIFFRES_ANNEE) {
+                return null;
+            }
+            annee = annee * 10 + s.charAt(i++) - '0';
+        }
+        if (i == debutAnnee || i != fin) {
+            return null;
+        }
+        if (negative) {
+            annee = -annee;
+        }
+        if (mois < 1 || mois > 12 || jour < 1 || jour > joursDuMois(annee, mois)
+                || annee < ANNEE_MIN || annee > ANNEE_MAX) {
+            return null;
+        }
+        return date(annee, mois, jour);
+    }
+
+    public static LocalDate parser(CharSequence s) {
+        return parser(s, 0, s.length());
+    }
+
+    private static LocalDate date(int annee, int mois, int jour) {
+        //clé unique pour les années de 0 à 9999, les autres ne sont pas mises en cache
+        int cle = annee * 10000 + mois * 100 + jour;
+        if (annee < 0 || annee > 9999) {
+            return new LocalDate(annee, mois, jour);
+        }
+        int indice = (cle ^ (cle >>> 14)) & (TAILLE_CACHE - 1);
+        Entree entree = CACHE[indice];
+        if (entree != null && entree.cle == cle) {
+            return entree.date;
+        }
+        LocalDate date = new LocalDate(annee, mois, jour);
+        CACHE[indice] = new Entree(cle, date);
+        return date;
+    }
+
+    private static int joursDuMois(int annee, int mois) {
+        if (mois == 2 && estBissextile(annee)) {
+            return 29;
+        }
+        return JOURS_PAR_MOIS[mois - 1];
+    }
+
+    private static boolean estBissextile(int annee) {
+        return annee % 4 == 0 && (annee % 100 != 0 || annee % 400 == 0);
+    }
+
+    private static boolean estChiffre(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    //les champs final garantissent qu'un thread lisant l'entrée la voit complètement initialisée
+    private static final class Entree {
+        private final int cle;
+        private final LocalDate date;
+
+        private Entree(int cle, LocalDate date) {
+            this.cle = cle;
+            this.date = date;
+        }
+    }
+}
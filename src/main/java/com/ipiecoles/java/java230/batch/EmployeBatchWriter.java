@@ -0,0 +1,275 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Étape d'écriture du batch : enregistre en BDD les employés lus dans le fichier par lots JDBC.
+ * Les nouveaux employés sont insérés par des requêtes INSERT envoyées par lots de tailleLot lignes, une par table :
+ * Hibernate 5.0 n'envoie par lot que l'insertion dans la première table d'une entité de l'héritage JOINED, et
+ * l'insertion dans la table de la sous-classe exécute le lot à chaque employé. Les identifiants sont réservés par
+ * blocs par le générateur d'Employe. L'import différentiel passe par le contexte de persistance, vidé tous les
+ * tailleLot employés pour que sa taille ne dépende pas du nombre de lignes du fichier. Les employés écrits ne sont
+ * pas ajoutés au cache de second niveau, qui est seulement invalidé pour les employés modifiés ou supprimés.
+ */
+@Component
+public class EmployeBatchWriter {
+
+    //nombre maximum de matricules par requête IN
+    private static final int TAILLE_REQUETE_IN = 1000;
+
+    private static final String INSERT_EMPLOYE = "INSERT INTO Employe (dateEmbauche, matricule, nom, prenom, salaire, id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_MANAGER = "INSERT INTO Manager (id) VALUES (?)";
+
+    private static final String INSERT_TECHNICIEN = "INSERT INTO Technicien (grade, id, manager_id) VALUES (?, ?, ?)";
+
+    private static final String INSERT_COMMERCIAL = "INSERT INTO Commercial (caAnnuel, performance, id) VALUES (?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    //nombre d'employés par lot d'insertions JDBC ou avant chaque flush/clear (aligné sur hibernate.jdbc.batch_size)
+    @Value("${batch.taille-lot:50}")
+    private int tailleLot;
+
+    private long nbEcrits;
+
+    private long nbSupprimes;
+
+    private long debut;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Remet à zéro les compteurs avant l'intégration d'un nouveau fichier
+     */
+    public void demarrer() {
+        nbEcrits = 0;
+        nbSupprimes = 0;
+        debut = System.nanoTime();
+    }
+
+    /**
+     * Méthode qui enregistre une fenêtre de nouveaux employés dans une seule transaction, par lots de tailleLot
+     * insertions JDBC. Les employés reçoivent leur identifiant mais ne sont pas ajoutés au contexte de persistance.
+     * Comme pour une insertion par Hibernate, le cache de requêtes est vidé et les salaires sont ajoutés aux
+     * statistiques après la validation
+     * @param employes les employés à enregistrer, dans l'ordre du fichier (les managers avant leurs techniciens)
+     */
+    @Transactional
+    public void ecrire(List<? extends Employe> employes) {
+        //les entités en attente dans le contexte de persistance sont écrites avant les insertions
+        entityManager.flush();
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator generateur = session.getFactory().getIdentifierGenerator(Employe.class.getName());
+        for (int i = 0; i < employes.size(); i += tailleLot) {
+            List<? extends Employe> lot = employes.subList(i, Math.min(i + tailleLot, employes.size()));
+            for (Employe employe : lot) {
+                employe.setId((Long) generateur.generate(session, employe));
+            }
+            inserer(lot);
+        }
+        ajouterAuxStatistiques(employes);
+
+        nbEcrits += employes.size();
+        logger.info(nbEcrits + " employés enregistrés en BDD (" + getDebit() + " lignes/s)");
+    }
+
+    /**
+     * Méthode de l'import différentiel qui enregistre une fenêtre d'employés nouveaux ou modifiés : un employé
+     * dont le matricule existe déjà en BDD remplace l'existant (en gardant son id, pour que les techniciens d'un
+     * manager modifié lui restent rattachés), sauf s'il a changé de type auquel cas l'ancien est supprimé.
+     * Les employés existants sont chargés par une requête IN pour chaque lot de tailleLot employés
+     * @param employes les employés à enregistrer, dans l'ordre du fichier (les managers avant leurs techniciens)
+     */
+    @Transactional
+    public void ecrireDelta(List<? extends Employe> employes) {
+        ignorerCache();
+        int taille = Math.min(tailleLot, TAILLE_REQUETE_IN);
+        for (int i = 0; i < employes.size(); i += taille) {
+            List<? extends Employe> lot = employes.subList(i, Math.min(i + taille, employes.size()));
+            Map<String, Employe> existants = trouver(lot);
+            for (Employe employe : lot) {
+                Employe existant = existants.get(employe.getMatricule());
+                if (existant == null) {
+                    entityManager.persist(employe);
+                } else if (existant.getClass() == employe.getClass()) {
+                    employe.setId(existant.getId());
+                    employe = entityManager.merge(employe);
+                } else {
+                    supprimer(existant);
+                    entityManager.flush();
+                    entityManager.persist(employe);
+                }
+                //un matricule présent deux fois dans le lot remplace l'employé qui vient d'être écrit
+                existants.put(employe.getMatricule(), employe);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        nbEcrits += employes.size();
+        logger.info(nbEcrits + " employés enregistrés en BDD (" + getDebit() + " lignes/s)");
+    }
+
+    /**
+     * Méthode de l'import différentiel qui supprime les employés qui ne sont plus dans le fichier. Les techniciens
+     * d'un manager supprimé qui restent en BDD n'ont plus de manager
+     * @param matricules les matricules des employés à supprimer
+     */
+    @Transactional
+    public void supprimer(List<String> matricules) {
+        ignorerCache();
+        for (int i = 0; i < matricules.size(); i += TAILLE_REQUETE_IN) {
+            List<String> lot = matricules.subList(i, Math.min(i + TAILLE_REQUETE_IN, matricules.size()));
+            entityManager.createQuery("select e from Employe e where e.matricule in :matricules", Employe.class)
+                    .setParameter("matricules", lot)
+                    .getResultList()
+                    .forEach(this::supprimer);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        nbSupprimes += matricules.size();
+        logger.info(nbSupprimes + " employés supprimés en BDD");
+    }
+
+    /**
+     * Méthode qui insère un lot d'employés identifiés : un lot JDBC par table, les managers avant les techniciens
+     * qui les référencent
+     */
+    private void inserer(List<? extends Employe> lot) {
+        List<Object[]> employes = new ArrayList<>();
+        List<Object[]> managers = new ArrayList<>();
+        List<Object[]> techniciens = new ArrayList<>();
+        List<Object[]> commerciaux = new ArrayList<>();
+        for (Employe employe : lot) {
+            employes.add(new Object[]{employe.getDateEmbauche() == null ? null : Date.valueOf(employe.getDateEmbauche().toString()),
+                    employe.getMatricule(), employe.getNom(), employe.getPrenom(), employe.getSalaire(), employe.getId()});
+            if (employe instanceof Manager) {
+                managers.add(new Object[]{employe.getId()});
+            } else if (employe instanceof Technicien) {
+                Manager manager = ((Technicien) employe).getManager();
+                techniciens.add(new Object[]{((Technicien) employe).getGrade(), employe.getId(), manager == null ? null : manager.getId()});
+            } else if (employe instanceof Commercial) {
+                commerciaux.add(new Object[]{((Commercial) employe).getCaAnnuel(), ((Commercial) employe).getPerformance(), employe.getId()});
+            }
+        }
+        inserer(INSERT_EMPLOYE, employes);
+        inserer(INSERT_MANAGER, managers);
+        inserer(INSERT_TECHNICIEN, techniciens);
+        inserer(INSERT_COMMERCIAL, commerciaux);
+    }
+
+    private void inserer(String insert, List<Object[]> lignes) {
+        if (!lignes.isEmpty()) {
+            jdbcTemplate.batchUpdate(insert, lignes);
+        }
+    }
+
+    /**
+     * Méthode qui fait pour les employés insérés en JDBC ce qu'Hibernate fait à la validation d'une insertion :
+     * le cache de requêtes est vidé et les salaires sont ajoutés aux statistiques (voir StatistiquesSalairesListener)
+     */
+    private void ajouterAuxStatistiques(List<? extends Employe> employes) {
+        List<Double[]> modifications = employes.stream()
+                .filter(employe -> employe.getSalaire() != null)
+                .map(employe -> new Double[]{null, employe.getSalaire()})
+                .collect(Collectors.toList());
+        statistiquesSalaires.commencerModifications();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+                } finally {
+                    statistiquesSalaires.terminerModifications(
+                            status == STATUS_COMMITTED ? modifications : Collections.<Double[]>emptyList());
+                }
+            }
+        });
+    }
+
+    private void ignorerCache() {
+        entityManager.setProperty("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+    }
+
+    /**
+     * @param employes au plus TAILLE_REQUETE_IN employés
+     * @return les employés en BDD ayant le matricule d'un des employés en paramètre, par matricule
+     */
+    private Map<String, Employe> trouver(List<? extends Employe> employes) {
+        List<String> matricules = employes.stream().map(Employe::getMatricule).collect(Collectors.toList());
+        Map<String, Employe> existants = new HashMap<>();
+        for (Employe existant : entityManager
+                .createQuery("select e from Employe e where e.matricule in :matricules", Employe.class)
+                .setParameter("matricules", matricules)
+                .getResultList()) {
+            existants.put(existant.getMatricule(), existant);
+        }
+        return existants;
+    }
+
+    private void supprimer(Employe employe) {
+        if (employe instanceof Manager) {
+            for (Technicien technicien : ((Manager) employe).getEquipe()) {
+                technicien.setManager(null);
+            }
+        }
+        entityManager.remove(employe);
+    }
+
+    /**
+     * @return le nombre d'employés enregistrés depuis le dernier appel à demarrer()
+     */
+    public long getNbEcrits() {
+        return nbEcrits;
+    }
+
+    /**
+     * @return le nombre d'employés supprimés par l'import différentiel depuis le dernier appel à demarrer()
+     */
+    public long getNbSupprimes() {
+        return nbSupprimes;
+    }
+
+    /**
+     * @return le nombre moyen d'employés enregistrés par seconde depuis le dernier appel à demarrer()
+     */
+    public long getDebit() {
+        long duree = System.nanoTime() - debut;
+        return duree <= 0 ? 0 : nbEcrits * 1_000_000_000L / duree;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+
+/**
+ * Empreinte 64 bits (FNV-1a) du contenu d'un employé, utilisée par l'import différentiel pour savoir si une
+ * ligne du fichier a changé depuis le dernier import. Elle est calculée sur l'employé créé à partir de la ligne
+ * et non sur la ligne elle-même, ce qui permet de la calculer aussi pour un employé lu en BDD.
+ */
+public final class EmpreinteEmploye {
+
+    private static final long BASE = 0xcbf29ce484222325L;
+    private static final long PREMIER = 0x100000001b3L;
+
+    private EmpreinteEmploye() {
+    }
+
+    /**
+     * @param employe l'employé, dont le manager est renseigné s'il s'agit d'un technicien
+     * @return l'empreinte du type, des champs et du matricule du manager de l'employé
+     */
+    public static long calculer(Employe employe) {
+        long h = BASE;
+        h = ajouter(h, employe.getClass().getSimpleName());
+        h = ajouter(h, employe.getMatricule());
+        h = ajouter(h, employe.getNom());
+        h = ajouter(h, employe.getPrenom());
+        h = ajouter(h, employe.getDateEmbauche() == null ? null : employe.getDateEmbauche().toString());
+        h = ajouter(h, employe.getSalaire());
+        if (employe instanceof Commercial) {
+            Commercial commercial = (Commercial) employe;
+            h = ajouter(h, commercial.getCaAnnuel());
+            h = ajouter(h, commercial.getPerformance() == null ? null : commercial.getPerformance().doubleValue());
+        } else if (employe instanceof Technicien) {
+            Technicien technicien = (Technicien) employe;
+            Manager manager = technicien.getManager();
+            h = ajouter(h, technicien.getGrade() == null ? null : technicien.getGrade().doubleValue());
+            h = ajouter(h, manager == null ? null : manager.getMatricule());
+        }
+        return h;
+    }
+
+    private static long ajouter(long h, String valeur) {
+        if (valeur == null) {
+            return octet(h, 0xFF);
+        }
+        for (int i = 0; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            h = octet(octet(h, c >>> 8), c & 0xFF);
+        }
+        //séparateur, pour que ("ab", "c") et ("a", "bc") n'aient pas la même empreinte
+        return octet(h, 0xFE);
+    }
+
+    private static long ajouter(long h, Double valeur) {
+        if (valeur == null) {
+            return octet(h, 0xFF);
+        }
+        long bits = Double.doubleToLongBits(valeur);
+        for (int i = 0; i < 8; i++) {
+            h = octet(h, (int) (bits >>> (8 * i)) & 0xFF);
+        }
+        return h;
+    }
+
+    private static long octet(long h, int octet) {
+        return (h ^ octet) * PREMIER;
+    }
+}
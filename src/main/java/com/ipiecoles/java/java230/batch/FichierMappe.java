@@ -0,0 +1,131 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fichier lu en mémoire mappée. Un buffer mappé étant limité à 2 Go, le fichier est parcouru par segments
+ * d'au plus tailleSegmentMax octets se terminant sur une fin de ligne. Chaque segment peut être découpé en
+ * parties d'un nombre limité de lignes, lues par plusieurs threads sans copie du contenu.
+ * Les fins de ligne sont celles de {@link LecteurLignes} : \n, \r\n et \r seul, jamais coupées en deux.
+ */
+public class FichierMappe implements Closeable {
+
+    private final FileChannel canal;
+
+    private final long taille;
+
+    private final int tailleSegmentMax;
+
+    public FichierMappe(Path chemin, int tailleSegmentMax) throws IOException {
+        this.canal = FileChannel.open(chemin, StandardOpenOption.READ);
+        this.taille = canal.size();
+        this.tailleSegmentMax = tailleSegmentMax;
+    }
+
+    public long taille() {
+        return taille;
+    }
+
+    /**
+     * Méthode qui mappe le segment commençant à la position en paramètre
+     * @param debut la position du début du segment, qui doit être un début de ligne
+     * @return le segment, qui se termine sur une fin de ligne sauf s'il s'agit de la fin du fichier
+     * @throws IOException si le fichier ne peut pas être mappé ou si une ligne est plus longue qu'un segment
+     */
+    public Segment segment(long debut) throws IOException {
+        long fin = Math.min(taille, debut + tailleSegmentMax);
+        MappedByteBuffer contenu = canal.map(FileChannel.MapMode.READ_ONLY, debut, fin - debut);
+        int limite = contenu.limit();
+        if (fin < taille) {
+            while (limite > 0 && !finDeLigne(contenu, limite)) {
+                limite--;
+            }
+            if (limite == 0) {
+                throw new IOException("La ligne commençant à l'octet " + debut + " dépasse " + tailleSegmentMax + " octets");
+            }
+        }
+        contenu.limit(limite);
+        return new Segment(debut, contenu);
+    }
+
+    /**
+     * @return true si une ligne se termine juste avant la position : l'octet précédent est \n, ou \r suivi d'un
+     * autre octet que \n. Un \r en fin de buffer ne permet pas de conclure
+     */
+    private static boolean finDeLigne(ByteBuffer contenu, int position) {
+        byte precedent = contenu.get(position - 1);
+        return precedent == '\n' || precedent == '\r' && position < contenu.limit() && contenu.get(position) != '\n';
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Portion mappée du fichier composée de lignes entières
+     */
+    public static class Segment {
+
+        private final long debut;
+
+        private final ByteBuffer contenu;
+
+        private Segment(long debut, ByteBuffer contenu) {
+            this.debut = debut;
+            this.contenu = contenu;
+        }
+
+        /**
+         * @return la position dans le fichier du premier octet du segment
+         */
+        public long debut() {
+            return debut;
+        }
+
+        /**
+         * @return la position dans le fichier de l'octet suivant le segment
+         */
+        public long fin() {
+            return debut + contenu.limit();
+        }
+
+        /**
+         * @return une vue sur tout le contenu du segment
+         */
+        public ByteBuffer contenu() {
+            return contenu.duplicate();
+        }
+
+        /**
+         * Méthode qui renvoie la partie du segment qui commence à la position en paramètre et contient au plus
+         * nbLignes lignes. Seules les fins de ligne sont cherchées, sans décoder le contenu
+         * @param position la position dans le fichier d'un début de ligne du segment
+         * @param nbLignes le nombre maximum de lignes de la partie
+         * @return une vue sur la partie, vide si la position est la fin du segment
+         */
+        public ByteBuffer partie(long position, int nbLignes) {
+            int limite = contenu.limit();
+            int debutPartie = (int) (position - debut);
+            int finPartie = debutPartie;
+            int lignes = 0;
+            while (finPartie < limite && lignes < nbLignes) {
+                byte octet = contenu.get(finPartie++);
+                //un \r suivi d'un \n ne termine pas la ligne, le \n la termine
+                if (octet == '\n' || octet == '\r' && (finPartie == limite || contenu.get(finPartie) != '\n')) {
+                    lignes++;
+                }
+            }
+            ByteBuffer partie = contenu.duplicate();
+            partie.position(debutPartie);
+            partie.limit(finPartie);
+            return partie.slice();
+        }
+    }
+}
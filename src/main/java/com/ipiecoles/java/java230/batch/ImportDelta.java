@@ -0,0 +1,91 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Employe;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * État d'un import différentiel : compare l'empreinte de chaque employé lu à celle du dernier import pour
+ * ne transmettre à l'écriture que les employés nouveaux ou modifiés, et construit l'index du prochain import.
+ * Les matricules du dernier import absents du fichier sont les employés à supprimer.
+ */
+public class ImportDelta {
+
+    private final IndexEmpreintes ancienIndex;
+
+    private final IndexEmpreintes nouvelIndex = new IndexEmpreintes();
+
+    private long nbInseres;
+
+    private long nbModifies;
+
+    private long nbInchanges;
+
+    /**
+     * @param ancienIndex les empreintes des employés en BDD, à l'issue du dernier import
+     */
+    public ImportDelta(IndexEmpreintes ancienIndex) {
+        this.ancienIndex = ancienIndex;
+    }
+
+    /**
+     * Méthode qui enregistre l'empreinte d'un employé valide du fichier
+     * @param employe l'employé lu, avec son manager s'il s'agit d'un technicien
+     * @return true si l'employé est nouveau ou a changé depuis le dernier import et doit donc être écrit
+     */
+    public boolean aEcrire(Employe employe) {
+        long empreinte = EmpreinteEmploye.calculer(employe);
+        Long ancienne = ancienIndex.get(employe.getMatricule());
+        nouvelIndex.put(employe.getMatricule(), empreinte);
+        if (ancienne == null) {
+            nbInseres++;
+            return true;
+        }
+        if (ancienne != empreinte) {
+            nbModifies++;
+            return true;
+        }
+        nbInchanges++;
+        return false;
+    }
+
+    /**
+     * Méthode appelée pour une ligne en erreur : l'employé correspondant, s'il existe en BDD, y est laissé
+     * tel quel plutôt que d'être supprimé
+     * @param ligne la ligne en erreur
+     */
+    public void conserver(String ligne) {
+        int virgule = ligne.indexOf(',');
+        String matricule = virgule < 0 ? ligne : ligne.substring(0, virgule);
+        Long ancienne = ancienIndex.get(matricule);
+        if (ancienne != null && !nouvelIndex.contient(matricule)) {
+            nouvelIndex.put(matricule, ancienne);
+        }
+    }
+
+    /**
+     * @return les matricules du dernier import qui n'ont pas été retrouvés dans le fichier
+     */
+    public List<String> aSupprimer() {
+        return ancienIndex.matricules().stream()
+                .filter(matricule -> !nouvelIndex.contient(matricule))
+                .collect(Collectors.toList());
+    }
+
+    public IndexEmpreintes getNouvelIndex() {
+        return nouvelIndex;
+    }
+
+    public long getNbInseres() {
+        return nbInseres;
+    }
+
+    public long getNbModifies() {
+        return nbModifies;
+    }
+
+    public long getNbInchanges() {
+        return nbInchanges;
+    }
+}
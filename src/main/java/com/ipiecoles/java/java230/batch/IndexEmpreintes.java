@@ -0,0 +1,83 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Empreintes des employés en BDD par matricule, conservées dans un fichier entre deux imports différentiels
+ */
+public class IndexEmpreintes {
+
+    private final Map<String, Long> empreintes;
+
+    public IndexEmpreintes() {
+        this.empreintes = new HashMap<>();
+    }
+
+    private IndexEmpreintes(int taille) {
+        this.empreintes = new HashMap<>(taille * 4 / 3 + 1);
+    }
+
+    /**
+     * @param fichier le fichier écrit par {@link #enregistrer(Path)}
+     * @return l'index contenu dans le fichier
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public static IndexEmpreintes charger(Path fichier) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichier)))) {
+            int taille = in.readInt();
+            IndexEmpreintes index = new IndexEmpreintes(taille);
+            for (int i = 0; i < taille; i++) {
+                index.put(in.readUTF(), in.readLong());
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Méthode qui écrit l'index dans un fichier temporaire puis le renomme, pour qu'un arrêt pendant
+     * l'écriture laisse l'index précédent intact
+     * @param fichier le fichier de l'index
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public void enregistrer(Path fichier) throws IOException {
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaire)))) {
+            out.writeInt(empreintes.size());
+            for (Map.Entry<String, Long> entree : empreintes.entrySet()) {
+                out.writeUTF(entree.getKey());
+                out.writeLong(entree.getValue());
+            }
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Long get(String matricule) {
+        return empreintes.get(matricule);
+    }
+
+    public void put(String matricule, long empreinte) {
+        empreintes.put(matricule, empreinte);
+    }
+
+    public boolean contient(String matricule) {
+        return empreintes.containsKey(matricule);
+    }
+
+    public Set<String> matricules() {
+        return empreintes.keySet();
+    }
+
+    public int size() {
+        return empreintes.size();
+    }
+}
@@ -0,0 +1,93 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index des managers par matricule utilisé pour rattacher les techniciens lors de l'intégration du fichier.
+ * Avant l'intégration de chaque morceau du fichier, il est complété avec les managers en BDD référencés par ce
+ * morceau (une requête IN pour tout le morceau), puis avec ceux lus dans le fichier, de sorte que la recherche
+ * du manager d'un technicien ne fait pas de requête.
+ */
+@Component
+public class IndexManagers {
+
+    //nombre maximum de matricules par requête IN
+    private static final int TAILLE_REQUETE_IN = 1000;
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    private final Map<String, Manager> managers = new HashMap<>();
+
+    //matricules déjà cherchés en BDD sans résultat, pour ne pas les redemander à chaque morceau
+    private final Set<String> absentsEnBdd = new HashSet<>();
+
+    /**
+     * Méthode qui vide l'index avant l'intégration d'un nouveau fichier
+     */
+    public void vider() {
+        managers.clear();
+        absentsEnBdd.clear();
+    }
+
+    /**
+     * Méthode qui charge les managers de la BDD ayant un des matricules en paramètre, sauf ceux déjà connus de
+     * l'index ou déjà cherchés
+     * @param matricules les matricules des managers référencés par le morceau du fichier à intégrer
+     */
+    public void prechauffer(Collection<String> matricules) {
+        List<String> lot = new ArrayList<>(TAILLE_REQUETE_IN);
+        for (String matricule : matricules) {
+            if (managers.containsKey(matricule) || !absentsEnBdd.add(matricule)) {
+                continue;
+            }
+            lot.add(matricule);
+            if (lot.size() == TAILLE_REQUETE_IN) {
+                charger(lot);
+                lot.clear();
+            }
+        }
+        if (!lot.isEmpty()) {
+            charger(lot);
+        }
+    }
+
+    private void charger(List<String> matricules) {
+        for (Manager manager : managerRepository.findByMatriculeIn(matricules)) {
+            managers.put(manager.getMatricule(), manager);
+            absentsEnBdd.remove(manager.getMatricule());
+        }
+    }
+
+    /**
+     * Méthode qui ajoute un manager lu dans le fichier. Comme avant l'index, un manager déjà présent en BDD
+     * reste prioritaire sur celui du fichier, à condition que son matricule ait été préchargé
+     * @param manager le manager à indexer
+     */
+    public void ajouter(Manager manager) {
+        managers.putIfAbsent(manager.getMatricule(), manager);
+    }
+
+    /**
+     * @param matricule le matricule du manager recherché
+     * @return le manager en BDD ou lu dans le fichier ayant ce matricule, null s'il n'existe pas
+     */
+    public Manager trouver(String matricule) {
+        return managers.get(matricule);
+    }
+
+    public int size() {
+        return managers.size();
+    }
+}
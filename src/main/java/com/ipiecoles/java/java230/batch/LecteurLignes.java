@@ -0,0 +1,82 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lecture ligne à ligne d'un buffer encodé en UTF-8, par exemple une partie d'un {@link FichierMappe}.
+ * Comme le BufferedReader de Files.newBufferedReader, les fins de ligne \n, \r\n et \r sont reconnues, une fin
+ * de ligne à la fin du buffer ne produit pas de ligne vide supplémentaire et un contenu qui n'est pas de l'UTF-8
+ * valide provoque une MalformedInputException au lieu d'être remplacé.
+ */
+public class LecteurLignes {
+
+    private final ByteBuffer contenu;
+
+    //décodeur propre au lecteur : un CharsetDecoder ne peut pas être partagé entre threads
+    private final CharsetDecoder decodeur = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private CharBuffer caracteres = CharBuffer.allocate(256);
+
+    public LecteurLignes(ByteBuffer contenu) {
+        this.contenu = contenu;
+    }
+
+    /**
+     * @return la ligne suivante sans son caractère de fin de ligne, ou null si le buffer a été entièrement lu
+     * @throws IOException si la ligne n'est pas encodée en UTF-8 valide (MalformedInputException)
+     */
+    public String suivante() throws IOException {
+        int debut = contenu.position();
+        int limite = contenu.limit();
+        if (debut >= limite) {
+            return null;
+        }
+        int fin = debut;
+        while (fin < limite && contenu.get(fin) != '\n' && contenu.get(fin) != '\r') {
+            fin++;
+        }
+        int suivante = fin;
+        if (suivante < limite && contenu.get(suivante++) == '\r' && suivante < limite && contenu.get(suivante) == '\n') {
+            suivante++;
+        }
+        String ligne = decoder(debut, fin);
+        contenu.position(suivante);
+        return ligne;
+    }
+
+    /**
+     * @return la position dans le buffer du début de la ligne suivante
+     */
+    public int position() {
+        return contenu.position();
+    }
+
+    private String decoder(int debut, int fin) throws IOException {
+        ByteBuffer octets = contenu.duplicate();
+        octets.limit(fin);
+        octets.position(debut);
+        //le décodage UTF-8 ne produit jamais plus de char qu'il n'y a d'octets
+        if (fin - debut > caracteres.capacity()) {
+            caracteres = CharBuffer.allocate(Math.max(fin - debut, caracteres.capacity() * 2));
+        }
+        caracteres.clear();
+        decodeur.reset();
+        CoderResult resultat = decodeur.decode(octets, caracteres, true);
+        if (!resultat.isError()) {
+            resultat = decodeur.flush(caracteres);
+        }
+        if (resultat.isError()) {
+            resultat.throwException();
+        }
+        caracteres.flip();
+        return caracteres.toString();
+    }
+}
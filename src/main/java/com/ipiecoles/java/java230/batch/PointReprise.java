@@ -0,0 +1,207 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Point de reprise de l'intégration d'un fichier : position dans le fichier et numéro de la dernière ligne
+ * dont l'employé a été enregistré en BDD, ainsi que les techniciens lus avant cette position mais pas encore
+ * rattachés à leur manager (mode parallèle). Les managers du fichier lus avant cette position sont en BDD,
+ * l'index des managers est donc reconstruit à la reprise par la même requête qu'au démarrage.
+ * Le point de reprise indique aussi la fin de la fenêtre qui était en cours d'écriture, sans savoir si elle a été validée.
+ * Les techniciens en attente sont enregistrés dans un fichier à part, numéroté par version, qui n'est réécrit que
+ * lorsqu'ils changent : le point de reprise enregistré à chaque fenêtre ne contient que le numéro de cette version.
+ */
+public class PointReprise {
+
+    private final String fichier;
+
+    private final long tailleFichier;
+
+    private final long position;
+
+    private final long numeroLigne;
+
+    private final int nbManagers;
+
+    //lignes des techniciens en attente de leur manager, par numéro de ligne
+    private final Map<Long, String> techniciensEnAttente;
+
+    //version du fichier des techniciens en attente
+    private final long versionAttente;
+
+    //position de la fin de la fenêtre en cours d'écriture, -1 si aucune fenêtre n'était en cours d'écriture
+    private final long finFenetreIncertaine;
+
+    public PointReprise(Path fichier, long position, long numeroLigne, int nbManagers, Map<Long, String> techniciensEnAttente,
+                        long versionAttente, long finFenetreIncertaine) throws IOException {
+        this(fichier.toAbsolutePath().normalize().toString(), Files.size(fichier), position, numeroLigne, nbManagers,
+                techniciensEnAttente, versionAttente, finFenetreIncertaine);
+    }
+
+    private PointReprise(String fichier, long tailleFichier, long position, long numeroLigne, int nbManagers,
+                         Map<Long, String> techniciensEnAttente, long versionAttente, long finFenetreIncertaine) {
+        this.fichier = fichier;
+        this.tailleFichier = tailleFichier;
+        this.position = position;
+        this.numeroLigne = numeroLigne;
+        this.nbManagers = nbManagers;
+        this.techniciensEnAttente = techniciensEnAttente;
+        this.versionAttente = versionAttente;
+        this.finFenetreIncertaine = finFenetreIncertaine;
+    }
+
+    /**
+     * @param fichier le fichier écrit par {@link #enregistrer(Path, boolean)}
+     * @return le point de reprise contenu dans le fichier, avec les techniciens en attente de sa version
+     * @throws IOException si le fichier ou celui des techniciens en attente ne peut pas être lu
+     */
+    public static PointReprise charger(Path fichier) throws IOException {
+        String fichierIntegre;
+        long tailleFichier;
+        long position;
+        long numeroLigne;
+        int nbManagers;
+        long finFenetreIncertaine;
+        long versionAttente;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichier)))) {
+            fichierIntegre = in.readUTF();
+            tailleFichier = in.readLong();
+            position = in.readLong();
+            numeroLigne = in.readLong();
+            nbManagers = in.readInt();
+            finFenetreIncertaine = in.readLong();
+            versionAttente = in.readLong();
+        }
+        Map<Long, String> techniciensEnAttente = new LinkedHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichierAttente(fichier, versionAttente))))) {
+            int nbTechniciens = in.readInt();
+            for (int i = 0; i < nbTechniciens; i++) {
+                techniciensEnAttente.put(in.readLong(), in.readUTF());
+            }
+        }
+        return new PointReprise(fichierIntegre, tailleFichier, position, numeroLigne, nbManagers, techniciensEnAttente,
+                versionAttente, finFenetreIncertaine);
+    }
+
+    /**
+     * Méthode qui écrit le point de reprise dans un fichier temporaire puis le renomme, pour qu'un arrêt pendant
+     * l'écriture laisse le point de reprise précédent intact. Les techniciens en attente sont écrits de la même façon
+     * dans le fichier de leur version avant le point de reprise qui y fait référence, la version précédente est
+     * supprimée ensuite
+     * @param fichierReprise le fichier du point de reprise
+     * @param attenteModifiee true si les techniciens en attente sont une nouvelle version à écrire, false s'ils sont
+     *                        ceux de la version déjà écrite
+     * @throws IOException si un fichier ne peut pas être écrit
+     */
+    public void enregistrer(Path fichierReprise, boolean attenteModifiee) throws IOException {
+        if (attenteModifiee) {
+            Path attente = fichierAttente(fichierReprise, versionAttente);
+            Path temporaire = attente.resolveSibling(attente.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaire)))) {
+                out.writeInt(techniciensEnAttente.size());
+                for (Map.Entry<Long, String> technicien : techniciensEnAttente.entrySet()) {
+                    out.writeLong(technicien.getKey());
+                    out.writeUTF(technicien.getValue());
+                }
+            }
+            Files.move(temporaire, attente, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Path temporaire = fichierReprise.resolveSibling(fichierReprise.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaire)))) {
+            out.writeUTF(fichier);
+            out.writeLong(tailleFichier);
+            out.writeLong(position);
+            out.writeLong(numeroLigne);
+            out.writeInt(nbManagers);
+            out.writeLong(finFenetreIncertaine);
+            out.writeLong(versionAttente);
+        }
+        Files.move(temporaire, fichierReprise, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (attenteModifiee) {
+            Files.deleteIfExists(fichierAttente(fichierReprise, versionAttente - 1));
+        }
+    }
+
+    /**
+     * Méthode qui supprime le point de reprise et les fichiers de techniciens en attente qui l'accompagnent
+     * @param fichierReprise le fichier du point de reprise
+     * @throws IOException si un fichier ne peut pas être supprimé
+     */
+    public static void supprimer(Path fichierReprise) throws IOException {
+        Files.deleteIfExists(fichierReprise);
+        Path dossier = fichierReprise.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> attentes = Files.newDirectoryStream(dossier, fichierReprise.getFileName() + ".attente-*")) {
+            for (Path attente : attentes) {
+                Files.deleteIfExists(attente);
+            }
+        }
+    }
+
+    private static Path fichierAttente(Path fichierReprise, long version) {
+        return fichierReprise.resolveSibling(fichierReprise.getFileName() + ".attente-" + version);
+    }
+
+    /**
+     * @param chemin un fichier à intégrer
+     * @return true si le point de reprise a été enregistré pendant l'intégration de ce fichier
+     */
+    public boolean concerne(Path chemin) {
+        return fichier.equals(chemin.toAbsolutePath().normalize().toString());
+    }
+
+    /**
+     * @return true si le fichier a été entièrement intégré
+     */
+    public boolean isTermine() {
+        return position >= tailleFichier && techniciensEnAttente.isEmpty() && !isFenetreIncertaine();
+    }
+
+    public String getFichier() {
+        return fichier;
+    }
+
+    public long getTailleFichier() {
+        return tailleFichier;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getNumeroLigne() {
+        return numeroLigne;
+    }
+
+    public int getNbManagers() {
+        return nbManagers;
+    }
+
+    public Map<Long, String> getTechniciensEnAttente() {
+        return techniciensEnAttente;
+    }
+
+    public long getVersionAttente() {
+        return versionAttente;
+    }
+
+    /**
+     * @return true si une fenêtre était en cours d'écriture : les employés lus jusqu'à sa fin sont peut-être déjà en BDD
+     */
+    public boolean isFenetreIncertaine() {
+        return finFenetreIncertaine >= 0;
+    }
+
+    public long getFinFenetreIncertaine() {
+        return finFenetreIncertaine;
+    }
+}
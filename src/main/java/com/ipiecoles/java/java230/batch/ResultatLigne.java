@@ -0,0 +1,76 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.BatchException;
+import com.ipiecoles.java.java230.model.Employe;
+
+/**
+ * Résultat de l'analyse d'une ligne du fichier CSV : soit l'employé créé, soit la première erreur rencontrée.
+ * Pour un technicien, le rattachement au manager est fait après l'analyse, à partir de matriculeManager.
+ */
+public class ResultatLigne {
+
+    private final String ligne;
+
+    private long numero;
+
+    //position dans le fichier de l'octet suivant la ligne, -1 si elle n'est pas connue
+    private long fin = -1;
+
+    private Employe employe;
+
+    private String matriculeManager;
+
+    private BatchException erreur;
+
+    public ResultatLigne(String ligne) {
+        this.ligne = ligne;
+    }
+
+    public boolean isEnErreur() {
+        return erreur != null;
+    }
+
+    public String getLigne() {
+        return ligne;
+    }
+
+    public long getNumero() {
+        return numero;
+    }
+
+    public void setNumero(long numero) {
+        this.numero = numero;
+    }
+
+    public long getFin() {
+        return fin;
+    }
+
+    public void setFin(long fin) {
+        this.fin = fin;
+    }
+
+    public Employe getEmploye() {
+        return employe;
+    }
+
+    public void setEmploye(Employe employe) {
+        this.employe = employe;
+    }
+
+    public String getMatriculeManager() {
+        return matriculeManager;
+    }
+
+    public void setMatriculeManager(String matriculeManager) {
+        this.matriculeManager = matriculeManager;
+    }
+
+    public BatchException getErreur() {
+        return erreur;
+    }
+
+    public void setErreur(BatchException erreur) {
+        this.erreur = erreur;
+    }
+}
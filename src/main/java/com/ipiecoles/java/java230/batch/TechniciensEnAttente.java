@@ -0,0 +1,80 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Techniciens dont le manager n'était pas encore connu lors de l'intégration de leur ligne : le manager peut se
+ * trouver plus loin dans le fichier. Ils sont gardés dans l'ordre du fichier et regroupés par matricule de
+ * manager, pour être rattachés dès que la ligne de leur manager est intégrée.
+ */
+public class TechniciensEnAttente {
+
+    private final TreeMap<Long, ResultatLigne> parNumero = new TreeMap<>();
+
+    private final Map<String, TreeMap<Long, ResultatLigne>> parManager = new HashMap<>();
+
+    /**
+     * @param resultat le résultat de l'analyse d'une ligne technicien, numéroté
+     */
+    public void ajouter(ResultatLigne resultat) {
+        parNumero.put(resultat.getNumero(), resultat);
+        parManager.computeIfAbsent(resultat.getMatriculeManager(), matricule -> new TreeMap<>())
+                .put(resultat.getNumero(), resultat);
+    }
+
+    /**
+     * Méthode qui retire le premier technicien, dans l'ordre du fichier, en attente du manager en paramètre
+     * @param matriculeManager le matricule du manager
+     * @return le technicien retiré, null s'il n'y en a plus
+     */
+    public ResultatLigne retirer(String matriculeManager) {
+        TreeMap<Long, ResultatLigne> techniciens = parManager.get(matriculeManager);
+        if (techniciens == null) {
+            return null;
+        }
+        return retirer(techniciens.firstEntry().getValue());
+    }
+
+    /**
+     * @return le premier technicien en attente dans l'ordre du fichier, retiré, ou null s'il n'y en a plus
+     */
+    public ResultatLigne retirerPremier() {
+        return parNumero.isEmpty() ? null : retirer(parNumero.firstEntry().getValue());
+    }
+
+    private ResultatLigne retirer(ResultatLigne resultat) {
+        parNumero.remove(resultat.getNumero());
+        TreeMap<Long, ResultatLigne> techniciens = parManager.get(resultat.getMatriculeManager());
+        techniciens.remove(resultat.getNumero());
+        if (techniciens.isEmpty()) {
+            parManager.remove(resultat.getMatriculeManager());
+        }
+        return resultat;
+    }
+
+    /**
+     * @return le numéro de ligne du premier technicien en attente, Long.MAX_VALUE s'il n'y en a aucun
+     */
+    public long premierNumero() {
+        return parNumero.isEmpty() ? Long.MAX_VALUE : parNumero.firstKey();
+    }
+
+    /**
+     * @return les techniciens en attente dans l'ordre du fichier
+     */
+    public Collection<ResultatLigne> tous() {
+        return Collections.unmodifiableCollection(parNumero.values());
+    }
+
+    public boolean isEmpty() {
+        return parNumero.isEmpty();
+    }
+
+    public int size() {
+        return parNumero.size();
+    }
+}
@@ -0,0 +1,138 @@
+package com.ipiecoles.java.java230.batch;
+
+import java.util.regex.Pattern;
+
+/**
+ * Contrôle des champs d'une ligne du fichier CSV.
+ * Les champs à format fixe (matricules, nombres) sont vérifiés caractère par caractère, sans expression
+ * régulière ni allocation. Les autres sont vérifiés avec des Pattern compilés une seule fois.
+ * Chaque méthode accepte une portion [debut, fin[ d'une séquence de caractères afin de pouvoir
+ * contrôler un champ sans l'extraire de la ligne.
+ */
+public final class ValidateurChamps {
+
+    public static final String REGEX_MATRICULE = "^[MTC][0-9]{5}$";
+    public static final String REGEX_MATRICULE_MANAGER = "^M[0-9]{5}$";
+    public static final String REGEX_NOM = "^[\\p{L}- ]*$";
+    public static final String REGEX_PRENOM = "^[\\p{L}- ]*$";
+    //regex du salaire (nombre.nombre)
+    public static final String REGEX_SALAIRE = "^[0-9]+(\\.[0-9]{1,2})?$";
+    //regex du chiffre d'affaire (nombre.nombre)
+    public static final String REGEX_CA = "^[0-9]+(\\.[0-9]{1,2})?$";
+    //regex de la performance (0-100)
+    public static final String REGEX_PERF = "^[0-9]$|^[1-9][0-9]$|^(100)$";
+
+    private static final Pattern PATTERN_NOM = Pattern.compile(REGEX_NOM);
+    private static final Pattern PATTERN_PRENOM = Pattern.compile(REGEX_PRENOM);
+
+    private static final int LONGUEUR_MATRICULE = 6;
+
+    private ValidateurChamps() {
+
+    }
+
+    /**
+     * @return true si la portion respecte {@link #REGEX_MATRICULE}
+     */
+    public static boolean estMatricule(CharSequence s, int debut, int fin) {
+        if (fin - debut != LONGUEUR_MATRICULE) {
+            return false;
+        }
+        char type = s.charAt(debut);
+        return (type == 'M' || type == 'T' || type == 'C') && sontDesChiffres(s, debut + 1, fin);
+    }
+
+    /**
+     * @return true si la portion respecte {@link #REGEX_MATRICULE_MANAGER}
+     */
+    public static boolean estMatriculeManager(CharSequence s, int debut, int fin) {
+        return fin - debut == LONGUEUR_MATRICULE && s.charAt(debut) == 'M' && sontDesChiffres(s, debut + 1, fin);
+    }
+
+    /**
+     * @return true si la portion respecte {@link #REGEX_NOM}
+     */
+    public static boolean estNom(CharSequence s, int debut, int fin) {
+        return PATTERN_NOM.matcher(s).region(debut, fin).matches();
+    }
+
+    /**
+     * @return true si la portion respecte {@link #REGEX_PRENOM}
+     */
+    public static boolean estPrenom(CharSequence s, int debut, int fin) {
+        return PATTERN_PRENOM.matcher(s).region(debut, fin).matches();
+    }
+
+    /**
+     * Contrôle un nombre décimal positif ayant au plus deux chiffres après le point, comme le salaire
+     * ({@link #REGEX_SALAIRE}) ou le chiffre d'affaire ({@link #REGEX_CA})
+     * @return true si la portion est un nombre décimal valide
+     */
+    public static boolean estDecimal(CharSequence s, int debut, int fin) {
+        int i = debut;
+        while (i < fin && estChiffre(s.charAt(i))) {
+            i++;
+        }
+        if (i == debut) {
+            return false;
+        }
+        if (i == fin) {
+            return true;
+        }
+        int nbDecimales = fin - i - 1;
+        return s.charAt(i) == '.' && nbDecimales >= 1 && nbDecimales <= 2 && sontDesChiffres(s, i + 1, fin);
+    }
+
+    /**
+     * @return true si la portion est une performance comprise entre 0 et 100 ({@link #REGEX_PERF})
+     */
+    public static boolean estPerformance(CharSequence s, int debut, int fin) {
+        switch (fin - debut) {
+            case 1:
+                return estChiffre(s.charAt(debut));
+            case 2:
+                return s.charAt(debut) != '0' && sontDesChiffres(s, debut, fin);
+            case 3:
+                return s.charAt(debut) == '1' && s.charAt(debut + 1) == '0' && s.charAt(debut + 2) == '0';
+            default:
+                return false;
+        }
+    }
+
+    public static boolean estMatricule(CharSequence s) {
+        return estMatricule(s, 0, s.length());
+    }
+
+    public static boolean estMatriculeManager(CharSequence s) {
+        return estMatriculeManager(s, 0, s.length());
+    }
+
+    public static boolean estNom(CharSequence s) {
+        return estNom(s, 0, s.length());
+    }
+
+    public static boolean estPrenom(CharSequence s) {
+        return estPrenom(s, 0, s.length());
+    }
+
+    public static boolean estDecimal(CharSequence s) {
+        return estDecimal(s, 0, s.length());
+    }
+
+    public static boolean estPerformance(CharSequence s) {
+        return estPerformance(s, 0, s.length());
+    }
+
+    private static boolean sontDesChiffres(CharSequence s, int debut, int fin) {
+        for (int i = debut; i < fin; i++) {
+            if (!estChiffre(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean estChiffre(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,201 @@
+package com.ipiecoles.java.java230.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * Instantané des données nécessaires au calcul des primes annuelles, rangées par colonnes de types primitifs : les
+ * managers, puis les techniciens, puis les commerciaux. Les primes sont calculées par des boucles sur ces tableaux,
+ * par morceaux en parallèle, avec exactement les mêmes opérations que les méthodes getPrimeAnnuelle.
+ * Une donnée nulle (grade, date d'embauche, chiffre d'affaires) est représentée par NaN et donne une prime NaN, là où
+ * getPrimeAnnuelle lèverait une NullPointerException.
+ */
+public final class ColonnesEmployes {
+
+    //nombre d'employés traités par une tâche du calcul parallèle
+    private static final int TAILLE_MORCEAU = 16384;
+
+    private final long[] ids;
+
+    private final double[] salaire;
+
+    //année d'embauche, pour l'ancienneté des techniciens
+    private final double[] anneeEmbauche;
+
+    //taille de l'équipe pour les managers, grade pour les techniciens, chiffre d'affaires pour les commerciaux
+    private final double[] critere;
+
+    private final int nbManagers;
+
+    private final int nbTechniciens;
+
+    private ColonnesEmployes(Colonnes managers, Colonnes techniciens, Colonnes commerciaux) {
+        int nombre = managers.nombre + techniciens.nombre + commerciaux.nombre;
+        ids = new long[nombre];
+        salaire = new double[nombre];
+        anneeEmbauche = new double[nombre];
+        critere = new double[nombre];
+        nbManagers = managers.nombre;
+        nbTechniciens = techniciens.nombre;
+        managers.copier(this, 0);
+        techniciens.copier(this, nbManagers);
+        commerciaux.copier(this, nbManagers + nbTechniciens);
+    }
+
+    /**
+     * Méthode qui construit l'instantané d'employés déjà chargés
+     */
+    public static ColonnesEmployes de(Collection<? extends Employe> employes) {
+        Constructeur constructeur = new Constructeur();
+        for (Employe employe : employes) {
+            double annee = employe.getDateEmbauche() == null ? Double.NaN : employe.getDateEmbauche().getYear();
+            double salaire = valeur(employe.getSalaire());
+            if (employe instanceof Manager) {
+                constructeur.ajouterManager(employe.getId(), salaire, annee, ((Manager) employe).getEquipe().size());
+            } else if (employe instanceof Technicien) {
+                constructeur.ajouterTechnicien(employe.getId(), salaire, annee, valeur(((Technicien) employe).getGrade()));
+            } else if (employe instanceof Commercial) {
+                constructeur.ajouterCommercial(employe.getId(), salaire, annee, valeur(((Commercial) employe).getCaAnnuel()));
+            }
+        }
+        return constructeur.construire();
+    }
+
+    private static double valeur(Number nombre) {
+        return nombre == null ? Double.NaN : nombre.doubleValue();
+    }
+
+    /**
+     * Méthode qui calcule les primes annuelles pour l'année de la date de référence de la paie
+     * @return la prime de chaque employé, dans l'ordre de getIds()
+     */
+    public double[] calculerPrimes() {
+        return calculerPrimes(ReferencePaie.getAnnee());
+    }
+
+    /**
+     * Méthode qui calcule les primes annuelles pour une année
+     * @param annee l'année (base de la prime et de l'ancienneté)
+     * @return la prime de chaque employé, dans l'ordre de getIds()
+     */
+    public double[] calculerPrimes(int annee) {
+        double[] primes = new double[ids.length];
+        //Entreprise.primeAnnuelleBase()
+        double base = annee * 0.5;
+        IntStream.range(0, (ids.length + TAILLE_MORCEAU - 1) / TAILLE_MORCEAU).parallel().forEach(morceau -> {
+            int debut = morceau * TAILLE_MORCEAU;
+            int fin = Math.min(debut + TAILLE_MORCEAU, ids.length);
+            primesManagers(primes, base, debut, Math.min(fin, nbManagers));
+            primesTechniciens(primes, base, annee, Math.max(debut, nbManagers), Math.min(fin, nbManagers + nbTechniciens));
+            primesCommerciaux(primes, Math.max(debut, nbManagers + nbTechniciens), fin);
+        });
+        return primes;
+    }
+
+    //Manager.getPrimeAnnuelle
+    private void primesManagers(double[] primes, double base, int debut, int fin) {
+        double primeParTechnicien = Entreprise.PRIME_MANAGER_PAR_TECHNICIEN;
+        for (int i = debut; i < fin; i++) {
+            primes[i] = base + (int) critere[i] * primeParTechnicien;
+        }
+    }
+
+    //Technicien.getPrimeAnnuelle
+    private void primesTechniciens(double[] primes, double base, int annee, int debut, int fin) {
+        double primeAnciennete = Entreprise.PRIME_ANCIENNETE;
+        for (int i = debut; i < fin; i++) {
+            primes[i] = base + base * (1 + critere[i] / 10) + primeAnciennete * (annee - anneeEmbauche[i]);
+        }
+    }
+
+    //Commercial.getPrimeAnnuelle
+    private void primesCommerciaux(double[] primes, int debut, int fin) {
+        for (int i = debut; i < fin; i++) {
+            primes[i] = Math.max(Math.ceil(critere[i] * 0.05), 500);
+        }
+    }
+
+    public int getNombre() {
+        return ids.length;
+    }
+
+    /**
+     * @return une copie des identifiants : l'instantané ne peut pas être modifié après sa construction
+     */
+    public long[] getIds() {
+        return ids.clone();
+    }
+
+    /**
+     * @return une copie des salaires, dans l'ordre de getIds()
+     */
+    public double[] getSalaires() {
+        return salaire.clone();
+    }
+
+    /**
+     * Construction de l'instantané employé par employé, dans un ordre quelconque
+     */
+    public static class Constructeur {
+
+        private final Colonnes managers = new Colonnes();
+
+        private final Colonnes techniciens = new Colonnes();
+
+        private final Colonnes commerciaux = new Colonnes();
+
+        public Constructeur ajouterManager(long id, double salaire, double anneeEmbauche, int tailleEquipe) {
+            managers.ajouter(id, salaire, anneeEmbauche, tailleEquipe);
+            return this;
+        }
+
+        public Constructeur ajouterTechnicien(long id, double salaire, double anneeEmbauche, double grade) {
+            techniciens.ajouter(id, salaire, anneeEmbauche, grade);
+            return this;
+        }
+
+        public Constructeur ajouterCommercial(long id, double salaire, double anneeEmbauche, double caAnnuel) {
+            commerciaux.ajouter(id, salaire, anneeEmbauche, caAnnuel);
+            return this;
+        }
+
+        public ColonnesEmployes construire() {
+            return new ColonnesEmployes(managers, techniciens, commerciaux);
+        }
+    }
+
+    private static class Colonnes {
+
+        private long[] ids = new long[1024];
+
+        private double[] salaire = new double[1024];
+
+        private double[] anneeEmbauche = new double[1024];
+
+        private double[] critere = new double[1024];
+
+        private int nombre;
+
+        private void ajouter(long id, double salaire, double anneeEmbauche, double critere) {
+            if (nombre == ids.length) {
+                ids = Arrays.copyOf(ids, nombre * 2);
+                this.salaire = Arrays.copyOf(this.salaire, nombre * 2);
+                this.anneeEmbauche = Arrays.copyOf(this.anneeEmbauche, nombre * 2);
+                this.critere = Arrays.copyOf(this.critere, nombre * 2);
+            }
+            ids[nombre] = id;
+            this.salaire[nombre] = salaire;
+            this.anneeEmbauche[nombre] = anneeEmbauche;
+            this.critere[nombre] = critere;
+            nombre++;
+        }
+
+        private void copier(ColonnesEmployes colonnes, int position) {
+            System.arraycopy(ids, 0, colonnes.ids, position, nombre);
+            System.arraycopy(salaire, 0, colonnes.salaire, position, nombre);
+            System.arraycopy(anneeEmbauche, 0, colonnes.anneeEmbauche, position, nombre);
+            System.arraycopy(critere, 0, colonnes.critere, position, nombre);
+        }
+    }
+}
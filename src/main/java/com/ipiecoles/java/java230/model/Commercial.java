@@ -3,6 +3,7 @@ package com.ipiecoles.java.java230.model;
 import org.joda.time.LocalDate;
 
 import javax.persistence.Entity;
+import java.util.Comparator;
 
 @Entity
 public class Commercial extends Employe {
@@ -67,15 +68,9 @@ public class Commercial extends Employe {
 		return performance;
 	}
 
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (!(o instanceof Commercial)) return false;
-		if (!super.equals(o)) return false;
-
-		Commercial that = (Commercial) o;
-
-		return Double.compare(that.caAnnuel, caAnnuel) == 0;
-
+	@Override
+	protected int comparerValeurs(Employe autre) {
+		return Comparator.nullsFirst(Comparator.<Double>naturalOrder()).compare(getCaAnnuel(), ((Commercial) autre).getCaAnnuel());
 	}
 
 	@Override
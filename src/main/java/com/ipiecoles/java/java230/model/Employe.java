@@ -1,29 +1,90 @@
 package com.ipiecoles.java.java230.model;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.Type;
 import org.joda.time.LocalDate;
 
 import javax.persistence.*;
-import java.util.Objects;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
+//index créés par les migrations Flyway (db/migration/V2__index_recherches.sql), déclarés aussi pour ddl-auto
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_employe_matricule", columnNames = "matricule"),
+		indexes = {@Index(name = "idx_employe_nom_prenom", columnList = "nom, prenom"),
+				@Index(name = "idx_employe_nom_majuscules", columnList = "nomMajuscules"),
+				@Index(name = "idx_employe_nom_minuscules", columnList = "nomMinuscules"),
+				@Index(name = "idx_employe_prenom_minuscules", columnList = "prenomMinuscules"),
+				@Index(name = "idx_employe_date_embauche", columnList = "dateEmbauche"),
+				@Index(name = "idx_employe_salaire", columnList = "salaire")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public abstract class Employe {
 
+	/**
+	 * Comparaison de toutes les valeurs de l'employé (type, nom, prénom, matricule, date d'embauche, salaire puis
+	 * valeurs propres au type), l'ancienne définition de equals : deux employés ont les mêmes valeurs si
+	 * COMPARATEUR_VALEURS.compare(e1, e2) == 0. Les valeurs nulles sont placées en premier
+	 */
+	public static final Comparator<Employe> COMPARATEUR_VALEURS = Comparator
+			.comparing((Employe e) -> Hibernate.getClass(e).getName())
+			.thenComparing(Employe::getNom, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Employe::getPrenom, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Employe::getMatricule, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Employe::getDateEmbauche, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Employe::getSalaire, Comparator.nullsFirst(Comparator.naturalOrder()))
+			.thenComparing(Employe::comparerValeurs);
+
+	//identifiants réservés par blocs de 100 dans la table hibernate_sequences (db/migration/V3__generateur_identifiants.sql) :
+	//contrairement à l'auto-incrément (IDENTITY), l'identifiant est connu avant l'insertion, qui peut être envoyée par
+	//lot JDBC (EmployeBatchWriter.ecrire) ou retardée jusqu'au flush
 	@Id
-	@GeneratedValue(strategy = GenerationType.AUTO)
+	@GeneratedValue(strategy = GenerationType.AUTO, generator = "employe_id")
+	@GenericGenerator(name = "employe_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+			@Parameter(name = "segment_value", value = "Employe"),
+			@Parameter(name = "increment_size", value = "100"),
+			@Parameter(name = "optimizer", value = "pooled-lo")})
 	private Long id;
 
 	private String nom;
 	
 	private String prenom;
 
+	//colonnes calculées par la BDD pour les recherches sans tenir compte de la casse (BaseEmployeRepository), comparées
+	//directement dans les requêtes pour que leur index soit utilisé : MariaDB n'utilise pas l'index d'une colonne
+	//générée pour l'expression upper(nom). Jamais écrites par Hibernate, sans accesseur : leur valeur n'est lue qu'en BDD
+	@Column(insertable = false, updatable = false, columnDefinition = "VARCHAR(255) AS (UPPER(nom))")
+	private String nomMajuscules;
+
+	@Column(insertable = false, updatable = false, columnDefinition = "VARCHAR(255) AS (LOWER(nom))")
+	private String nomMinuscules;
+
+	@Column(insertable = false, updatable = false, columnDefinition = "VARCHAR(255) AS (LOWER(prenom))")
+	private String prenomMinuscules;
+
 	private String matricule;
 
 	@Type(type = "org.jadira.usertype.dateandtime.joda.PersistentLocalDate")
 	private LocalDate dateEmbauche;
 	
-	private Double salaire = Entreprise.SALAIRE_BASE;
+	//modifié par compareAndSet : des augmentations faites en parallèle ne se perdent pas
+	private volatile Double salaire = Entreprise.SALAIRE_BASE;
+
+	//salaire tel qu'en BDD, pour que StatistiquesSalairesListener retire l'ancienne valeur des statistiques
+	@Transient
+	private Double salaireEnregistre;
+
+	//hashCode calculé une fois à partir du matricule, 0 tant qu'il n'a pas été calculé
+	@Transient
+	private int hash;
+
+	private static final AtomicReferenceFieldUpdater<Employe, Double> SALAIRE =
+			AtomicReferenceFieldUpdater.newUpdater(Employe.class, Double.class, "salaire");
 	
 	public Employe() {
 		
@@ -38,7 +99,7 @@ public abstract class Employe {
 	}
 
 	public final Integer getNombreAnneeAnciennete() {
-		return LocalDate.now().getYear() - dateEmbauche.getYear();
+		return ReferencePaie.getAnnee() - dateEmbauche.getYear();
 	}
 	
 	public Integer getNbConges() {
@@ -48,7 +109,25 @@ public abstract class Employe {
 	public abstract Double getPrimeAnnuelle();
 
 	public void augmenterSalaire(Double pourcentage) {
-		this.salaire = this.getSalaire() * (1 + pourcentage);
+		augmenterSalaireAtomique(pourcentage);
+		salaireModifie();
+	}
+
+	/**
+	 * Méthode qui augmente le salaire de manière atomique, sans appeler salaireModifie : le salaire est recalculé et
+	 * l'écriture recommencée si un autre thread l'a modifié entre temps
+	 */
+	final void augmenterSalaireAtomique(Double pourcentage) {
+		Double ancien;
+		do {
+			ancien = this.getSalaire();
+		} while (!SALAIRE.compareAndSet(this, ancien, ancien * (1 + pourcentage)));
+	}
+
+	/**
+	 * Méthode appelée après chaque modification du salaire par setSalaire ou augmenterSalaire
+	 */
+	protected void salaireModifie() {
 	}
 
 	public Long getId() {
@@ -99,6 +178,7 @@ public abstract class Employe {
 	 */
 	public void setMatricule(String matricule) {
 		this.matricule = matricule;
+		this.hash = 0;
 	}
 
 	/**
@@ -131,6 +211,15 @@ public abstract class Employe {
 	 */
 	public void setSalaire(Double salaire) {
 		this.salaire = salaire;
+		salaireModifie();
+	}
+
+	Double getSalaireEnregistre() {
+		return salaireEnregistre;
+	}
+
+	void setSalaireEnregistre(Double salaireEnregistre) {
+		this.salaireEnregistre = salaireEnregistre;
 	}
 
 	@Override
@@ -145,23 +234,40 @@ public abstract class Employe {
 		return sb.toString();
 	}
 
+	/**
+	 * Méthode qui compare les valeurs propres au type de l'employé pour COMPARATEUR_VALEURS, appelée avec un employé
+	 * du même type
+	 */
+	protected int comparerValeurs(Employe autre) {
+		return 0;
+	}
+
+	/**
+	 * Deux employés sont égaux s'ils ont le même matricule, unique et qui ne change pas, quelles que soient leurs autres
+	 * valeurs (salaire...) : un employé reste retrouvable dans un HashSet ou une HashMap après une augmentation. Un
+	 * employé sans matricule n'est égal qu'à lui-même. Pour comparer toutes les valeurs : COMPARATEUR_VALEURS
+	 */
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (!(o instanceof Employe)) return false;
-
-		Employe employe = (Employe) o;
-
-		if (Double.compare(employe.salaire, salaire) != 0) return false;
-		if (nom != null ? !nom.equals(employe.nom) : employe.nom != null) return false;
-		if (prenom != null ? !prenom.equals(employe.prenom) : employe.prenom != null) return false;
-		if (matricule != null ? !matricule.equals(employe.matricule) : employe.matricule != null) return false;
-		return dateEmbauche != null ? dateEmbauche.equals(employe.dateEmbauche) : employe.dateEmbauche == null;
-
+		//accesseurs plutôt que champs pour les proxies Hibernate
+		String matricule = getMatricule();
+		return matricule != null && matricule.equals(((Employe) o).getMatricule());
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(nom, prenom, matricule, dateEmbauche, salaire);
+		int h = hash;
+		if (h == 0) {
+			String matricule = getMatricule();
+			if (matricule == null) {
+				//non conservé : le matricule peut être renseigné ensuite (hydratation par Hibernate)
+				return System.identityHashCode(this);
+			}
+			h = matricule.hashCode();
+			hash = h;
+		}
+		return h;
 	}
 }
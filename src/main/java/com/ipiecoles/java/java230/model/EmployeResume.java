@@ -0,0 +1,97 @@
+package com.ipiecoles.java.java230.model;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Projection immuable d'un employé pour les rapports : seulement les colonnes lues par un rapport et la prime annuelle,
+ * calculée à la construction avec les mêmes opérations que les méthodes getPrimeAnnuelle. Les requêtes streamResumes
+ * des repositories construisent directement ces objets (expression "select new") : aucune entité n'est chargée, rien
+ * n'est ajouté au contexte de persistance ni copié pour la détection des modifications.
+ * Chaque constructeur correspond à la requête d'un type d'employé. Si une donnée nécessaire au calcul de la prime est
+ * nulle (grade, date d'embauche, chiffre d'affaires), la prime est nulle, là où getPrimeAnnuelle lèverait une
+ * NullPointerException.
+ */
+public final class EmployeResume {
+
+    private final String matricule;
+
+    private final String nom;
+
+    private final String prenom;
+
+    private final Double salaire;
+
+    private final Double primeAnnuelle;
+
+    //prime en premier : même signature que le constructeur des commerciaux sinon
+    private EmployeResume(Double primeAnnuelle, String matricule, String nom, String prenom, Double salaire) {
+        this.matricule = matricule;
+        this.nom = nom;
+        this.prenom = prenom;
+        this.salaire = salaire;
+        this.primeAnnuelle = primeAnnuelle;
+    }
+
+    /**
+     * Résumé d'un manager, voir ManagerRepository.streamResumes (Manager.getPrimeAnnuelle)
+     */
+    public EmployeResume(String matricule, String nom, String prenom, Double salaire, Long tailleEquipe) {
+        this(Entreprise.primeAnnuelleBase() + tailleEquipe * Entreprise.PRIME_MANAGER_PAR_TECHNICIEN,
+                matricule, nom, prenom, salaire);
+    }
+
+    /**
+     * Résumé d'un technicien, voir TechnicienRepository.streamResumes (Technicien.getPrimeAnnuelle)
+     */
+    public EmployeResume(String matricule, String nom, String prenom, Double salaire, LocalDate dateEmbauche, Integer grade) {
+        this(primeTechnicien(dateEmbauche, grade), matricule, nom, prenom, salaire);
+    }
+
+    /**
+     * Résumé d'un commercial, voir CommercialRepository.streamResumes (Commercial.getPrimeAnnuelle)
+     */
+    public EmployeResume(String matricule, String nom, String prenom, Double salaire, Double caAnnuel) {
+        this(caAnnuel == null ? null : Math.max(Math.ceil(caAnnuel * 0.05), 500), matricule, nom, prenom, salaire);
+    }
+
+    private static Double primeTechnicien(LocalDate dateEmbauche, Integer grade) {
+        if (dateEmbauche == null || grade == null) {
+            return null;
+        }
+        Double salaireBase = Entreprise.primeAnnuelleBase();
+        return salaireBase + salaireBase * (1 + (double) grade / 10)
+                + Entreprise.PRIME_ANCIENNETE * (ReferencePaie.getAnnee() - dateEmbauche.getYear());
+    }
+
+    public String getMatricule() {
+        return matricule;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public String getPrenom() {
+        return prenom;
+    }
+
+    public Double getSalaire() {
+        return salaire;
+    }
+
+    public Double getPrimeAnnuelle() {
+        return primeAnnuelle;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("EmployeResume{");
+        sb.append("nom='").append(nom).append('\'');
+        sb.append(", prenom='").append(prenom).append('\'');
+        sb.append(", matricule='").append(matricule).append('\'');
+        sb.append(", salaire=").append(salaire);
+        sb.append(", primeAnnuelle=").append(primeAnnuelle);
+        sb.append('}');
+        return sb.toString();
+    }
+}
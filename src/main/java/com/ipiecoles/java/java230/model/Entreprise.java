@@ -1,7 +1,5 @@
 package com.ipiecoles.java.java230.model;
 
-import org.joda.time.LocalDate;
-
 public final class Entreprise {
 	public static final Double SALAIRE_BASE = 1480.27;
 	public static final Integer NB_CONGES_BASE = 25;
@@ -11,7 +9,7 @@ public final class Entreprise {
 	public static final Double PRIME_ANCIENNETE = 100d;
 	
 	public static Double primeAnnuelleBase() {
-		return LocalDate.now().getYear() * 0.5;
+		return ReferencePaie.getAnnee() * 0.5;
 	}
 
 }
@@ -0,0 +1,216 @@
+package com.ipiecoles.java.java230.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Techniciens de l'équipe d'un manager rangés par grade, avec leur nombre et la somme de leurs salaires, tenus à jour à
+ * chaque ajout ou retrait de technicien et à chaque modification du salaire ou du grade d'un technicien de l'équipe,
+ * au lieu de parcourir et de trier l'équipe. L'index garde pour chaque technicien, par identité, sa position dans son
+ * grade et le grade et le salaire qu'il a comptés : une modification ne coûte qu'une recherche dans une IdentityHashMap,
+ * sans le hashCode du technicien, et une augmentation de l'équipe aucune. Dans un grade, les techniciens sont dans
+ * l'ordre de leur ajout. Les sommes étant cumulées au fil des modifications, elles peuvent différer d'un parcours à
+ * l'arrondi près.
+ * L'index est modifié sous son verrou. Après une modification de son salaire ou de son grade, le technicien fait
+ * recompter par l'index de l'équipe de son manager l'écart entre ses valeurs et celles comptées : le résultat ne
+ * dépend pas de l'ordre dans lequel des modifications faites en parallèle sont recomptées, ni d'un ajout à l'index
+ * pendant la modification. L'index ne décide pas de l'équipe d'un technicien : c'est le rôle de Manager.
+ */
+final class IndexEquipe {
+
+    static final int GRADE_MAX = 5;
+
+    //indice 0 : techniciens dont le grade est inconnu (null ou hors de 1 à GRADE_MAX)
+    private final int[] nombres = new int[GRADE_MAX + 1];
+
+    private final double[] salaires = new double[GRADE_MAX + 1];
+
+    //places des techniciens de chaque grade, dans l'ordre de leur ajout
+    private final Place[][] groupes = new Place[GRADE_MAX + 1][];
+
+    //place de chaque technicien de l'index, par identité : le matricule, et donc le hashCode, peut changer
+    private final Map<Technicien, Place> places = new IdentityHashMap<>();
+
+    //position, grade et salaire d'un technicien tels que comptés par l'index
+    private static final class Place {
+
+        private final Technicien technicien;
+
+        private int position;
+
+        private int rang;
+
+        private double salaire;
+
+        private Place(Technicien technicien) {
+            this.technicien = technicien;
+        }
+    }
+
+    static int rang(Integer grade) {
+        return grade == null || grade < 1 || grade > GRADE_MAX ? 0 : grade;
+    }
+
+    private static double valeur(Double salaire) {
+        return salaire == null ? 0 : salaire;
+    }
+
+    /**
+     * Méthode qui ajoute toute une équipe sous un seul verrou : une modification faite pendant ce temps sur un
+     * technicien attend la fin de l'ajout pour être recomptée
+     */
+    synchronized void ajouterTous(Collection<Technicien> equipe) {
+        for (Technicien technicien : equipe) {
+            ajouter(technicien);
+        }
+    }
+
+    //l'index est publié par le manager avant cet ajout : une modification faite en même temps est soit lue ici, soit
+    //recomptée ensuite
+    synchronized void ajouter(Technicien technicien) {
+        if (places.containsKey(technicien)) {
+            return;
+        }
+        Place place = new Place(technicien);
+        double salaire = valeur(technicien.getSalaire());
+        int rang = rang(technicien.getGrade());
+        places.put(technicien, place);
+        ajouterAuGroupe(place, rang);
+        salaires[rang] += salaire;
+        place.salaire = salaire;
+    }
+
+    synchronized void retirer(Technicien technicien) {
+        Place place = places.remove(technicien);
+        if (place == null) {
+            return;
+        }
+        retirerDuGroupe(place);
+        salaires[place.rang] -= place.salaire;
+    }
+
+    /**
+     * Méthode qui compte l'écart entre le salaire et le grade du technicien et ceux comptés jusque là. Un technicien
+     * dont le grade a changé est rangé à la fin de son nouveau grade. Un technicien absent de l'index est ignoré
+     */
+    synchronized void recompter(Technicien technicien) {
+        Place place = places.get(technicien);
+        if (place == null) {
+            return;
+        }
+        double salaire = valeur(technicien.getSalaire());
+        int rang = rang(technicien.getGrade());
+        salaires[place.rang] -= place.salaire;
+        if (rang != place.rang) {
+            retirerDuGroupe(place);
+            ajouterAuGroupe(place, rang);
+        }
+        salaires[rang] += salaire;
+        place.salaire = salaire;
+    }
+
+    /**
+     * Méthode qui augmente le salaire de tous les techniciens de l'index et les recompte sous un seul verrou, au lieu
+     * d'un par technicien. Chaque salaire est augmenté par compareAndSet : un technicien peut être augmenté en même
+     * temps par un autre thread, qui le recompte ensuite
+     */
+    synchronized void augmenterSalaires(Double pourcentage) {
+        //seul le salaire est recompté : un technicien dont le grade vient de changer sera déplacé par son propre recompte
+        for (int rang = GRADE_MAX; rang >= 0; rang--) {
+            for (int i = 0; i < nombres[rang]; i++) {
+                Place place = groupes[rang][i];
+                place.technicien.augmenterSalaireAtomique(pourcentage);
+                double salaire = valeur(place.technicien.getSalaire());
+                salaires[rang] += salaire - place.salaire;
+                place.salaire = salaire;
+            }
+        }
+    }
+
+    private void ajouterAuGroupe(Place place, int rang) {
+        Place[] groupe = groupes[rang];
+        if (groupe == null) {
+            groupe = groupes[rang] = new Place[8];
+        } else if (nombres[rang] == groupe.length) {
+            groupe = groupes[rang] = Arrays.copyOf(groupe, groupe.length * 2);
+        }
+        groupe[nombres[rang]] = place;
+        place.position = nombres[rang];
+        place.rang = rang;
+        nombres[rang]++;
+    }
+
+    //décale les suivants pour garder l'ordre d'ajout : les retraits sont rares par rapport aux parcours
+    private void retirerDuGroupe(Place place) {
+        Place[] groupe = groupes[place.rang];
+        int position = place.position;
+        int dernier = --nombres[place.rang];
+        System.arraycopy(groupe, position + 1, groupe, position, dernier - position);
+        groupe[dernier] = null;
+        for (int i = position; i < dernier; i++) {
+            groupe[i].position = i;
+        }
+    }
+
+    synchronized int getNombre() {
+        return places.size();
+    }
+
+    synchronized int getNombre(int grade) {
+        return nombres[rang(grade)];
+    }
+
+    synchronized double getSalaire(int grade) {
+        return salaires[rang(grade)];
+    }
+
+    /**
+     * @return le technicien à cette position dans l'équipe par grade décroissant, les grades inconnus en dernier
+     */
+    Technicien get(int index) {
+        if (index < 0 || index >= places.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + places.size());
+        }
+        int rang = GRADE_MAX;
+        while (index >= nombres[rang]) {
+            index -= nombres[rang--];
+        }
+        return groupes[rang][index].technicien;
+    }
+
+    /**
+     * @return un parcours de l'équipe par grade décroissant, les grades inconnus en dernier, sans tri ni copie
+     */
+    Iterator<Technicien> iterator() {
+        return new Iterator<Technicien>() {
+
+            private int rang = GRADE_MAX;
+
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                while (position >= nombres[rang]) {
+                    if (rang == 0) {
+                        return false;
+                    }
+                    rang--;
+                    position = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Technicien next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return groupes[rang][position++].technicien;
+            }
+        };
+    }
+}
@@ -1,39 +1,102 @@
 package com.ipiecoles.java.java230.model;
 
 import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.hibernate.annotations.BatchSize;
 import org.joda.time.LocalDate;
 
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
+import java.util.AbstractList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Les modifications de l'équipe et les augmentations du manager et de son équipe se font sous le verrou du manager :
+ * plusieurs threads peuvent rattacher des techniciens au même manager ou augmenter les salaires en parallèle. Le verrou
+ * de l'index de l'équipe n'est pris qu'après celui du manager. Chaque technicien de l'équipe est augmenté de manière
+ * atomique : une augmentation faite en même temps par un autre thread sur un technicien n'est pas perdue.
+ * Un technicien ne fait partie que d'une équipe, celle de son manager : il est refusé par une autre équipe tant qu'il
+ * n'a pas été retiré de la sienne.
+ * getEquipe() et equipeParGrade() ne doivent pas être parcourus pendant une modification de l'équipe par un autre
+ * thread.
+ */
 @Entity
 public class Manager extends Employe {
 
+	//les équipes de plusieurs managers chargés par une même requête sont initialisées par lots (where manager_id in (...))
 	@OneToMany(mappedBy = "manager")
+	@BatchSize(size = 100)
 	private Set<Technicien> equipe = new HashSet();
 
+	//nombre et salaires des techniciens de l'équipe par grade, construit à la première utilisation. volatile : lu sans
+	//verrou par les techniciens de l'équipe pour recompter leurs modifications
+	@Transient
+	private volatile IndexEquipe indexEquipe;
+
+	//équipe à partir de laquelle l'index a été construit : Hibernate remplace le champ au rafraîchissement du manager
+	@Transient
+	private Set<Technicien> equipeIndexee;
+
+	//renvoyée par equipeParGrade() : lit l'index courant à chaque accès et reste valable quand l'index est reconstruit
+	@Transient
+	private final List<Technicien> vueParGrade = new VueParGrade();
+
 	public Manager(){
 
 	}
 
 	public Manager(String nom, String prenom, String matricule, LocalDate dateEmbauche, Double salaire, HashSet<Technicien> equipe) {
 		super(nom, prenom, matricule, dateEmbauche, salaire);
-		this.equipe = equipe;
+		setEquipe(equipe);
+	}
+
+	/**
+	 * Méthode qui ajoute un technicien à l'équipe et le rattache au manager
+	 * @throws IllegalArgumentException si le technicien fait partie de l'équipe d'un autre manager : il doit d'abord
+	 * en être retiré par retraitTechnicienEquipe
+	 */
+	public synchronized void ajoutTechnicienEquipe(Technicien technicien) {
+		rattacher(technicien);
+		if (equipe.add(technicien) && indexEquipe != null) {
+			indexEquipe.ajouter(technicien);
+		}
+	}
+
+	/**
+	 * Méthode qui retire un technicien de l'équipe : il n'a plus de manager et peut rejoindre une autre équipe
+	 */
+	public synchronized void retraitTechnicienEquipe(Technicien technicien) {
+		if (equipe.remove(technicien)) {
+			if (indexEquipe != null) {
+				indexEquipe.retirer(technicien);
+			}
+			if (estManagerDe(technicien)) {
+				technicien.setManager(null);
+			}
+		}
+	}
+
+	private boolean estManagerDe(Technicien technicien) {
+		Manager manager = technicien.getManager();
+		return manager == this || manager != null && manager.equals(this);
 	}
 
-	public void ajoutTechnicienEquipe(Technicien technicien) {
-		equipe.add(technicien);
+	private void rattacher(Technicien technicien) {
+		if (technicien.getManager() != null && !estManagerDe(technicien)) {
+			throw new IllegalArgumentException("Le technicien " + technicien.getMatricule()
+					+ " fait partie de l'équipe du manager " + technicien.getManager().getMatricule());
+		}
+		technicien.setManager(this);
 	}
 
 	public void ajoutTechnicienEquipe(String nom, String prenom, String matricule, LocalDate dateEmbauche, Double salaire, Integer grade) throws TechnicienException {
 		this.ajoutTechnicienEquipe(new Technicien(nom, prenom, matricule, dateEmbauche, salaire, grade));
 	}
 	
-	public void setSalaire(Double salaire) {
+	public synchronized void setSalaire(Double salaire) {
 		super.setSalaire(salaire * Entreprise.INDICE_MANAGER + (salaire * (double)equipe.size() / 10));
 	}
 
@@ -41,41 +104,105 @@ public class Manager extends Employe {
 		return Entreprise.primeAnnuelleBase() + equipe.size() * Entreprise.PRIME_MANAGER_PAR_TECHNICIEN;
 	}
 	
-	public void augmenterSalaire(Double pourcentage) {
+	public synchronized void augmenterSalaire(Double pourcentage) {
 		super.augmenterSalaire(pourcentage);
 		augmenterSalaireEquipe(pourcentage);
 	}
 
 	private void augmenterSalaireEquipe(Double pourcentage) {
-		for (Technicien technicien : equipe) {
-			technicien.augmenterSalaire(pourcentage);
+		indexEquipe().augmenterSalaires(pourcentage);
+	}
+
+	/**
+	 * @return l'index de l'équipe, reconstruit si l'équipe a été remplacée, modifiée par Hibernate ou confiée à un
+	 * appelant de getEquipe(). ajoutTechnicienEquipe et retraitTechnicienEquipe tiennent l'index à jour
+	 */
+	private synchronized IndexEquipe indexEquipe() {
+		IndexEquipe index = indexEquipe;
+		if (index == null || equipeIndexee != equipe || index.getNombre() != equipe.size()) {
+			//les techniciens sont rattachés avant la publication de l'index, qui est publié avant d'être rempli : une
+			//modification faite en même temps sur un technicien est soit lue par le remplissage, soit recomptée ensuite
+			equipe.forEach(this::rattacher);
+			index = new IndexEquipe();
+			indexEquipe = index;
+			index.ajouterTous(equipe);
+			equipeIndexee = equipe;
+		}
+		return index;
+	}
+
+	/**
+	 * Méthode appelée par un technicien dont le salaire ou le grade a été modifié
+	 */
+	void recompter(Technicien technicien) {
+		IndexEquipe index = indexEquipe;
+		if (index != null) {
+			index.recompter(technicien);
 		}
 	}
 
+	/**
+	 * @return l'équipe par grade décroissant, sans tri ni copie : vue en lecture seule sur les techniciens rangés par
+	 * grade, qui suit les modifications et les remplacements de l'équipe. Dans un grade, les techniciens sont dans
+	 * l'ordre de leur ajout
+	 */
 	public List<Technicien> equipeParGrade(){
-		return equipe.stream().sorted(Technicien::compareTo).collect(Collectors.toList());
+		return vueParGrade;
 	}
 
 	public double salaireEquipeGrade1(){
-		return equipe.stream().filter(t -> t.getGrade().equals(1)).mapToDouble(Technicien::getSalaire).sum();
+		return salaireEquipeGrade(1);
+	}
+
+	public double salaireEquipeGrade(int grade){
+		return indexEquipe().getSalaire(grade);
+	}
+
+	public int nombreTechniciensGrade(int grade){
+		return indexEquipe().getNombre(grade);
 	}
 
 	/**
-	 * @return the equipe
+	 * @return the equipe, modifiable : l'index de l'équipe est reconstruit à sa prochaine utilisation, qui rattache au
+	 * manager les techniciens ajoutés et lève une IllegalArgumentException pour un technicien d'une autre équipe.
+	 * ajoutTechnicienEquipe et retraitTechnicienEquipe tiennent l'index à jour sans le reconstruire
 	 */
-	public Set<Technicien> getEquipe() {
+	public synchronized Set<Technicien> getEquipe() {
+		this.indexEquipe = null;
 		return equipe;
 	}
 
 	/**
 	 * @param equipe the equipe to set
+	 * @throws IllegalArgumentException si un des techniciens fait partie de l'équipe d'un autre manager
 	 */
-	public void setEquipe(HashSet<Technicien> equipe) {
+	public synchronized void setEquipe(HashSet<Technicien> equipe) {
+		equipe.forEach(this::rattacher);
 		this.equipe = equipe;
+		this.indexEquipe = null;
 	}
 
 	@Override
 	public String toString() {
 		return "Manager{} " + super.toString();
 	}
+
+	//un parcours commencé continue sur l'index lu à son début, même si l'index est reconstruit entre temps
+	private class VueParGrade extends AbstractList<Technicien> {
+
+		@Override
+		public Technicien get(int index) {
+			return indexEquipe().get(index);
+		}
+
+		@Override
+		public int size() {
+			return indexEquipe().getNombre();
+		}
+
+		@Override
+		public Iterator<Technicien> iterator() {
+			return indexEquipe().iterator();
+		}
+	}
 }
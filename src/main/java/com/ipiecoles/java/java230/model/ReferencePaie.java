@@ -0,0 +1,79 @@
+package com.ipiecoles.java.java230.model;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Date de référence des calculs de paie (ancienneté, primes annuelles). Par défaut, c'est la date du jour, évaluée une
+ * fois puis conservée jusqu'à minuit au lieu d'appeler LocalDate.now() (fuseau horaire et allocation) à chaque calcul.
+ * Un traitement peut fixer la date pour toute sa durée : ses résultats ne dépendent alors plus du moment où il
+ * s'exécute et sont reproductibles pour une date donnée.
+ */
+public final class ReferencePaie {
+
+    private static volatile Reference reference = new Reference(LocalDate.now(), false);
+
+    private ReferencePaie() {
+    }
+
+    /**
+     * @return la date de référence : la date fixée, sinon la date du jour
+     */
+    public static LocalDate getDate() {
+        return courante().date;
+    }
+
+    /**
+     * @return l'année de la date de référence
+     */
+    public static int getAnnee() {
+        return courante().annee;
+    }
+
+    /**
+     * Méthode qui fixe la date de référence de tous les calculs jusqu'à l'appel de liberer()
+     */
+    public static void fixer(LocalDate date) {
+        reference = new Reference(date, true);
+    }
+
+    /**
+     * Méthode qui revient à la date du jour
+     */
+    public static void liberer() {
+        reference = new Reference(LocalDate.now(), false);
+    }
+
+    public static boolean isFixee() {
+        return reference.fin == Long.MAX_VALUE;
+    }
+
+    private static Reference courante() {
+        Reference courante = reference;
+        if (System.currentTimeMillis() >= courante.fin) {
+            //un autre thread a pu fixer la date entre temps : elle est conservée
+            synchronized (ReferencePaie.class) {
+                if (reference == courante) {
+                    reference = new Reference(LocalDate.now(), false);
+                }
+                courante = reference;
+            }
+        }
+        return courante;
+    }
+
+    private static final class Reference {
+
+        private final LocalDate date;
+
+        private final int annee;
+
+        //instant à partir duquel la date du jour doit être réévaluée
+        private final long fin;
+
+        private Reference(LocalDate date, boolean fixee) {
+            this.date = date;
+            this.annee = date.getYear();
+            this.fin = fixee ? Long.MAX_VALUE : date.plusDays(1).toDateTimeAtStartOfDay().getMillis();
+        }
+    }
+}
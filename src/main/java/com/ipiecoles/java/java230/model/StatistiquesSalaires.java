@@ -0,0 +1,275 @@
+package com.ipiecoles.java.java230.model;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Agrégat des salaires des employés en BDD : nombre, somme, minimum, maximum et histogramme par tranches de
+ * LARGEUR_TRANCHE €. Il est chargé depuis la BDD par StatistiquesSalairesService puis tenu à jour par
+ * StatistiquesSalairesListener à chaque création, modification ou suppression d'un employé validée. Un bean par
+ * contexte Spring, donc par base de données.
+ * Tant qu'il n'est pas initialisé, les modifications sont ignorées : elles seront lues avec le reste de la BDD.
+ * Un chargement et la validation d'une transaction qui modifie des salaires ne se chevauchent pas : une transaction
+ * validée avant le chargement est lue en BDD et n'est pas appliquée aux valeurs lues, une transaction validée après
+ * ne l'est pas et y est appliquée. Aucune modification n'est comptée deux fois ni perdue.
+ */
+@Component
+public class StatistiquesSalaires {
+
+    public static final double LARGEUR_TRANCHE = 100.0;
+
+    //partagé par les transactions qui modifient des salaires, de leur première modification à la fin de leur
+    //validation, exclusif pendant un chargement
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+
+    private boolean initialisees;
+
+    private long nombre;
+
+    private double somme;
+
+    private Double min;
+
+    private Double max;
+
+    //faux lorsque le minimum ou le maximum a été retiré, il faut alors les relire en BDD
+    private boolean bornesConnues = true;
+
+    //nombre de salaires par numéro de tranche (salaire / LARGEUR_TRANCHE arrondi à l'entier inférieur)
+    private final TreeMap<Long, Long> tranches = new TreeMap<>();
+
+    /**
+     * Méthode à appeler par une transaction avant la validation de sa première modification de salaire : un
+     * chargement attend la fin de la transaction, et la transaction attend la fin d'un chargement commencé
+     */
+    public void commencerModifications() {
+        verrou.readLock().lock();
+    }
+
+    /**
+     * Méthode à appeler à la fin de la transaction, validée ou annulée, une fois par appel à
+     * {@link #commencerModifications}
+     * @param modifications les modifications validées par la transaction, vide si elle a été annulée
+     */
+    public void terminerModifications(List<Double[]> modifications) {
+        try {
+            modifier(modifications);
+        } finally {
+            verrou.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true si le thread courant est dans une transaction qui a commencé des modifications : il ne peut pas
+     * charger les statistiques partagées, qui attendraient la fin de sa propre transaction
+     */
+    public boolean isModificationsEnCours() {
+        return verrou.getReadHoldCount() > 0;
+    }
+
+    /**
+     * Méthode à appeler avant de lire les statistiques en BDD, dans une nouvelle transaction : attend la fin des
+     * transactions qui modifient des salaires et bloque les suivantes jusqu'à {@link #terminerChargement}
+     */
+    public void commencerChargement() {
+        if (isModificationsEnCours()) {
+            throw new IllegalStateException("Chargement des statistiques impossible dans une transaction qui modifie des salaires");
+        }
+        verrou.writeLock().lock();
+    }
+
+    /**
+     * Méthode à appeler après la lecture en BDD, que {@link #initialiser} ait été appelée ou non
+     */
+    public void terminerChargement() {
+        verrou.writeLock().unlock();
+    }
+
+    /**
+     * Méthode qui remplace les statistiques par celles lues en BDD
+     * @param tranches le nombre de salaires par numéro de tranche
+     */
+    public synchronized void initialiser(long nombre, double somme, Double min, Double max, Map<Long, Long> tranches) {
+        this.nombre = nombre;
+        this.somme = somme;
+        this.min = min;
+        this.max = max;
+        this.bornesConnues = true;
+        this.tranches.clear();
+        this.tranches.putAll(tranches);
+        this.initialisees = true;
+    }
+
+    /**
+     * Méthode qui oublie les statistiques, par exemple après une modification en masse faite en SQL. Elles seront
+     * relues en BDD à la prochaine utilisation
+     */
+    public synchronized void reinitialiser() {
+        initialisees = false;
+        nombre = 0;
+        somme = 0;
+        min = null;
+        max = null;
+        bornesConnues = true;
+        tranches.clear();
+    }
+
+    public synchronized boolean isInitialisees() {
+        return initialisees;
+    }
+
+    /**
+     * Méthode qui remplace un salaire par un autre dans les statistiques
+     * @param ancien le salaire retiré, null pour une création
+     * @param nouveau le salaire ajouté, null pour une suppression
+     */
+    public synchronized void modifier(Double ancien, Double nouveau) {
+        if (!initialisees) {
+            return;
+        }
+        if (ancien != null) {
+            retirer(ancien);
+        }
+        if (nouveau != null) {
+            ajouter(nouveau);
+        }
+    }
+
+    /**
+     * Méthode qui applique en une fois les modifications d'une transaction
+     * @param modifications des couples {ancien salaire, nouveau salaire}
+     */
+    public synchronized void modifier(List<Double[]> modifications) {
+        for (Double[] modification : modifications) {
+            modifier(modification[0], modification[1]);
+        }
+    }
+
+    private void ajouter(double salaire) {
+        if (nombre == 0) {
+            min = salaire;
+            max = salaire;
+            bornesConnues = true;
+        } else if (bornesConnues) {
+            min = Math.min(min, salaire);
+            max = Math.max(max, salaire);
+        }
+        nombre++;
+        somme += salaire;
+        tranches.merge(tranche(salaire), 1L, Long::sum);
+    }
+
+    private void retirer(double salaire) {
+        nombre--;
+        somme -= salaire;
+        tranches.computeIfPresent(tranche(salaire), (tranche, nb) -> nb > 1 ? nb - 1 : null);
+        if (nombre <= 0) {
+            nombre = 0;
+            somme = 0;
+            min = null;
+            max = null;
+            bornesConnues = true;
+        } else if (bornesConnues && (salaire <= min || salaire >= max)) {
+            bornesConnues = false;
+        }
+    }
+
+    /**
+     * Méthode qui met à jour le minimum et le maximum relus en BDD
+     */
+    public synchronized void setBornes(Double min, Double max) {
+        this.min = min;
+        this.max = max;
+        this.bornesConnues = true;
+    }
+
+    public synchronized boolean isBornesConnues() {
+        return bornesConnues;
+    }
+
+    public synchronized long getNombre() {
+        return nombre;
+    }
+
+    public synchronized double getSomme() {
+        return somme;
+    }
+
+    /**
+     * @return le salaire moyen, null s'il n'y a aucun salaire
+     */
+    public synchronized Double getMoyenne() {
+        return nombre == 0 ? null : somme / nombre;
+    }
+
+    public synchronized Double getMin() {
+        return min;
+    }
+
+    public synchronized Double getMax() {
+        return max;
+    }
+
+    /**
+     * Méthode qui situe le salaire de rang donné dans l'ordre croissant
+     * @param rang le rang du salaire, de 0 à getNombre() - 1
+     * @return la tranche contenant ce salaire et son rang dans la tranche, null si le rang n'existe pas
+     */
+    public synchronized Tranche trancheDuRang(long rang) {
+        long cumul = 0;
+        for (Map.Entry<Long, Long> tranche : tranches.entrySet()) {
+            if (rang < cumul + tranche.getValue()) {
+                return new Tranche(tranche.getKey(), rang - cumul);
+            }
+            cumul += tranche.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Méthode qui calcule le numéro de la tranche d'un salaire, cohérent avec les bornes de Tranche
+     */
+    public static long tranche(double salaire) {
+        long tranche = (long) Math.floor(salaire / LARGEUR_TRANCHE);
+        if (salaire < tranche * LARGEUR_TRANCHE) {
+            tranche--;
+        } else if (salaire >= (tranche + 1) * LARGEUR_TRANCHE) {
+            tranche++;
+        }
+        return tranche;
+    }
+
+    /**
+     * Tranche de l'histogramme : les salaires compris entre getBorneInf() inclus et getBorneSup() exclu
+     */
+    public static class Tranche {
+
+        private final long numero;
+
+        private final long decalage;
+
+        Tranche(long numero, long decalage) {
+            this.numero = numero;
+            this.decalage = decalage;
+        }
+
+        public double getBorneInf() {
+            return numero * LARGEUR_TRANCHE;
+        }
+
+        public double getBorneSup() {
+            return (numero + 1) * LARGEUR_TRANCHE;
+        }
+
+        /**
+         * @return le rang du salaire recherché parmi ceux de la tranche, dans l'ordre croissant
+         */
+        public long getDecalage() {
+            return decalage;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ipiecoles.java.java230.model;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Listener Hibernate qui reporte dans StatistiquesSalaires les salaires créés, modifiés (augmenterSalaire,
+ * setSalaire...) et supprimés. Bean Spring enregistré auprès de l'EntityManagerFactory de son contexte : chaque
+ * contexte tient les statistiques de sa propre base. Dans une transaction Spring, les modifications sont appliquées en
+ * une fois après le commit et abandonnées en cas de rollback.
+ * Les modifications faites en SQL ou en requête de masse ne passent pas par ce listener.
+ */
+@Component
+public class StatistiquesSalairesListener implements PostLoadEventListener, PostInsertEventListener,
+        PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    @Autowired
+    private transient StatistiquesSalaires statistiquesSalaires;
+
+    @Autowired
+    private transient EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void enregistrer() {
+        EventListenerRegistry registre = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registre.appendListeners(EventType.POST_LOAD, this);
+        registre.appendListeners(EventType.POST_INSERT, this);
+        registre.appendListeners(EventType.POST_UPDATE, this);
+        registre.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        if (event.getEntity() instanceof Employe) {
+            Employe employe = (Employe) event.getEntity();
+            employe.setSalaireEnregistre(employe.getSalaire());
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Employe) {
+            Employe employe = (Employe) event.getEntity();
+            modifier(employe, null, employe.getSalaire());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Employe) {
+            Employe employe = (Employe) event.getEntity();
+            modifier(employe, employe.getSalaireEnregistre(), employe.getSalaire());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Employe) {
+            Employe employe = (Employe) event.getEntity();
+            modifier(employe, employe.getSalaireEnregistre(), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void modifier(Employe employe, Double ancien, Double nouveau) {
+        employe.setSalaireEnregistre(nouveau);
+        if (Objects.equals(ancien, nouveau)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            statistiquesSalaires.modifier(ancien, nouveau);
+            return;
+        }
+        modificationsDeLaTransaction().add(new Double[]{ancien, nouveau});
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Double[]> modificationsDeLaTransaction() {
+        List<Double[]> modifications = (List<Double[]>) TransactionSynchronizationManager.getResource(this);
+        if (modifications == null) {
+            List<Double[]> enAttente = new ArrayList<>();
+            //avant la validation : un chargement des statistiques ne peut plus commencer avant la fin de la transaction
+            statistiquesSalaires.commencerModifications();
+            TransactionSynchronizationManager.bindResource(this, enAttente);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StatistiquesSalairesListener.this);
+                    statistiquesSalaires.terminerModifications(
+                            status == STATUS_COMMITTED ? enAttente : Collections.<Double[]>emptyList());
+                }
+            });
+            modifications = enAttente;
+        }
+        return modifications;
+    }
+}
@@ -1,21 +1,28 @@
 package com.ipiecoles.java.java230.model;
 
 import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.hibernate.Hibernate;
 import org.joda.time.LocalDate;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
-import java.util.Objects;
+import javax.persistence.Table;
+import java.util.Comparator;
 
 @Entity
+@Table(indexes = {@Index(name = "idx_technicien_grade", columnList = "grade"),
+		@Index(name = "idx_technicien_manager", columnList = "manager_id")})
 public class Technicien extends Employe implements Comparable<Technicien> {
 
 
+	//volatile : lu sans verrou pour faire recompter par l'équipe du manager les modifications de salaire et de grade
 	@ManyToOne
-	private Manager manager;
+	private volatile Manager manager;
 
-	private Integer grade;
+	//volatile comme le salaire : un grade modifié pendant l'ajout du technicien à l'index de son équipe est lu ou recompté
+	private volatile Integer grade;
 	
 	public Technicien() {
 
@@ -35,6 +42,10 @@ public class Technicien extends Employe implements Comparable<Technicien> {
 		return manager;
 	}
 
+	/**
+	 * @param manager le manager du technicien. Pour changer d'équipe, le technicien est retiré de l'équipe de son
+	 * manager puis ajouté à la nouvelle (Manager.retraitTechnicienEquipe et Manager.ajoutTechnicienEquipe)
+	 */
 	public void setManager(Manager manager) {
 		this.manager = manager;
 	}
@@ -55,10 +66,11 @@ public class Technicien extends Employe implements Comparable<Technicien> {
 	 * @throws TechnicienException 
 	 */
 	public void setGrade(Integer grade) throws TechnicienException {
-		if(grade <= 0 || grade > 5) {
+		if(grade <= 0 || grade > IndexEquipe.GRADE_MAX) {
 			throw new TechnicienException(TechnicienException.GRADE, this, grade);
 		}
 		this.grade = grade;
+		recompter();
 	}
 
 	@Override
@@ -66,6 +78,19 @@ public class Technicien extends Employe implements Comparable<Technicien> {
 		super.setSalaire( salaire * (1 + (double) grade / 10));
 	}
 
+	@Override
+	protected void salaireModifie() {
+		recompter();
+	}
+
+	//un manager encore à charger par Hibernate n'a pas d'index à tenir à jour
+	private void recompter() {
+		Manager m = manager;
+		if (m != null && Hibernate.isInitialized(m)) {
+			m.recompter(this);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return "Technicien{" +
@@ -74,17 +99,8 @@ public class Technicien extends Employe implements Comparable<Technicien> {
 	}
 
 	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (!(o instanceof Technicien)) return false;
-		if (!super.equals(o)) return false;
-		Technicien that = (Technicien) o;
-		return Objects.equals(grade, that.grade);
-	}
-
-	@Override
-	public int hashCode() {
-		return Objects.hash(super.hashCode(), grade);
+	protected int comparerValeurs(Employe autre) {
+		return Comparator.nullsFirst(Comparator.<Integer>naturalOrder()).compare(getGrade(), ((Technicien) autre).getGrade());
 	}
 
 	@Override
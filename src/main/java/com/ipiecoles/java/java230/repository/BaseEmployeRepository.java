@@ -4,23 +4,53 @@ import com.ipiecoles.java.java230.model.Employe;
 import org.joda.time.LocalDate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BaseEmployeRepository<T extends Employe> extends PagingAndSortingRepository<T, Long> {
+    //résultats conservés dans le cache de requêtes, invalidé dès qu'un employé est créé, modifié ou supprimé
+    String CACHE_REQUETE = "org.hibernate.cacheable";
+
+    //nombre de lignes ramenées par aller-retour par les finders stream* (curseur côté serveur, voir useCursorFetch)
+    String TAILLE_FETCH = "1000";
+
+    @QueryHints(@QueryHint(name = CACHE_REQUETE, value = "true"))
     T findByMatricule(String matricule);
 
+    @QueryHints(@QueryHint(name = CACHE_REQUETE, value = "true"))
     List<T> findByNomAndPrenom(String nom, String prenom);
 
-    @Query("select e from #{#entityName} e where lower(e.prenom) = lower(:nomOuPrenom) or lower(e.nom) = lower(:nomOuPrenom)")
+    //les recherches sans tenir compte de la casse comparent les colonnes calculées upper(nom), lower(nom) et
+    //lower(prenom) de Employe, indexées (voir Employe.nomMajuscules)
+    @Query("select e from #{#entityName} e where e.prenomMinuscules = lower(:nomOuPrenom) or e.nomMinuscules = lower(:nomOuPrenom)")
     List<T> findByNomOrPrenomAllIgnoreCase(@Param("nomOuPrenom") String nomOuPrenom);
 
-    List<T> findByNomIgnoreCase(String nom);
+    @QueryHints(@QueryHint(name = CACHE_REQUETE, value = "true"))
+    @Query("select e from #{#entityName} e where e.nomMajuscules = upper(:nom)")
+    List<T> findByNomIgnoreCase(@Param("nom") String nom);
+
+    @QueryHints(@QueryHint(name = CACHE_REQUETE, value = "true"))
+    @Query("select e from #{#entityName} e where e.nomMajuscules = upper(:nom)")
+    Page<T> findByNomIgnoreCase(@Param("nom") String nom, Pageable pageable);
+
+    //pagination par clé (keyset) : la page suivante repart du dernier élément lu au lieu d'un offset, sans requête count.
+    //Le Pageable doit toujours désigner la première page, voir CurseurKeyset
+    Slice<T> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select e from #{#entityName} e where e.nomMajuscules = upper(:nom) and e.id > :id order by e.id")
+    Slice<T> findByNomIgnoreCaseAndIdGreaterThanOrderByIdAsc(@Param("nom") String nom, @Param("id") Long id, Pageable pageable);
+
+    Slice<T> findByNomNotNullOrderByNomAscIdAsc(Pageable pageable);
 
-    Page<T> findByNomIgnoreCase(String nom, Pageable pageable);
+    @Query("select e from #{#entityName} e where e.nom > :nom or (e.nom = :nom and e.id > :id) order by e.nom, e.id")
+    Slice<T> findByNomEtIdApres(@Param("nom") String nom, @Param("id") Long id, Pageable pageable);
 
     List<T> findByDateEmbaucheBefore(LocalDate date);
 
@@ -30,4 +60,35 @@ public interface BaseEmployeRepository<T extends Employe> extends PagingAndSorti
 
     @Query(value = "SELECT * FROM Employe WHERE salaire > (SELECT avg(e2.salaire) FROM Employe e2)", nativeQuery = true)
     List<T> findEmployePlusRiches();
+
+    //variantes parcourues au fil d'un curseur JDBC forward-only au lieu d'être chargées en une liste :
+    //à appeler dans une transaction et à fermer, voir ParcoursEmployesService. Les entités ne sont en lecture seule
+    //que si cette transaction l'est : Spring Data remplace l'indice readOnly par le mode de la transaction
+    //lorsqu'il ouvre le curseur
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "GET")})
+    @Query("select e from #{#entityName} e")
+    Stream<T> streamAll();
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "GET")})
+    Stream<T> streamByDateEmbaucheBefore(LocalDate date);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "GET")})
+    Stream<T> streamByDateEmbaucheAfter(LocalDate date);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "GET")})
+    Stream<T> streamBySalaireGreaterThanOrderBySalaireDesc(Double salaire);
+
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheMode", value = "GET")})
+    @Query("select e from #{#entityName} e where e.salaire > (select avg(e2.salaire) from Employe e2)")
+    Stream<T> streamEmployePlusRiches();
 }
@@ -1,7 +1,18 @@
 package com.ipiecoles.java.java230.repository;
 
+import com.ipiecoles.java.java230.model.EmployeResume;
 import com.ipiecoles.java.java230.model.Manager;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface CommercialRepository extends BaseEmployeRepository<Manager> {
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
 
+public interface CommercialRepository extends BaseEmployeRepository<Manager> {
+    //projections pour les rapports, voir ManagerRepository.streamResumes
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select new com.ipiecoles.java.java230.model.EmployeResume(c.matricule, c.nom, c.prenom, c.salaire, c.caAnnuel) "
+            + "from Commercial c")
+    Stream<EmployeResume> streamResumes();
 }
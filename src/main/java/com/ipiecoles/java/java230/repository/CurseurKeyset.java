@@ -0,0 +1,85 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.model.Employe;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+/**
+ * Parcours paresseux d'une requête paginée par clé (keyset) : chaque page est demandée à partir du dernier
+ * élément lu, avec un Pageable toujours positionné sur la première page. Le coût d'une page est donc le même
+ * au début et à la fin du parcours, et aucune requête count n'est faite.
+ * Une page n'est chargée que lorsque la précédente a été entièrement consommée. Hors transaction, chaque page
+ * est lue dans son propre contexte de persistance, les employés déjà parcourus ne restent pas en mémoire.
+ * @param <T> le type des éléments parcourus
+ */
+public class CurseurKeyset<T> implements Iterator<T> {
+
+    private final BiFunction<T, Pageable, Slice<T>> pageSuivante;
+
+    private final Pageable premierePage;
+
+    private Iterator<T> page = Collections.emptyIterator();
+
+    private T dernier;
+
+    private boolean termine;
+
+    /**
+     * @param pageSuivante fonction qui renvoie la page suivant l'élément passé (null pour la première page)
+     * @param taillePage le nombre d'éléments par page
+     */
+    public CurseurKeyset(BiFunction<T, Pageable, Slice<T>> pageSuivante, int taillePage) {
+        this.pageSuivante = pageSuivante;
+        this.premierePage = new PageRequest(0, taillePage);
+    }
+
+    /**
+     * Parcours de tous les employés du repository par id croissant
+     */
+    public static <T extends Employe> CurseurKeyset<T> parId(BaseEmployeRepository<T> repository, int taillePage) {
+        return new CurseurKeyset<>((dernier, page) -> repository.findByIdGreaterThanOrderByIdAsc(
+                dernier == null ? Long.MIN_VALUE : dernier.getId(), page), taillePage);
+    }
+
+    /**
+     * Parcours par id croissant des employés portant le nom en paramètre, quelle que soit la casse
+     */
+    public static <T extends Employe> CurseurKeyset<T> parId(BaseEmployeRepository<T> repository, String nom, int taillePage) {
+        return new CurseurKeyset<>((dernier, page) -> repository.findByNomIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                nom, dernier == null ? Long.MIN_VALUE : dernier.getId(), page), taillePage);
+    }
+
+    /**
+     * Parcours des employés par (nom, id) croissants. Les employés sans nom ne sont pas parcourus
+     */
+    public static <T extends Employe> CurseurKeyset<T> parNom(BaseEmployeRepository<T> repository, int taillePage) {
+        return new CurseurKeyset<>((dernier, page) -> dernier == null
+                ? repository.findByNomNotNullOrderByNomAscIdAsc(page)
+                : repository.findByNomEtIdApres(dernier.getNom(), dernier.getId(), page), taillePage);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !termine) {
+            Slice<T> slice = pageSuivante.apply(dernier, premierePage);
+            page = slice.getContent().iterator();
+            termine = !slice.hasNext();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        dernier = page.next();
+        return dernier;
+    }
+}
@@ -1,6 +1,31 @@
 package com.ipiecoles.java.java230.repository;
 
 import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface EmployeRepository extends BaseEmployeRepository<Employe> {
+
+    //requêtes de chargement de StatistiquesSalaires : {nombre, somme, min, max} puis {numéro de tranche, nombre}
+    @Query("select count(e), sum(e.salaire), min(e.salaire), max(e.salaire) from Employe e where e.salaire is not null")
+    List<Object[]> calculerStatistiquesSalaires();
+
+    @Query("select floor(e.salaire / " + StatistiquesSalaires.LARGEUR_TRANCHE + "), count(e) from Employe e "
+            + "where e.salaire is not null group by floor(e.salaire / " + StatistiquesSalaires.LARGEUR_TRANCHE + ")")
+    List<Object[]> compterSalairesParTranche();
+
+    @Query("select min(e.salaire), max(e.salaire) from Employe e")
+    List<Object[]> findBornesSalaires();
+
+    @Query("select e.salaire from Employe e where e.salaire >= :min and e.salaire < :max order by e.salaire")
+    List<Double> findSalairesEntre(@Param("min") Double min, @Param("max") Double max, Pageable pageable);
+
+    //matricules déjà en BDD parmi ceux d'un morceau du fichier intégré (index unique uk_employe_matricule)
+    @Query("select e.matricule from Employe e where e.matricule in :matricules")
+    List<String> findMatriculesIn(@Param("matricules") Collection<String> matricules);
 }
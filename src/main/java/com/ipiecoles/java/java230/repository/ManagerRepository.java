@@ -1,9 +1,53 @@
 package com.ipiecoles.java.java230.repository;
 
+import com.ipiecoles.java.java230.model.EmployeResume;
 import com.ipiecoles.java.java230.model.Manager;
+import org.joda.time.LocalDate;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ManagerRepository extends BaseEmployeRepository<Manager> {
+    //les variantes WithEquipe chargent l'équipe dans la même requête (jointure), Distinct évite les doublons de managers
     @EntityGraph(attributePaths = "equipe")
     Manager findOneWithEquipeById(Long id);
+
+    @EntityGraph(attributePaths = "equipe")
+    Manager findOneWithEquipeByMatricule(String matricule);
+
+    @EntityGraph(attributePaths = "equipe")
+    List<Manager> findDistinctWithEquipeByNomAndPrenom(String nom, String prenom);
+
+    @EntityGraph(attributePaths = "equipe")
+    @Query("select distinct m from Manager m where m.nomMajuscules = upper(:nom)")
+    List<Manager> findDistinctWithEquipeByNomIgnoreCase(@Param("nom") String nom);
+
+    @EntityGraph(attributePaths = "equipe")
+    List<Manager> findDistinctWithEquipeByDateEmbaucheBefore(LocalDate date);
+
+    @EntityGraph(attributePaths = "equipe")
+    List<Manager> findDistinctWithEquipeByDateEmbaucheAfter(LocalDate date);
+
+    @EntityGraph(attributePaths = "equipe")
+    List<Manager> findDistinctWithEquipeBySalaireGreaterThanOrderBySalaireDesc(Double salaire);
+
+    @EntityGraph(attributePaths = "equipe")
+    List<Manager> findDistinctWithEquipeByMatriculeIn(Collection<String> matricules);
+
+    List<Manager> findByMatriculeIn(Collection<String> matricules);
+
+    //projections pour les rapports, sans charger d'entité ni d'équipe : à appeler dans une transaction et à fermer,
+    //voir ParcoursEmployesService.parcourirResumes
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    //size(m.equipe) serait traduit par une jointure interne : les managers sans équipe ne seraient pas renvoyés
+    @Query("select new com.ipiecoles.java.java230.model.EmployeResume(m.matricule, m.nom, m.prenom, m.salaire, count(t)) "
+            + "from Manager m left join m.equipe t group by m.id, m.matricule, m.nom, m.prenom, m.salaire")
+    Stream<EmployeResume> streamResumes();
 }
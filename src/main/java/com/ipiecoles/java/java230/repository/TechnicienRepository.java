@@ -1,10 +1,15 @@
 package com.ipiecoles.java.java230.repository;
 
+import com.ipiecoles.java.java230.model.EmployeResume;
 import com.ipiecoles.java.java230.model.Technicien;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.awt.print.Pageable;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TechnicienRepository extends BaseEmployeRepository<Technicien> {
 
@@ -12,4 +17,11 @@ public interface TechnicienRepository extends BaseEmployeRepository<Technicien>
 
     Slice<Technicien> findTop5ByGrade(Integer grade);
 
+    //projections pour les rapports, voir ManagerRepository.streamResumes
+    @QueryHints({@QueryHint(name = "org.hibernate.fetchSize", value = TAILLE_FETCH),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select new com.ipiecoles.java.java230.model.EmployeResume(t.matricule, t.nom, t.prenom, t.salaire, t.dateEmbauche, t.grade) "
+            + "from Technicien t")
+    Stream<EmployeResume> streamResumes();
+
 }
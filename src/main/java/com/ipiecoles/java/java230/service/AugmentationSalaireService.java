@@ -0,0 +1,164 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import org.hibernate.SessionFactory;
+import org.joda.time.LocalDate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Augmentations de salaire en masse : une requête UPDATE sur Employe, où est stocké le salaire, restreinte par une
+ * sous-requête sur la table de la sous-classe concernée, au lieu de charger et de modifier chaque employé. Le SQL est
+ * standard (pas de UPDATE multi-tables), il s'exécute sur MySQL comme sur H2. Le calcul est celui de
+ * Employe.augmenterSalaire (salaire * (1 + pourcentage)), augmenterManagerEtEquipe reproduit Manager.augmenterSalaire.
+ * Les modifications en attente sont écrites avant la requête et le contexte de persistance est vidé après : les
+ * employés déjà chargés doivent être relus. Les employés modifiés sont retirés du cache de second niveau, le cache de
+ * requêtes est vidé et les statistiques de salaires sont rechargées à leur prochaine utilisation.
+ */
+@Service
+public class AugmentationSalaireService {
+
+    //le coefficient 1 + pourcentage est calculé en Java, comme dans Employe.augmenterSalaire : dans 1 + ?, H2 type le
+    //paramètre d'après le littéral 1 et l'arrondirait à un entier
+    private static final String AUGMENTATION = "UPDATE Employe SET salaire = salaire * ? %s";
+
+    //nombre maximum d'identifiants par requête IN
+    private static final int TAILLE_REQUETE_IN = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    /**
+     * Méthode qui augmente le salaire d'un manager et de tous les techniciens de son équipe
+     * @param idManager l'identifiant du manager
+     * @param pourcentage l'augmentation, par exemple 0.02 pour 2%
+     * @return le nombre d'employés augmentés, 0 si le manager n'existe pas
+     */
+    @Transactional
+    public int augmenterManagerEtEquipe(Long idManager, Double pourcentage) {
+        //les techniciens rattachés au manager dans cette transaction doivent être vus par la requête
+        entityManager.flush();
+        List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList("SELECT id FROM Technicien WHERE manager_id = ?", Long.class, idManager));
+        int nbAugmentes = augmenter("WHERE id = ? AND id IN (SELECT id FROM Manager)", pourcentage, idManager);
+        if (nbAugmentes > 0) {
+            //les techniciens sont augmentés par identifiant, trouvés par l'index sur manager_id, plutôt que par une
+            //sous-requête évaluée pour chaque ligne d'Employe
+            for (int debut = 0; debut < ids.size(); debut += TAILLE_REQUETE_IN) {
+                List<Long> lot = ids.subList(debut, Math.min(ids.size(), debut + TAILLE_REQUETE_IN));
+                String parametres = String.join(", ", Collections.nCopies(lot.size(), "?"));
+                nbAugmentes += augmenter("WHERE id IN (" + parametres + ")", pourcentage, lot.toArray());
+            }
+        }
+        ids.add(idManager);
+        retirerDuCache(ids);
+        return nbAugmentes;
+    }
+
+    /**
+     * Méthode qui augmente le salaire de tous les employés
+     */
+    @Transactional
+    public int augmenterTous(Double pourcentage) {
+        int nbAugmentes = augmenter("", pourcentage);
+        retirerDuCache(null);
+        return nbAugmentes;
+    }
+
+    /**
+     * Méthode qui augmente le salaire de tous les employés d'un type
+     * @param type Manager, Technicien ou Commercial
+     */
+    @Transactional
+    public int augmenterParType(Class<? extends Employe> type, Double pourcentage) {
+        //le nom de la table est celui de la classe (PhysicalNamingStrategyStandardImpl)
+        int nbAugmentes = augmenter("WHERE id IN (SELECT id FROM " + type.getSimpleName() + ")", pourcentage);
+        retirerDuCache(null);
+        return nbAugmentes;
+    }
+
+    /**
+     * Méthode qui augmente le salaire des techniciens dont le grade est compris entre les bornes incluses
+     */
+    @Transactional
+    public int augmenterTechniciensParGrade(Integer gradeMin, Integer gradeMax, Double pourcentage) {
+        int nbAugmentes = augmenter("WHERE id IN (SELECT id FROM Technicien WHERE grade BETWEEN ? AND ?)", pourcentage, gradeMin, gradeMax);
+        retirerDuCache(null);
+        return nbAugmentes;
+    }
+
+    /**
+     * Méthode qui augmente le salaire des employés embauchés avant la date en paramètre
+     */
+    @Transactional
+    public int augmenterEmbauchesAvant(LocalDate date, Double pourcentage) {
+        int nbAugmentes = augmenter("WHERE dateEmbauche < ?", pourcentage, Date.valueOf(date.toString()));
+        retirerDuCache(null);
+        return nbAugmentes;
+    }
+
+    private int augmenter(String condition, Double pourcentage, Object... parametres) {
+        entityManager.flush();
+        List<Object> tousParametres = new ArrayList<>();
+        tousParametres.add(1 + pourcentage);
+        Collections.addAll(tousParametres, parametres);
+        int nbAugmentes = jdbcTemplate.update(String.format(AUGMENTATION, condition), tousParametres.toArray());
+        entityManager.clear();
+        return nbAugmentes;
+    }
+
+    /**
+     * Méthode qui retire les employés augmentés du cache de second niveau tout de suite, pour la suite de la transaction,
+     * et à la fin de la transaction, pour une valeur mise en cache entre temps par une autre transaction. Le cache de
+     * requêtes est vidé de la même façon : Hibernate ne l'invalide pas lors d'une requête JDBC, et il doit l'être à
+     * chaque modification d'un employé (voir BaseEmployeRepository.CACHE_REQUETE). Les statistiques de salaires sont
+     * oubliées après la validation, sans qu'un chargement puisse lire la BDD entre temps
+     * @param ids les identifiants des employés augmentés, null pour vider tout le cache des employés
+     */
+    private void retirerDuCache(List<Long> ids) {
+        Runnable retrait = () -> {
+            if (ids == null) {
+                entityManagerFactory.getCache().evict(Employe.class);
+            } else {
+                ids.forEach(id -> entityManagerFactory.getCache().evict(Employe.class, id));
+            }
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        };
+        retrait.run();
+        statistiquesSalaires.commencerModifications();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    retrait.run();
+                    if (status == STATUS_COMMITTED) {
+                        statistiquesSalaires.reinitialiser();
+                    }
+                } finally {
+                    statistiquesSalaires.terminerModifications(Collections.emptyList());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.EmployeResume;
+import com.ipiecoles.java.java230.repository.CommercialRepository;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import com.ipiecoles.java.java230.repository.TechnicienRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Parcours des finders stream* de BaseEmployeRepository sur des tables entières : la requête est ouverte dans une
+ * transaction en lecture seule, chaque employé est détaché une fois traité et le contexte de persistance est vidé
+ * régulièrement (employés chargés par les associations), de sorte que la mémoire utilisée ne dépend pas du
+ * nombre de lignes.
+ * Les rapports qui ne lisent que le nom, le prénom, le matricule, le salaire et la prime parcourent plutôt les
+ * résumés (EmployeResume) : aucune entité n'est chargée.
+ */
+@Service
+public class ParcoursEmployesService {
+
+    //nombre d'employés traités entre deux vidages du contexte de persistance
+    private static final int TAILLE_LOT = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    @Autowired
+    private TechnicienRepository technicienRepository;
+
+    @Autowired
+    private CommercialRepository commercialRepository;
+
+    /**
+     * Méthode qui applique un traitement à chaque employé renvoyé par une requête stream*
+     * @param requete la requête, par exemple () -> employeRepository.streamAll()
+     * @param traitement le traitement, qui ne doit pas conserver les employés : ils sont détachés après son appel
+     * @return le nombre d'employés traités
+     */
+    @Transactional(readOnly = true)
+    public <T extends Employe> long parcourir(Supplier<Stream<T>> requete, Consumer<? super T> traitement) {
+        long nbTraites = 0;
+        try (Stream<T> employes = requete.get()) {
+            Iterator<T> iterateur = employes.iterator();
+            while (iterateur.hasNext()) {
+                T employe = iterateur.next();
+                traitement.accept(employe);
+                entityManager.detach(employe);
+                if (++nbTraites % TAILLE_LOT == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return nbTraites;
+    }
+
+    /**
+     * Méthode qui applique un traitement au résumé de chaque employé : les managers, puis les techniciens, puis les
+     * commerciaux. Les résumés ne sont pas gérés par le contexte de persistance, il n'y a rien à détacher ni à vider
+     * @param traitement le traitement, qui peut conserver les résumés
+     * @return le nombre d'employés traités
+     */
+    @Transactional(readOnly = true)
+    public long parcourirResumes(Consumer<? super EmployeResume> traitement) {
+        return parcourirResumes(managerRepository::streamResumes, traitement)
+                + parcourirResumes(technicienRepository::streamResumes, traitement)
+                + parcourirResumes(commercialRepository::streamResumes, traitement);
+    }
+
+    private static long parcourirResumes(Supplier<Stream<EmployeResume>> requete, Consumer<? super EmployeResume> traitement) {
+        long nbTraites = 0;
+        try (Stream<EmployeResume> resumes = requete.get()) {
+            Iterator<EmployeResume> iterateur = resumes.iterator();
+            while (iterateur.hasNext()) {
+                traitement.accept(iterateur.next());
+                nbTraites++;
+            }
+        }
+        return nbTraites;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.ColonnesEmployes;
+import com.ipiecoles.java.java230.repository.BaseEmployeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Calcul des primes annuelles de tous les employés sans charger les entités : trois requêtes ne lisent que les
+ * colonnes utiles (la taille des équipes est comptée par la BDD) et remplissent un ColonnesEmployes, sur lequel les
+ * primes sont calculées en masse.
+ */
+@Service
+public class PrimesService {
+
+    private static final String MANAGERS = "SELECT e.id, e.salaire, YEAR(e.dateEmbauche), COUNT(t.id) FROM Employe e "
+            + "JOIN Manager m ON m.id = e.id LEFT JOIN Technicien t ON t.manager_id = m.id GROUP BY e.id, e.salaire, e.dateEmbauche";
+
+    private static final String TECHNICIENS = "SELECT e.id, e.salaire, YEAR(e.dateEmbauche), t.grade FROM Employe e "
+            + "JOIN Technicien t ON t.id = e.id";
+
+    private static final String COMMERCIAUX = "SELECT e.id, e.salaire, YEAR(e.dateEmbauche), c.caAnnuel FROM Employe e "
+            + "JOIN Commercial c ON c.id = e.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Méthode qui lit les données nécessaires au calcul des primes de tous les employés, dans une même transaction
+     * pour que les trois requêtes voient le même état de la BDD
+     * @return l'instantané, dont calculerPrimes() donne les primes annuelles
+     */
+    @Transactional(readOnly = true)
+    public ColonnesEmployes chargerColonnes() {
+        ColonnesEmployes.Constructeur constructeur = new ColonnesEmployes.Constructeur();
+        lire(MANAGERS, resultat -> constructeur.ajouterManager(resultat.getLong(1), colonne(resultat, 2),
+                colonne(resultat, 3), resultat.getInt(4)));
+        lire(TECHNICIENS, resultat -> constructeur.ajouterTechnicien(resultat.getLong(1), colonne(resultat, 2),
+                colonne(resultat, 3), colonne(resultat, 4)));
+        lire(COMMERCIAUX, resultat -> constructeur.ajouterCommercial(resultat.getLong(1), colonne(resultat, 2),
+                colonne(resultat, 3), colonne(resultat, 4)));
+        return constructeur.construire();
+    }
+
+    private void lire(String sql, RowCallbackHandler traitement) {
+        jdbcTemplate.query(connection -> {
+            //même lecture par blocs que les finders Stream (useCursorFetch dans l'URL de la datasource)
+            PreparedStatement requete = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            requete.setFetchSize(Integer.parseInt(BaseEmployeRepository.TAILLE_FETCH));
+            return requete;
+        }, traitement);
+    }
+
+    private static double colonne(ResultSet resultat, int index) throws SQLException {
+        double valeur = resultat.getDouble(index);
+        return resultat.wasNull() ? Double.NaN : valeur;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ipiecoles.java.java230.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Compteurs de succès et d'échecs du cache de second niveau (employés par id) et du cache de requêtes
+ * (finders de BaseEmployeRepository), tenus par Hibernate seulement si cache.statistiques.actif=true : les
+ * compteurs restent à 0 sinon, isActif() permet de le savoir
+ */
+@Service
+public class StatistiquesCacheService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistiques() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * @return true si Hibernate tient les compteurs (hibernate.generate_statistics)
+     */
+    public boolean isActif() {
+        return statistiques().isStatisticsEnabled();
+    }
+
+    public long getNbSuccesCache() {
+        return statistiques().getSecondLevelCacheHitCount();
+    }
+
+    public long getNbEchecsCache() {
+        return statistiques().getSecondLevelCacheMissCount();
+    }
+
+    public long getNbSuccesRequetes() {
+        return statistiques().getQueryCacheHitCount();
+    }
+
+    public long getNbEchecsRequetes() {
+        return statistiques().getQueryCacheMissCount();
+    }
+
+    /**
+     * Remet les compteurs à zéro
+     */
+    public void reinitialiser() {
+        statistiques().clear();
+    }
+
+    @Override
+    public String toString() {
+        Statistics statistiques = statistiques();
+        if (!statistiques.isStatisticsEnabled()) {
+            return "Statistiques du cache désactivées (cache.statistiques.actif=false)";
+        }
+        return "Cache employés : " + statistiques.getSecondLevelCacheHitCount() + " succès, "
+                + statistiques.getSecondLevelCacheMissCount() + " échecs ; cache requêtes : "
+                + statistiques.getQueryCacheHitCount() + " succès, " + statistiques.getQueryCacheMissCount() + " échecs";
+    }
+}
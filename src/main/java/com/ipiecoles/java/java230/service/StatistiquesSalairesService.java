@@ -0,0 +1,156 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.repository.BaseEmployeRepository;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistiques sur les salaires calculées à partir de StatistiquesSalaires, chargé depuis la BDD à la première
+ * utilisation puis maintenu par StatistiquesSalairesListener : la moyenne ne demande plus de parcourir la table
+ * et les centiles ne lisent que les salaires d'une tranche (parcours de l'index sur salaire).
+ */
+@Service
+public class StatistiquesSalairesService {
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private StatistiquesSalaires statistiques() {
+        StatistiquesSalaires statistiques = statistiquesSalaires;
+        if (!statistiques.isInitialisees() && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            //un employé persisté n'est inséré qu'au flush (identifiant réservé par blocs) : ses modifications
+            //doivent être signalées avant de choisir entre les statistiques partagées et celles de la transaction
+            entityManager.flush();
+        }
+        if (!statistiques.isInitialisees() && statistiques.isModificationsEnCours()) {
+            //lues dans la transaction en cours, avec ses modifications pas encore validées, et non partagées
+            StatistiquesSalaires instantane = new StatistiquesSalaires();
+            lire(instantane, TransactionDefinition.PROPAGATION_REQUIRED);
+            return instantane;
+        }
+        if (!statistiques.isInitialisees()) {
+            synchronized (this) {
+                if (!statistiques.isInitialisees()) {
+                    recharger();
+                }
+            }
+        }
+        return statistiques;
+    }
+
+    /**
+     * Méthode qui relit les statistiques en BDD, à appeler après une modification des salaires qui ne passe pas
+     * par les entités (requête de masse, SQL). L'agrégat et l'histogramme sont lus dans une même nouvelle transaction
+     * en lecture seule (appelée aussi depuis ce bean, d'où le TransactionTemplate plutôt que @Transactional), pendant
+     * laquelle aucune transaction qui modifie des salaires n'est validée : voir StatistiquesSalaires
+     * @throws IllegalStateException si la transaction en cours a modifié des salaires
+     */
+    public synchronized void recharger() {
+        statistiquesSalaires.commencerChargement();
+        try {
+            lire(statistiquesSalaires, TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } finally {
+            statistiquesSalaires.terminerChargement();
+        }
+    }
+
+    private void lire(StatistiquesSalaires statistiques, int propagation) {
+        TransactionTemplate lecture = new TransactionTemplate(transactionManager);
+        lecture.setReadOnly(true);
+        lecture.setPropagationBehavior(propagation);
+        lecture.execute(status -> {
+            Object[] agregat = employeRepository.calculerStatistiquesSalaires().get(0);
+            Map<Long, Long> tranches = new HashMap<>();
+            for (Object[] tranche : employeRepository.compterSalairesParTranche()) {
+                tranches.put(((Number) tranche[0]).longValue(), ((Number) tranche[1]).longValue());
+            }
+            statistiques.initialiser(((Number) agregat[0]).longValue(),
+                    agregat[1] == null ? 0 : ((Number) agregat[1]).doubleValue(),
+                    (Double) agregat[2], (Double) agregat[3], tranches);
+            return null;
+        });
+    }
+
+    public long getNombreSalaires() {
+        return statistiques().getNombre();
+    }
+
+    /**
+     * @return le salaire moyen des employés, null s'il n'y en a aucun
+     */
+    public Double getSalaireMoyen() {
+        return statistiques().getMoyenne();
+    }
+
+    public Double getSalaireMin() {
+        return bornes().getMin();
+    }
+
+    public Double getSalaireMax() {
+        return bornes().getMax();
+    }
+
+    private StatistiquesSalaires bornes() {
+        StatistiquesSalaires statistiques = statistiques();
+        if (!statistiques.isBornesConnues()) {
+            Object[] bornes = employeRepository.findBornesSalaires().get(0);
+            statistiques.setBornes((Double) bornes[0], (Double) bornes[1]);
+        }
+        return statistiques;
+    }
+
+    /**
+     * Méthode qui calcule un centile des salaires (plus petit salaire tel qu'au moins la proportion demandée des
+     * salaires lui soient inférieurs ou égaux)
+     * @param proportion la proportion entre 0 et 1, par exemple 0.5 pour la médiane
+     * @return le salaire correspondant, null s'il n'y a aucun salaire
+     */
+    public Double getCentile(double proportion) {
+        if (proportion < 0 || proportion > 1) {
+            throw new IllegalArgumentException("La proportion " + proportion + " doit être comprise entre 0 et 1");
+        }
+        StatistiquesSalaires statistiques = statistiques();
+        long rang = Math.max(0, (long) Math.ceil(proportion * statistiques.getNombre()) - 1);
+        StatistiquesSalaires.Tranche tranche = statistiques.trancheDuRang(rang);
+        if (tranche == null) {
+            return null;
+        }
+        List<Double> salaires = employeRepository.findSalairesEntre(tranche.getBorneInf(), tranche.getBorneSup(),
+                new PageRequest((int) tranche.getDecalage(), 1));
+        return salaires.isEmpty() ? null : salaires.get(0);
+    }
+
+    /**
+     * Méthode qui recherche les employés gagnant plus que le salaire moyen, sans recalculer la moyenne en BDD
+     * @param repository le repository du type d'employés recherché
+     * @return les employés par salaire décroissant
+     */
+    public <T extends Employe> List<T> findEmployePlusRiches(BaseEmployeRepository<T> repository) {
+        Double moyenne = getSalaireMoyen();
+        return repository.findBySalaireGreaterThanOrderBySalaireDesc(moyenne == null ? Double.MAX_VALUE : moyenne);
+    }
+}
@@ -0,0 +1,34 @@
+-- Schéma initial des entités (héritage JOINED : une table par classe, clé primaire partagée avec Employe).
+-- Une base existante sans historique Flyway est considérée comme étant à cette version (flyway.baseline-on-migrate)
+CREATE TABLE Employe (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    dateEmbauche DATE,
+    matricule VARCHAR(255),
+    nom VARCHAR(255),
+    prenom VARCHAR(255),
+    salaire DOUBLE PRECISION,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE Manager (
+    id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_manager_employe FOREIGN KEY (id) REFERENCES Employe (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE Technicien (
+    grade INTEGER,
+    id BIGINT NOT NULL,
+    manager_id BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_technicien_employe FOREIGN KEY (id) REFERENCES Employe (id),
+    CONSTRAINT fk_technicien_manager FOREIGN KEY (manager_id) REFERENCES Manager (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE Commercial (
+    caAnnuel DOUBLE PRECISION,
+    performance INTEGER,
+    id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_commercial_employe FOREIGN KEY (id) REFERENCES Employe (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,26 @@
+-- Index des finders de BaseEmployeRepository et TechnicienRepository, qui parcouraient toute la table.
+-- Échoue si des employés partagent un matricule : les doublons doivent être supprimés avant la migration.
+ALTER TABLE Employe ADD CONSTRAINT uk_employe_matricule UNIQUE (matricule);
+
+CREATE INDEX idx_employe_nom_prenom ON Employe (nom, prenom);
+
+-- findByNomIgnoreCase compare upper(nom), findByNomOrPrenomAllIgnoreCase lower(nom) et lower(prenom) : l'optimiseur
+-- (MySQL 5.7.8 et plus) utilise l'index d'une colonne générée dont l'expression est identique à celle de la requête
+ALTER TABLE Employe
+    ADD COLUMN nomMajuscules VARCHAR(255) GENERATED ALWAYS AS (UPPER(nom)) VIRTUAL,
+    ADD COLUMN nomMinuscules VARCHAR(255) GENERATED ALWAYS AS (LOWER(nom)) VIRTUAL,
+    ADD COLUMN prenomMinuscules VARCHAR(255) GENERATED ALWAYS AS (LOWER(prenom)) VIRTUAL;
+
+CREATE INDEX idx_employe_nom_majuscules ON Employe (nomMajuscules);
+
+CREATE INDEX idx_employe_nom_minuscules ON Employe (nomMinuscules);
+
+CREATE INDEX idx_employe_prenom_minuscules ON Employe (prenomMinuscules);
+
+CREATE INDEX idx_employe_date_embauche ON Employe (dateEmbauche);
+
+CREATE INDEX idx_employe_salaire ON Employe (salaire);
+
+CREATE INDEX idx_technicien_grade ON Technicien (grade);
+
+CREATE INDEX idx_technicien_manager ON Technicien (manager_id);
@@ -0,0 +1,12 @@
+-- Générateur des identifiants d'Employe (org.hibernate.id.enhanced.TableGenerator, optimiseur pooled-lo) : chaque ligne
+-- contient le prochain identifiant libre d'un segment, Hibernate en réserve increment_size à la fois. Avec l'auto-incrément
+-- (IDENTITY) chaque insertion était exécutée seule pour lire l'identifiant généré, sans lot JDBC.
+-- L'auto-incrément de Employe.id n'est plus utilisé par l'application : une insertion en SQL sans identifiant pourrait
+-- prendre un identifiant déjà réservé par Hibernate
+CREATE TABLE hibernate_sequences (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE = InnoDB;
+
+INSERT INTO hibernate_sequences (sequence_name, next_val) SELECT 'Employe', COALESCE(MAX(id), 0) + 1 FROM Employe;
@@ -0,0 +1,423 @@
+package com.ipiecoles.java.java230;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.ipiecoles.java.java230.batch.EmployeBatchWriter;
+import com.ipiecoles.java.java230.batch.IndexManagers;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class MyRunnerTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    private ManagerRepository managerRepository;
+
+    private EmployeRepository employeRepository;
+
+    private ListAppender<ILoggingEvent> journal;
+
+    @Before
+    public void setUp() {
+        managerRepository = Mockito.mock(ManagerRepository.class);
+        employeRepository = Mockito.mock(EmployeRepository.class);
+        journal = new ListAppender<>();
+        journal.start();
+        ((Logger) LoggerFactory.getLogger(MyRunner.class)).addAppender(journal);
+    }
+
+    @After
+    public void tearDown() {
+        ((Logger) LoggerFactory.getLogger(MyRunner.class)).detachAppender(journal);
+    }
+
+    private MyRunner runner(int parallelisme) {
+        IndexManagers indexManagers = new IndexManagers();
+        ReflectionTestUtils.setField(indexManagers, "managerRepository", managerRepository);
+        MyRunner myRunner = new MyRunner();
+        ReflectionTestUtils.setField(myRunner, "indexManagers", indexManagers);
+        ReflectionTestUtils.setField(myRunner, "employeRepository", employeRepository);
+        ReflectionTestUtils.setField(myRunner, "tailleFenetre", 2);
+        ReflectionTestUtils.setField(myRunner, "parallelisme", parallelisme);
+        ReflectionTestUtils.setField(myRunner, "tailleMorceau", 10000);
+        ReflectionTestUtils.setField(myRunner, "lignesAttenteManager", 10000);
+        ReflectionTestUtils.setField(myRunner, "tailleSegment", 1024 * 1024);
+        return myRunner;
+    }
+
+    private Path fichier(String... lignes) throws IOException {
+        Path fichier = dossier.newFile().toPath();
+        Files.write(fichier, (String.join("\n", lignes) + "\n").getBytes(StandardCharsets.UTF_8));
+        return fichier;
+    }
+
+    /**
+     * @param bdd les employés enregistrés par matricule : un matricule écrit deux fois par
+     *            {@link EmployeBatchWriter#ecrire} est un doublon, {@link EmployeBatchWriter#ecrireDelta} le remplace
+     * @param doublons les matricules écrits alors qu'ils étaient déjà en BDD
+     * @param fenetresAvantArret le nombre de fenêtres écrites avant l'arrêt, -1 pour ne pas s'arrêter
+     * @param arretApresValidation true pour s'arrêter juste après avoir validé la fenêtre suivante, false juste avant
+     */
+    private MyRunner runnerAvecReprise(int parallelisme, Map<String, Employe> bdd, List<String> doublons,
+                                       int fenetresAvantArret, boolean arretApresValidation) {
+        EmployeBatchWriter employeBatchWriter = Mockito.mock(EmployeBatchWriter.class);
+        int[] nbFenetres = {0};
+        for (boolean remplacer : new boolean[]{false, true}) {
+            Answer<Void> ecriture = invocation -> {
+                List<Employe> employes = invocation.getArgument(0);
+                boolean arret = nbFenetres[0]++ == fenetresAvantArret;
+                if (arret && !arretApresValidation) {
+                    throw new IllegalStateException("arrêt");
+                }
+                for (Employe employe : employes) {
+                    if (bdd.put(employe.getMatricule(), employe) != null && !remplacer) {
+                        doublons.add(employe.getMatricule());
+                    }
+                }
+                if (arret) {
+                    throw new IllegalStateException("arrêt");
+                }
+                return null;
+            };
+            if (remplacer) {
+                Mockito.doAnswer(ecriture).when(employeBatchWriter).ecrireDelta(Mockito.anyList());
+            } else {
+                Mockito.doAnswer(ecriture).when(employeBatchWriter).ecrire(Mockito.anyList());
+            }
+        }
+        //les managers enregistrés avant le point de reprise sont rechargés depuis la BDD
+        Mockito.when(managerRepository.findByMatriculeIn(Mockito.anyCollection())).thenAnswer(invocation -> {
+            List<Manager> managers = new ArrayList<>();
+            for (Object matricule : (Iterable<?>) invocation.getArgument(0)) {
+                if (bdd.get(matricule) instanceof Manager) {
+                    managers.add((Manager) bdd.get(matricule));
+                }
+            }
+            return managers;
+        });
+        enregistresEnBdd(bdd.keySet());
+        MyRunner myRunner = runner(parallelisme);
+        ReflectionTestUtils.setField(myRunner, "employeBatchWriter", employeBatchWriter);
+        ReflectionTestUtils.setField(myRunner, "ecritureBdd", true);
+        ReflectionTestUtils.setField(myRunner, "repriseActive", true);
+        ReflectionTestUtils.setField(myRunner, "fichierReprise", dossier.getRoot().toPath().resolve("employes.reprise").toString());
+        ReflectionTestUtils.setField(myRunner, "dateReference", "");
+        return myRunner;
+    }
+
+    /**
+     * @param matricules les matricules des employés en BDD, cherchés par le runner avant d'intégrer chaque morceau
+     */
+    private void enregistresEnBdd(Set<String> matricules) {
+        Mockito.when(employeRepository.findMatriculesIn(Mockito.anyCollection())).thenAnswer(invocation -> {
+            List<String> trouves = new ArrayList<>();
+            for (Object matricule : (Iterable<?>) invocation.getArgument(0)) {
+                if (matricules.contains(matricule)) {
+                    trouves.add((String) matricule);
+                }
+            }
+            return trouves;
+        });
+    }
+
+    private List<String> lignesEnErreur() {
+        return journal.list.stream().filter(evenement -> evenement.getLevel() == Level.ERROR)
+                .map(evenement -> evenement.getFormattedMessage().split(" ")[1])
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testReadFileParFenetresSansArreterLeBatch() {
+        for (int parallelisme : new int[]{1, 2}) {
+            //Given
+            journal.list.clear();
+            List<List<String>> fenetres = new ArrayList<>();
+
+            //When
+            long nbLignes = runner(parallelisme).readFile("employes-fenetres.csv", fenetre ->
+                    fenetres.add(fenetre.stream().map(Employe::getMatricule).collect(Collectors.toList())));
+
+            //Then
+            Assertions.assertThat(nbLignes).isEqualTo(7);
+            //fenêtres d'au plus batch.taille-fenetre (2) employés, dans l'ordre du fichier
+            Assertions.assertThat(fenetres).as("parallelisme=" + parallelisme)
+                    .containsExactly(Arrays.asList("M00001", "T00002"), Arrays.asList("C00003", "T00005"), Collections.singletonList("C00006"));
+            //une ligne vide est une erreur de sa ligne, comme un type inconnu : la suite du fichier est intégrée
+            Assertions.assertThat(lignesEnErreur()).as("parallelisme=" + parallelisme).containsExactly("3", "5");
+            Assertions.assertThat(journal.list).extracting(ILoggingEvent::getFormattedMessage)
+                    .contains("Ligne 3 : Ligne vide => ", "7 lignes lues");
+        }
+    }
+
+    @Test
+    public void testReadFileListeEtFichierAbsent() {
+        //Given
+        MyRunner myRunner = runner(1);
+
+        //When
+        List<Employe> employes = myRunner.readFile("employes-fenetres.csv");
+        List<Employe> absent = myRunner.readFile("absent.csv");
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("M00001", "T00002", "C00003", "T00005", "C00006");
+        Assertions.assertThat(((Technicien) employes.get(3)).getManager()).isSameAs(employes.get(0));
+        Assertions.assertThat(absent).isEmpty();
+        Assertions.assertThat(journal.list).extracting(ILoggingEvent::getFormattedMessage)
+                .contains("Problème dans l'ouverture du fichier absent.csv");
+    }
+
+    @Test
+    public void testManagerPlusLoinDansLeFichier() throws IOException {
+        //Given
+        Path fichier = fichier(
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00002",
+                "C00003,aubert,michel,05/09/2018,2200.5,150000,100",
+                "XXXXXX,durand,jacques,04/06/2013,1200.5",
+                "M00002,durand,jacques,04/06/2013,1200.5",
+                "T00004,dupont,pierre,12/03/2003,1700.5,5,M09999",
+                "C00005,aubert,michel,05/09/2018,2200.5,150000",
+                "T00006,dupont,pierre,12/03/2003,1700.5,5,M00002");
+
+        for (int parallelisme : new int[]{1, 2}) {
+            journal.list.clear();
+            List<Employe> employes = new ArrayList<>();
+
+            //When
+            long nbLignes = runner(parallelisme).readMappedFile(fichier, employes::addAll);
+
+            //Then
+            Assertions.assertThat(nbLignes).isEqualTo(7);
+            //le technicien en attente est écrit juste après son manager
+            Assertions.assertThat(employes).extracting(Employe::getMatricule).as("parallelisme=" + parallelisme)
+                    .containsExactly("C00003", "M00002", "T00001", "T00006");
+            Assertions.assertThat(((Technicien) employes.get(2)).getManager()).isSameAs(employes.get(1));
+            //les erreurs sont affichées dès leur rejet, le technicien sans manager à la fin du fichier
+            Assertions.assertThat(lignesEnErreur()).as("parallelisme=" + parallelisme).containsExactly("3", "6", "5");
+        }
+    }
+
+    @Test
+    public void testTechnicienRejeteSiManagerTropLoin() throws IOException {
+        //Given
+        Path fichier = fichier(
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00004",
+                "C00002,aubert,michel,05/09/2018,2200.5,150000,100",
+                "C00003,aubert,michel,05/09/2018,2200.5,150000,100",
+                "M00004,durand,jacques,04/06/2013,1200.5",
+                "T00005,dupont,pierre,12/03/2003,1700.5,5,M00007",
+                "C00006,aubert,michel,05/09/2018,2200.5,150000",
+                "M00007,durand,jacques,04/06/2013,1200.5");
+
+        for (int parallelisme : new int[]{1, 2}) {
+            journal.list.clear();
+            MyRunner myRunner = runner(parallelisme);
+            ReflectionTestUtils.setField(myRunner, "lignesAttenteManager", 2);
+            List<Employe> employes = new ArrayList<>();
+
+            //When
+            myRunner.readMappedFile(fichier, employes::addAll);
+
+            //Then
+            //le manager de T00001 est 3 lignes plus loin : T00001 est rejeté avant la lecture de M00004
+            Assertions.assertThat(employes).extracting(Employe::getMatricule).as("parallelisme=" + parallelisme)
+                    .containsExactly("C00002", "C00003", "M00004", "M00007", "T00005");
+            Assertions.assertThat(lignesEnErreur()).as("parallelisme=" + parallelisme).containsExactly("1", "6");
+            Assertions.assertThat(journal.list).extracting(ILoggingEvent::getFormattedMessage)
+                    .anySatisfy(message -> Assertions.assertThat(message)
+                            .contains("Le manager de matricule M00004 n'a pas été trouvé en BDD ou dans les 2 lignes suivantes"));
+        }
+    }
+
+    @Test
+    public void testManagersEnBddChargesParMorceau() throws IOException {
+        //Given
+        Manager enBdd = new Manager("durand", "jacques", "M00007", new LocalDate(2013, 6, 4), 1200.5, new HashSet<>());
+        Mockito.when(managerRepository.findByMatriculeIn(Mockito.anyCollection()))
+                .thenReturn(Collections.singletonList(enBdd));
+        Path fichier = fichier(
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00007",
+                "M00002,durand,jacques,04/06/2013,1200.5",
+                "T00003,dupont,pierre,12/03/2003,1700.5,5,M00002",
+                "T00004,dupont,pierre,12/03/2003,1700.5,5,M00007");
+        List<Employe> employes = new ArrayList<>();
+
+        //When
+        runner(1).readMappedFile(fichier, employes::addAll);
+
+        //Then
+        Assertions.assertThat(employes).extracting(Employe::getMatricule).containsExactly("T00001", "M00002", "T00003", "T00004");
+        Assertions.assertThat(((Technicien) employes.get(0)).getManager()).isSameAs(enBdd);
+        Assertions.assertThat(((Technicien) employes.get(3)).getManager()).isSameAs(enBdd);
+        //une seule requête pour le morceau, aucune pour les techniciens en attente
+        Mockito.verify(managerRepository, Mockito.times(1)).findByMatriculeIn(Mockito.anyCollection());
+        Assertions.assertThat(lignesEnErreur()).isEmpty();
+    }
+
+    @Test
+    public void testMorceauxDeTailleMorceauLignesEnParallele() throws IOException {
+        //Given
+        List<String> lignes = new ArrayList<>();
+        for (int i = 1; i <= 9; i++) {
+            lignes.add(String.format("C%05d,aubert,michel,05/09/2018,2200.5,150000,100", i));
+        }
+        Path fichier = fichier(lignes.toArray(new String[0]));
+        enregistresEnBdd(Collections.emptySet());
+        MyRunner myRunner = runner(2);
+        ReflectionTestUtils.setField(myRunner, "ecritureBdd", true);
+        ReflectionTestUtils.setField(myRunner, "tailleMorceau", 2);
+        List<Employe> employes = new ArrayList<>();
+
+        //When
+        myRunner.readMappedFile(fichier, employes::addAll);
+
+        //Then
+        //une recherche des matricules en BDD par morceau : le segment est lu par morceaux de 2 lignes au plus
+        ArgumentCaptor<Collection<String>> morceaux = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(employeRepository, Mockito.times(5)).findMatriculesIn(morceaux.capture());
+        Assertions.assertThat(morceaux.getAllValues()).allMatch(morceau -> morceau.size() <= 2);
+        Assertions.assertThat(employes).hasSize(9);
+    }
+
+    @Test
+    public void testUtf8InvalideSansArreterLeBatch() throws IOException {
+        //Given
+        Path fichier = dossier.newFile().toPath();
+        Files.write(fichier, "M00002,durand,jacques,04/06/2013,1200.5\nC00003,aub\u00e9rt".getBytes(StandardCharsets.ISO_8859_1));
+
+        for (int parallelisme : new int[]{1, 2}) {
+            journal.list.clear();
+
+            //When
+            runner(parallelisme).readMappedFile(fichier, employes -> { });
+
+            //Then
+            Assertions.assertThat(journal.list).extracting(ILoggingEvent::getFormattedMessage).as("parallelisme=" + parallelisme)
+                    .anySatisfy(message -> Assertions.assertThat(message).startsWith("Problème dans l'ouverture du fichier"));
+        }
+    }
+
+    @Test
+    public void testRepriseApresArretSansDoublonNiOubli() throws Exception {
+        //Given
+        Path fichier = fichier(
+                "T00001,dupont,pierre,12/03/2003,1700.5,5,M00005",
+                "C00002,aubert,michel,05/09/2018,2200.5,150000,100",
+                "C00003,aubert,michel,05/09/2018,2200.5,150000,100",
+                "C00004,aubert,michel,05/09/2018,2200.5,150000,100",
+                "M00005,durand,jacques,04/06/2013,1200.5",
+                "C00006,aubert,michel,05/09/2018,2200.5,150000,100",
+                "T00007,dupont,pierre,12/03/2003,1700.5,5,M00010",
+                "C00008,aubert,michel,05/09/2018,2200.5,150000,100",
+                "T00009,dupont,pierre,12/03/2003,1700.5,5,M00005",
+                "M00010,durand,jacques,04/06/2013,1200.5",
+                "C00011,aubert,michel,05/09/2018,2200.5,150000,100");
+        String reprise = dossier.getRoot().toPath().resolve("employes.reprise").toString();
+
+        for (int parallelisme : new int[]{1, 2}) {
+            for (int arret = 0; arret < 6; arret++) {
+                int fenetresAvantArret = arret;
+                for (boolean arretApresValidation : new boolean[]{false, true}) {
+                    String cas = "parallelisme=" + parallelisme + ", arrêt après " + fenetresAvantArret + " fenêtres"
+                            + (arretApresValidation ? " validées" : "");
+                    Map<String, Employe> bdd = new LinkedHashMap<>();
+                    List<String> doublons = new ArrayList<>();
+                    Assertions.assertThatThrownBy(() -> runnerAvecReprise(parallelisme, bdd, doublons, fenetresAvantArret,
+                            arretApresValidation).run(fichier.toString())).as(cas).hasMessage("arrêt");
+
+                    //la reprise s'arrête à son tour après une fenêtre validée
+                    try {
+                        runnerAvecReprise(parallelisme, bdd, doublons, 0, true).run("--resume", fichier.toString());
+                    } catch (IllegalStateException e) {
+                        Assertions.assertThat(e).hasMessage("arrêt");
+                    }
+
+                    //When
+                    runnerAvecReprise(parallelisme, bdd, doublons, -1, false).run("--resume", fichier.toString());
+
+                    //Then
+                    Assertions.assertThat(doublons).as(cas).isEmpty();
+                    Assertions.assertThat(bdd.keySet()).as(cas).containsExactlyInAnyOrder("T00001", "C00002", "C00003",
+                            "C00004", "M00005", "C00006", "T00007", "C00008", "T00009", "M00010", "C00011");
+                    Assertions.assertThat(((Technicien) bdd.get("T00001")).getManager().getMatricule()).as(cas).isEqualTo("M00005");
+                    Assertions.assertThat(((Technicien) bdd.get("T00007")).getManager().getMatricule()).as(cas).isEqualTo("M00010");
+                    Assertions.assertThat(((Technicien) bdd.get("T00009")).getManager().getMatricule()).as(cas).isEqualTo("M00005");
+                    Assertions.assertThat(Paths.get(reprise)).as(cas).doesNotExist();
+                    Assertions.assertThat(dossier.getRoot().list()).as(cas).allMatch(nom -> !nom.startsWith("employes.reprise"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatriculesEnDoubleRejetesSansArreterLeBatch() throws IOException {
+        //Given
+        Path fichier = fichier(
+                "C00001,aubert,michel,05/09/2018,2200.5,150000,100",
+                "C00002,aubert,michel,05/09/2018,2200.5,150000,100",
+                "T00003,dupont,pierre,12/03/2003,1700.5,5,M00005",
+                "C00001,martin,marie,05/09/2018,2200.5,150000,100",
+                "M00005,durand,jacques,04/06/2013,1200.5",
+                "T00003,dupont,pierre,12/03/2003,1700.5,5,M00005",
+                "C00007,aubert,michel,05/09/2018,2200.5,150000,100",
+                "C00001,aubert,michel,05/09/2018,2200.5,150000,100");
+
+        for (int parallelisme : new int[]{1, 2}) {
+            journal.list.clear();
+            //C00002 a été intégré par un import précédent
+            Set<String> bdd = new HashSet<>(Collections.singleton("C00002"));
+            enregistresEnBdd(bdd);
+            List<String> ecrits = new ArrayList<>();
+            MyRunner myRunner = runner(parallelisme);
+            ReflectionTestUtils.setField(myRunner, "ecritureBdd", true);
+            //un morceau de 2 lignes : les doublons d'employés déjà écrits sont trouvés en BDD
+            ReflectionTestUtils.setField(myRunner, "tailleMorceau", 2);
+
+            //When
+            myRunner.readMappedFile(fichier, employes -> employes.forEach(employe -> {
+                ecrits.add(employe.getMatricule());
+                bdd.add(employe.getMatricule());
+            }));
+
+            //Then
+            Assertions.assertThat(ecrits).as("parallelisme=" + parallelisme).containsExactly("C00001", "M00005", "T00003", "C00007");
+            Assertions.assertThat(lignesEnErreur()).as("parallelisme=" + parallelisme).containsExactly("2", "4", "6", "8");
+            Assertions.assertThat(journal.list).extracting(ILoggingEvent::getFormattedMessage)
+                    .anySatisfy(message -> Assertions.assertThat(message).contains("Un employé de matricule C00002 existe déjà en BDD"))
+                    .anySatisfy(message -> Assertions.assertThat(message).contains("Le matricule T00003 est déjà présent dans le fichier"));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CurseurChampsTest {
+
+    private final CurseurChamps curseur = new CurseurChamps();
+
+    @Test
+    public void testNbChampsIdentiqueASplit() {
+        String[] lignes = {"", ",", ",,", "M12345", "M12345,durand,jacques,", "M12345,durand,jacques,,,",
+                ",durand", "C12345,aubert,michel,05/09/2018,2200.5,150000.0,100,dfgdfg,dfgdfg", "a,,b"};
+        for (String ligne : lignes) {
+            String[] attendus = ligne.split(",");
+            curseur.positionner(ligne);
+            Assertions.assertThat(curseur.nbChamps()).as(ligne).isEqualTo(attendus.length);
+            for (int i = 0; i < attendus.length; i++) {
+                Assertions.assertThat(curseur.texte(i)).as(ligne).isEqualTo(attendus[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testLireDecimalIdentiqueAParseDouble() {
+        //Given
+        Random random = new Random(42);
+        String[] valeurs = new String[1000];
+        for (int i = 0; i < valeurs.length; i++) {
+            valeurs[i] = random.nextInt(1_000_000) + (i % 3 == 0 ? "" : "." + random.nextInt(i % 3 == 1 ? 10 : 100));
+        }
+
+        for (String valeur : valeurs) {
+            //When
+            curseur.positionner("M12345," + valeur);
+
+            //Then
+            Assertions.assertThat(curseur.estDecimal(1)).as(valeur).isTrue();
+            Assertions.assertThat(curseur.lireDecimal(1)).as(valeur).isEqualTo(Double.parseDouble(valeur));
+        }
+    }
+
+    @Test
+    public void testEntier() {
+        String[] valeurs = {"5", "+5", "-1", "05", "0", "2147483647", "-2147483648", "2147483648", "X", "", "-", "5.0"};
+        for (String valeur : valeurs) {
+            curseur.positionner("T12345," + valeur + ",M12345");
+            boolean attendu;
+            try {
+                int entier = Integer.parseInt(valeur);
+                attendu = true;
+                Assertions.assertThat(curseur.lireEntier(1)).as(valeur).isEqualTo(entier);
+            } catch (NumberFormatException e) {
+                attendu = false;
+            }
+            Assertions.assertThat(curseur.estEntier(1)).as(valeur).isEqualTo(attendu);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Test;
+
+public class DateEmbaucheParserTest {
+
+    private final DateTimeFormatter formatter = DateTimeFormat.forPattern(DateEmbaucheParser.FORMAT);
+
+    private LocalDate parserJoda(String valeur) {
+        try {
+            return formatter.parseLocalDate(valeur);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Test
+    public void testIdentiqueAJoda() {
+        String[] valeurs = {"04/06/2013", "12/03/2003", "04/99/2013", "05/09/XX", "", "/", "//", "4/6/2013", "04/06/13",
+                "29/02/2000", "29/02/1900", "29/02/2016", "29/02/2017", "31/04/2013", "31/12/2013", "00/01/2013",
+                "01/00/2013", "01/13/2013", "001/01/2013", "01/001/2013", "01/01/02013", "01/01/-2013", "01/01/+2013",
+                "01/01/0", "01/01/123456789", "01/01/1234567890", "01/01/999999999", "04/06/2013 ", " 04/06/2013",
+                "04-06-2013", "04/06/2013/", "+4/06/2013", "04/06/20a3"};
+        for (String valeur : valeurs) {
+            Assertions.assertThat(DateEmbaucheParser.parser(valeur)).as(valeur).isEqualTo(parserJoda(valeur));
+        }
+    }
+
+    @Test
+    public void testToutesLesDatesDeDeuxAnnees() {
+        for (int annee : new int[]{2000, 2100}) {
+            for (int mois = 0; mois <= 13; mois++) {
+                for (int jour = 0; jour <= 32; jour++) {
+                    String valeur = String.format("%02d/%02d/%d", jour, mois, annee);
+                    Assertions.assertThat(DateEmbaucheParser.parser(valeur)).as(valeur).isEqualTo(parserJoda(valeur));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCache() {
+        //Given
+        String ligne = "M12345,durand,jacques,04/06/2013,1200.5";
+
+        //When
+        LocalDate date1 = DateEmbaucheParser.parser(ligne, 22, 32);
+        LocalDate date2 = DateEmbaucheParser.parser("04/06/2013");
+
+        //Then
+        Assertions.assertThat(date1).isEqualTo(new LocalDate(2013, 6, 4));
+        Assertions.assertThat(date2).isSameAs(date1);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({EmployeBatchWriter.class, StatistiquesSalaires.class})
+public class EmployeBatchWriterTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private EmployeBatchWriter employeBatchWriter;
+
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    private static Commercial commercial(String matricule, double salaire) {
+        return new Commercial("martin", "marie", matricule, new LocalDate(2012, 5, 2), salaire, 25000d);
+    }
+
+    @Test
+    public void testEcrireParLotsJdbc() throws TechnicienException {
+        //Given
+        List<Employe> fenetre = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Manager manager = new Manager("durand", "jacques", String.format("M%05d", i), new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+            fenetre.add(manager);
+            for (int j = 1; j <= 8; j++) {
+                Technicien technicien = new Technicien("dupont", "pierre", String.format("T%05d", i * 10 + j), new LocalDate(2010, 3, 12), 1500d, 3);
+                technicien.setManager(manager);
+                fenetre.add(technicien);
+            }
+            fenetre.add(commercial(String.format("C%05d", i), 2000d));
+            fenetre.add(commercial(String.format("C%05d", 100 + i), 2000d));
+            fenetre.add(commercial(String.format("C%05d", 200 + i), 2000d));
+        }
+
+        //When
+        employeBatchWriter.ecrire(fenetre);
+
+        //Then
+        //120 employés par lots de 50 (batch.taille-lot) : un lot JDBC par table au lieu d'une insertion par employé
+        ArgumentCaptor<String> inserts = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> lots = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(jdbcTemplate, Mockito.times(12)).batchUpdate(inserts.capture(), lots.capture());
+        Assertions.assertThat(lots.getAllValues()).extracting(List::size).containsExactly(50, 5, 33, 12, 50, 4, 34, 12, 20, 1, 13, 6);
+        Assertions.assertThat(inserts.getValue()).startsWith("INSERT INTO Commercial");
+        Assertions.assertThat(employeRepository.count()).isEqualTo(120);
+        Assertions.assertThat(fenetre).extracting(Employe::getId).doesNotContainNull().doesNotHaveDuplicates();
+        Technicien technicien = (Technicien) employeRepository.findByMatricule("T00098");
+        Assertions.assertThat(technicien.getId()).isEqualTo(fenetre.get(116).getId());
+        Assertions.assertThat(technicien.getGrade()).isEqualTo(3);
+        Assertions.assertThat(technicien.getManager().getMatricule()).isEqualTo("M00009");
+        Commercial commercial = (Commercial) employeRepository.findByMatricule("C00209");
+        Assertions.assertThat(commercial.getCaAnnuel()).isEqualTo(25000d);
+        Assertions.assertThat(commercial.getSalaire()).isEqualTo(2000d);
+        Assertions.assertThat(commercial.getDateEmbauche()).isEqualTo(new LocalDate(2012, 5, 2));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testEcrireAjouteLesSalairesAuxStatistiques() {
+        //Given
+        statistiquesSalaires.initialiser(0, 0, null, null, new HashMap<>());
+        List<Employe> fenetre = new ArrayList<>();
+        fenetre.add(commercial("C00001", 2000d));
+        fenetre.add(commercial("C00002", 3000d));
+
+        try {
+            //When
+            employeBatchWriter.ecrire(fenetre);
+
+            //Then
+            Assertions.assertThat(statistiquesSalaires.getNombre()).isEqualTo(2);
+            Assertions.assertThat(statistiquesSalaires.getSomme()).isEqualTo(5000d);
+            Assertions.assertThat(statistiquesSalaires.getMax()).isEqualTo(3000d);
+        } finally {
+            employeRepository.deleteAll();
+            statistiquesSalaires.reinitialiser();
+        }
+    }
+
+    @Test
+    public void testEcrireDeltaUneRequeteParLot() throws TechnicienException {
+        //Given
+        Commercial commercial = commercial("C00001", 2000d);
+        Manager manager = new Manager("durand", "jacques", "M00002", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien technicien = new Technicien("dupont", "pierre", "T00003", new LocalDate(2010, 3, 12), 1500d, 3);
+        technicien.setManager(manager);
+        entityManager.persist(commercial);
+        entityManager.persist(manager);
+        entityManager.persist(technicien);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Employe> fenetre = new ArrayList<>();
+        fenetre.add(commercial("C00001", 2100d));
+        //le manager M00002 est devenu commercial
+        fenetre.add(commercial("M00002", 3000d));
+        fenetre.add(commercial("C01000", 1500d));
+        fenetre.add(commercial("C01000", 1600d));
+        for (int i = 1; i <= 116; i++) {
+            fenetre.add(commercial(String.format("C%05d", 1000 + i), 1500d));
+        }
+        fenetre.add(commercial("C01000", 1700d));
+        Statistics statistiques = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+
+        //When
+        employeBatchWriter.ecrireDelta(fenetre);
+
+        //Then
+        //121 employés par lots de 50 (batch.taille-lot) : 3 requêtes IN au lieu d'une par employé
+        Assertions.assertThat(statistiques.getQueryExecutionCount()).isEqualTo(3);
+        Assertions.assertThat(employeRepository.count()).isEqualTo(120);
+        Employe modifie = employeRepository.findByMatricule("C00001");
+        Assertions.assertThat(modifie.getId()).isEqualTo(commercial.getId());
+        Assertions.assertThat(modifie.getSalaire()).isEqualTo(2100d);
+        Assertions.assertThat(employeRepository.findByMatricule("M00002")).isInstanceOf(Commercial.class);
+        Assertions.assertThat(((Technicien) employeRepository.findByMatricule("T00003")).getManager()).isNull();
+        //un matricule en double, dans le même lot ou non, remplace l'employé écrit
+        Assertions.assertThat(employeRepository.findByMatricule("C01000").getSalaire()).isEqualTo(1700d);
+    }
+}
@@ -0,0 +1,141 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FichierMappeTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    private Path fichier(String contenu) throws IOException {
+        Path fichier = dossier.newFile().toPath();
+        Files.write(fichier, contenu.getBytes(StandardCharsets.UTF_8));
+        return fichier;
+    }
+
+    private static String texte(ByteBuffer contenu) {
+        byte[] octets = new byte[contenu.remaining()];
+        contenu.duplicate().get(octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSegmentCoupeSurLaDerniereFinDeLigne() throws IOException {
+        //Given
+        try (FichierMappe fichier = new FichierMappe(fichier("aaa\nbbb\nccc\n"), 10)) {
+
+            //When
+            FichierMappe.Segment premier = fichier.segment(0);
+            FichierMappe.Segment second = fichier.segment(premier.fin());
+
+            //Then
+            Assertions.assertThat(texte(premier.contenu())).isEqualTo("aaa\nbbb\n");
+            Assertions.assertThat(premier.fin()).isEqualTo(8);
+            Assertions.assertThat(second.debut()).isEqualTo(8);
+            Assertions.assertThat(texte(second.contenu())).isEqualTo("ccc\n");
+            Assertions.assertThat(second.fin()).isEqualTo(fichier.taille());
+        }
+    }
+
+    @Test
+    public void testSegmentDepuisUnePositionDeReprise() throws IOException {
+        //Given
+        try (FichierMappe fichier = new FichierMappe(fichier("aaa\nbbb\nccc"), 1024)) {
+
+            //When
+            FichierMappe.Segment segment = fichier.segment(4);
+            LecteurLignes lecteur = new LecteurLignes(segment.contenu());
+
+            //Then
+            //la dernière ligne, sans fin de ligne, termine le segment
+            Assertions.assertThat(lecteur.suivante()).isEqualTo("bbb");
+            Assertions.assertThat(segment.debut() + lecteur.position()).isEqualTo(8);
+            Assertions.assertThat(lecteur.suivante()).isEqualTo("ccc");
+            Assertions.assertThat(segment.debut() + lecteur.position()).isEqualTo(fichier.taille());
+            Assertions.assertThat(lecteur.suivante()).isNull();
+        }
+    }
+
+    @Test
+    public void testLignePlusLongueQuUnSegment() throws IOException {
+        //Given
+        try (FichierMappe fichier = new FichierMappe(fichier("aaa\nbbbbbbbbbbbb\nccc\n"), 10)) {
+            long debut = fichier.segment(0).fin();
+
+            //When/Then
+            Assertions.assertThatThrownBy(() -> fichier.segment(debut)).isInstanceOf(IOException.class)
+                    .hasMessageContaining("octet 4");
+        }
+    }
+
+    @Test
+    public void testSegmentNeCoupePasUnCrLf() throws IOException {
+        //Given
+        //les 6 premiers octets se terminent par le \r de "cd\r\n"
+        try (FichierMappe fichier = new FichierMappe(fichier("ab\rcd\r\nef\n"), 6)) {
+
+            //When
+            FichierMappe.Segment premier = fichier.segment(0);
+            FichierMappe.Segment second = fichier.segment(premier.fin());
+
+            //Then
+            Assertions.assertThat(texte(premier.contenu())).isEqualTo("ab\r");
+            Assertions.assertThat(texte(second.contenu())).isEqualTo("cd\r\n");
+        }
+    }
+
+    @Test
+    public void testPartiesDeNLignes() throws IOException {
+        //Given
+        String contenu = "l1\nligne2\nl3\nligne4\nl5\nl6";
+        try (FichierMappe fichier = new FichierMappe(fichier(contenu), 1024)) {
+            FichierMappe.Segment segment = fichier.segment(0);
+
+            //When
+            List<String> parties = parties(segment, 2);
+            List<String> uneSeule = parties(segment, 1000);
+
+            //Then
+            Assertions.assertThat(parties).containsExactly("l1\nligne2\n", "l3\nligne4\n", "l5\nl6");
+            Assertions.assertThat(uneSeule).containsExactly(contenu);
+            Assertions.assertThat(texte(segment.partie(segment.fin(), 2))).isEmpty();
+        }
+    }
+
+    @Test
+    public void testPartieNeCoupePasUnCrLf() throws IOException {
+        //Given
+        try (FichierMappe fichier = new FichierMappe(fichier("abcd\r\nef\rgh\nabcde\rfgh\r"), 1024)) {
+            FichierMappe.Segment segment = fichier.segment(0);
+
+            //When
+            List<String> crLf = parties(segment, 1);
+
+            //Then
+            //\r\n termine une seule ligne, un \r seul aussi, y compris en fin de segment
+            Assertions.assertThat(crLf).containsExactly("abcd\r\n", "ef\r", "gh\n", "abcde\r", "fgh\r");
+        }
+    }
+
+    private static List<String> parties(FichierMappe.Segment segment, int nbLignes) {
+        List<String> parties = new ArrayList<>();
+        long debut = segment.debut();
+        while (debut < segment.fin()) {
+            ByteBuffer partie = segment.partie(debut, nbLignes);
+            parties.add(texte(partie));
+            debut += partie.limit();
+        }
+        return parties;
+    }
+}
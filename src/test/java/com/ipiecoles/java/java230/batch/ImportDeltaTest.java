@@ -0,0 +1,91 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+
+public class ImportDeltaTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    private final LocalDate dateEmbauche = new LocalDate(2013, 6, 4);
+
+    private Technicien technicien(String matricule, Manager manager, Double salaire) throws TechnicienException {
+        Technicien technicien = new Technicien("dupont", "pierre", matricule, dateEmbauche, salaire, 5);
+        technicien.setManager(manager);
+        return technicien;
+    }
+
+    @Test
+    public void testEmpreinte() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", dateEmbauche, 1200.5, new HashSet<>());
+        Manager autreManager = new Manager("durand", "jacques", "M00002", dateEmbauche, 1200.5, new HashSet<>());
+
+        //When/Then
+        Assertions.assertThat(EmpreinteEmploye.calculer(technicien("T00001", manager, 1700.5)))
+                .isEqualTo(EmpreinteEmploye.calculer(technicien("T00001", manager, 1700.5)))
+                .isNotEqualTo(EmpreinteEmploye.calculer(technicien("T00001", manager, 1700.6)))
+                .isNotEqualTo(EmpreinteEmploye.calculer(technicien("T00001", autreManager, 1700.5)));
+        Assertions.assertThat(EmpreinteEmploye.calculer(new Commercial("ab", "c", "C00001", dateEmbauche, 1000d, 500d, 100)))
+                .isNotEqualTo(EmpreinteEmploye.calculer(new Commercial("a", "bc", "C00001", dateEmbauche, 1000d, 500d, 100)));
+    }
+
+    @Test
+    public void testDelta() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", dateEmbauche, 1200.5, new HashSet<>());
+        IndexEmpreintes ancienIndex = new IndexEmpreintes();
+        ancienIndex.put("M00001", EmpreinteEmploye.calculer(manager));
+        ancienIndex.put("T00001", EmpreinteEmploye.calculer(technicien("T00001", manager, 1700.5)));
+        ancienIndex.put("T00002", EmpreinteEmploye.calculer(technicien("T00002", manager, 1700.5)));
+        ancienIndex.put("T00003", EmpreinteEmploye.calculer(technicien("T00003", manager, 1700.5)));
+        ImportDelta importDelta = new ImportDelta(ancienIndex);
+
+        //When
+        boolean managerAEcrire = importDelta.aEcrire(manager);
+        boolean modifieAEcrire = importDelta.aEcrire(technicien("T00001", manager, 1800.5));
+        boolean nouveauAEcrire = importDelta.aEcrire(technicien("T00004", manager, 1700.5));
+        importDelta.conserver("T00002,dupont,pierre,04/06/2013,xxx,5,M00001");
+
+        //Then
+        Assertions.assertThat(managerAEcrire).isFalse();
+        Assertions.assertThat(modifieAEcrire).isTrue();
+        Assertions.assertThat(nouveauAEcrire).isTrue();
+        Assertions.assertThat(importDelta.getNbInchanges()).isEqualTo(1);
+        Assertions.assertThat(importDelta.getNbModifies()).isEqualTo(1);
+        Assertions.assertThat(importDelta.getNbInseres()).isEqualTo(1);
+        Assertions.assertThat(importDelta.aSupprimer()).containsExactly("T00003");
+        Assertions.assertThat(importDelta.getNouvelIndex().get("T00002")).isEqualTo(ancienIndex.get("T00002"));
+        Assertions.assertThat(importDelta.getNouvelIndex().matricules()).containsOnly("M00001", "T00001", "T00002", "T00004");
+    }
+
+    @Test
+    public void testEnregistrerCharger() throws IOException {
+        //Given
+        IndexEmpreintes index = new IndexEmpreintes();
+        index.put("M00001", 42L);
+        index.put("T00001", -1L);
+        Path fichier = dossier.getRoot().toPath().resolve("employes.delta");
+
+        //When
+        index.enregistrer(fichier);
+        IndexEmpreintes relu = IndexEmpreintes.charger(fichier);
+
+        //Then
+        Assertions.assertThat(relu.size()).isEqualTo(2);
+        Assertions.assertThat(relu.get("M00001")).isEqualTo(42L);
+        Assertions.assertThat(relu.get("T00001")).isEqualTo(-1L);
+    }
+}
@@ -0,0 +1,110 @@
+package com.ipiecoles.java.java230.batch;
+
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class IndexManagersTest {
+
+    private IndexManagers indexManagers;
+
+    //copie des listes de matricules de chaque requête IN
+    private List<List<String>> requetes;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        requetes = new ArrayList<>();
+        ManagerRepository managerRepository = Mockito.mock(ManagerRepository.class);
+        //en BDD : les managers de matricule pair
+        Mockito.when(managerRepository.findByMatriculeIn(Mockito.anyCollection())).thenAnswer(invocation -> {
+            Collection<String> matricules = invocation.getArgument(0);
+            requetes.add(new ArrayList<>(matricules));
+            return matricules.stream().filter(matricule -> Integer.parseInt(matricule.substring(1)) % 2 == 0)
+                    .map(IndexManagersTest::manager).collect(Collectors.toList());
+        });
+        indexManagers = new IndexManagers();
+        ReflectionTestUtils.setField(indexManagers, "managerRepository", managerRepository);
+    }
+
+    private static Manager manager(String matricule) {
+        return new Manager("durand", "jacques", matricule, new LocalDate(2013, 6, 4), 1200.5, new HashSet<>());
+    }
+
+    private static List<String> matricules(int debut, int fin) {
+        return IntStream.range(debut, fin).mapToObj(i -> String.format("M%05d", i)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testPrechaufferParLotsDe1000() {
+        //Given
+        List<String> matricules = matricules(0, 2500);
+
+        //When
+        indexManagers.prechauffer(matricules);
+
+        //Then
+        Assertions.assertThat(requetes).extracting(List::size).containsExactly(1000, 1000, 500);
+        Assertions.assertThat(indexManagers.size()).isEqualTo(1250);
+        Assertions.assertThat(indexManagers.trouver("M00002").getMatricule()).isEqualTo("M00002");
+        Assertions.assertThat(indexManagers.trouver("M00003")).isNull();
+    }
+
+    @Test
+    public void testMatriculesDejaCherchesNonRedemandes() {
+        //Given
+        indexManagers.prechauffer(matricules(0, 10));
+
+        //When
+        indexManagers.prechauffer(matricules(5, 15));
+
+        //Then
+        Assertions.assertThat(requetes).hasSize(2);
+        Assertions.assertThat(requetes.get(1)).containsExactlyElementsOf(matricules(10, 15));
+    }
+
+    @Test
+    public void testAjouterSansRemplacerLeManagerEnBdd() {
+        //Given
+        indexManagers.prechauffer(Arrays.asList("M00002", "M00003"));
+        Manager fichierEnBdd = manager("M00002");
+        Manager fichierAbsentEnBdd = manager("M00003");
+
+        //When
+        indexManagers.ajouter(fichierEnBdd);
+        indexManagers.ajouter(fichierAbsentEnBdd);
+        indexManagers.prechauffer(Arrays.asList("M00002", "M00003"));
+
+        //Then
+        Assertions.assertThat(indexManagers.trouver("M00002")).isNotSameAs(fichierEnBdd);
+        Assertions.assertThat(indexManagers.trouver("M00003")).isSameAs(fichierAbsentEnBdd);
+        Assertions.assertThat(requetes).hasSize(1);
+    }
+
+    @Test
+    public void testVider() {
+        //Given
+        indexManagers.prechauffer(Arrays.asList("M00002", "M00003"));
+
+        //When
+        indexManagers.vider();
+        indexManagers.prechauffer(Arrays.asList("M00002", "M00003"));
+
+        //Then
+        Assertions.assertThat(requetes).hasSize(2);
+        Assertions.assertThat(indexManagers.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,116 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LecteurLignesTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    private static List<String> lignes(LecteurLignes lecteur) throws IOException {
+        List<String> lignes = new ArrayList<>();
+        String ligne;
+        while ((ligne = lecteur.suivante()) != null) {
+            lignes.add(ligne);
+        }
+        return lignes;
+    }
+
+    private List<String> lignesBufferedReader(byte[] octets) throws IOException {
+        Path fichier = dossier.newFile().toPath();
+        Files.write(fichier, octets);
+        List<String> lignes = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(fichier)) {
+            String ligne;
+            while ((ligne = reader.readLine()) != null) {
+                lignes.add(ligne);
+            }
+        }
+        return lignes;
+    }
+
+    @Test
+    public void testFinsDeLigneCommeBufferedReader() throws IOException {
+        //Given
+        byte[] octets = "a\nb\r\nc\rd\n\ne\r\r\nélève".getBytes(StandardCharsets.UTF_8);
+
+        //When
+        List<String> lignes = lignes(new LecteurLignes(ByteBuffer.wrap(octets)));
+
+        //Then
+        Assertions.assertThat(lignes).containsExactly("a", "b", "c", "d", "", "e", "", "élève");
+        Assertions.assertThat(lignes).isEqualTo(lignesBufferedReader(octets));
+    }
+
+    @Test
+    public void testFinDeLigneEnFinDeBuffer() throws IOException {
+        //Given
+        LecteurLignes lf = new LecteurLignes(ByteBuffer.wrap("a\n".getBytes(StandardCharsets.UTF_8)));
+        LecteurLignes cr = new LecteurLignes(ByteBuffer.wrap("a\r".getBytes(StandardCharsets.UTF_8)));
+
+        //When/Then
+        Assertions.assertThat(lignes(lf)).containsExactly("a");
+        Assertions.assertThat(lignes(cr)).containsExactly("a");
+        Assertions.assertThat(lignes(new LecteurLignes(ByteBuffer.allocate(0)))).isEmpty();
+    }
+
+    @Test
+    public void testPosition() throws IOException {
+        //Given
+        ByteBuffer contenu = ByteBuffer.wrap("xx\naa\r\nbbb".getBytes(StandardCharsets.UTF_8));
+        contenu.position(3);
+        LecteurLignes lecteur = new LecteurLignes(contenu);
+
+        //When
+        String premiere = lecteur.suivante();
+        int apresPremiere = lecteur.position();
+        String seconde = lecteur.suivante();
+
+        //Then
+        Assertions.assertThat(premiere).isEqualTo("aa");
+        Assertions.assertThat(apresPremiere).isEqualTo(7);
+        Assertions.assertThat(seconde).isEqualTo("bbb");
+        Assertions.assertThat(lecteur.position()).isEqualTo(10);
+    }
+
+    @Test
+    public void testLigneLongue() throws IOException {
+        //Given
+        StringBuilder longue = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longue.append("é").append(i);
+        }
+        LecteurLignes lecteur = new LecteurLignes(ByteBuffer.wrap(("court\n" + longue + "\ncourt").getBytes(StandardCharsets.UTF_8)));
+
+        //When/Then
+        Assertions.assertThat(lignes(lecteur)).containsExactly("court", longue.toString(), "court");
+    }
+
+    @Test
+    public void testUtf8InvalideCommeBufferedReader() throws IOException {
+        //Given
+        byte[] octets = {'a', '\n', 'b', (byte) 0xC3, '\n'};
+        LecteurLignes lecteur = new LecteurLignes(ByteBuffer.wrap(octets));
+
+        //When
+        String premiere = lecteur.suivante();
+
+        //Then
+        Assertions.assertThat(premiere).isEqualTo("a");
+        Assertions.assertThatThrownBy(lecteur::suivante).isInstanceOf(MalformedInputException.class);
+        Assertions.assertThatThrownBy(() -> lignesBufferedReader(octets)).isInstanceOf(MalformedInputException.class);
+    }
+}
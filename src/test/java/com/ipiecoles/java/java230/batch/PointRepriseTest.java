@@ -0,0 +1,94 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PointRepriseTest {
+
+    @Rule
+    public TemporaryFolder dossier = new TemporaryFolder();
+
+    @Test
+    public void testEnregistrerCharger() throws IOException {
+        //Given
+        Path csv = dossier.newFile("employes.csv").toPath();
+        Files.write(csv, "M00001,durand,jacques,04/06/2013,1200.5\nT00002,dupont,pierre,12/03/2003,1700.5,5,M00003\n".getBytes(StandardCharsets.UTF_8));
+        Map<Long, String> enAttente = new LinkedHashMap<>();
+        enAttente.put(2L, "T00002,dupont,pierre,12/03/2003,1700.5,5,M00003");
+        Path fichier = dossier.getRoot().toPath().resolve("employes.reprise");
+
+        //When
+        new PointReprise(csv, 40, 1, 1, enAttente, 3, 90).enregistrer(fichier, true);
+        PointReprise relu = PointReprise.charger(fichier);
+
+        //Then
+        Assertions.assertThat(relu.concerne(csv)).isTrue();
+        Assertions.assertThat(relu.concerne(dossier.getRoot().toPath().resolve("autre.csv"))).isFalse();
+        Assertions.assertThat(relu.getTailleFichier()).isEqualTo(Files.size(csv));
+        Assertions.assertThat(relu.getPosition()).isEqualTo(40);
+        Assertions.assertThat(relu.getNumeroLigne()).isEqualTo(1);
+        Assertions.assertThat(relu.getNbManagers()).isEqualTo(1);
+        Assertions.assertThat(relu.getTechniciensEnAttente()).isEqualTo(enAttente);
+        Assertions.assertThat(relu.getVersionAttente()).isEqualTo(3);
+        Assertions.assertThat(relu.isFenetreIncertaine()).isTrue();
+        Assertions.assertThat(relu.getFinFenetreIncertaine()).isEqualTo(90);
+        Assertions.assertThat(relu.isTermine()).isFalse();
+    }
+
+    @Test
+    public void testTermine() throws IOException {
+        //Given
+        Path csv = dossier.newFile("employes.csv").toPath();
+        Files.write(csv, "M00001,durand,jacques,04/06/2013,1200.5\n".getBytes(StandardCharsets.UTF_8));
+        long taille = Files.size(csv);
+
+        //When/Then
+        Assertions.assertThat(new PointReprise(csv, taille, 1, 1, Collections.emptyMap(), 1, -1).isTermine()).isTrue();
+        Assertions.assertThat(new PointReprise(csv, taille, 1, 1, Collections.emptyMap(), 1, taille).isTermine()).isFalse();
+        Assertions.assertThat(new PointReprise(csv, taille, 1, 1, Collections.singletonMap(1L, "T"), 1, -1).isTermine()).isFalse();
+        Assertions.assertThat(new PointReprise(csv, taille - 1, 1, 1, Collections.emptyMap(), 1, -1).isTermine()).isFalse();
+    }
+
+    @Test
+    public void testTechniciensEnAttenteEcritsSeulementSiModifies() throws IOException {
+        //Given
+        Path csv = dossier.newFile("employes.csv").toPath();
+        Files.write(csv, "T00001,dupont,pierre,12/03/2003,1700.5,5,M00003\nC00002,aubert,michel,05/09/2018,2200.5,150000\n".getBytes(StandardCharsets.UTF_8));
+        Map<Long, String> enAttente = Collections.singletonMap(1L, "T00001,dupont,pierre,12/03/2003,1700.5,5,M00003");
+        Path fichier = dossier.getRoot().toPath().resolve("employes.reprise");
+        Path version1 = dossier.getRoot().toPath().resolve("employes.reprise.attente-1");
+        Path version2 = dossier.getRoot().toPath().resolve("employes.reprise.attente-2");
+
+        //When
+        new PointReprise(csv, 20, 1, 0, enAttente, 1, -1).enregistrer(fichier, true);
+        //techniciens inchangés : seul le numéro de version est enregistré, la map passée n'est pas écrite
+        new PointReprise(csv, 40, 2, 0, Collections.emptyMap(), 1, -1).enregistrer(fichier, false);
+        PointReprise memeVersion = PointReprise.charger(fichier);
+        new PointReprise(csv, 40, 2, 0, Collections.emptyMap(), 2, -1).enregistrer(fichier, true);
+        PointReprise nouvelleVersion = PointReprise.charger(fichier);
+
+        //Then
+        Assertions.assertThat(memeVersion.getPosition()).isEqualTo(40);
+        Assertions.assertThat(memeVersion.getTechniciensEnAttente()).isEqualTo(enAttente);
+        Assertions.assertThat(nouvelleVersion.getTechniciensEnAttente()).isEmpty();
+        Assertions.assertThat(version1).doesNotExist();
+        Assertions.assertThat(version2).exists();
+
+        //When
+        PointReprise.supprimer(fichier);
+
+        //Then
+        Assertions.assertThat(fichier).doesNotExist();
+        Assertions.assertThat(version2).doesNotExist();
+    }
+}
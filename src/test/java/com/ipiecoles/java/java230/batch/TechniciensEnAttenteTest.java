@@ -0,0 +1,57 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class TechniciensEnAttenteTest {
+
+    private static ResultatLigne technicien(long numero, String matriculeManager) {
+        ResultatLigne resultat = new ResultatLigne("T" + numero);
+        resultat.setNumero(numero);
+        resultat.setMatriculeManager(matriculeManager);
+        return resultat;
+    }
+
+    @Test
+    public void testRetirerParManagerDansLOrdreDuFichier() {
+        //Given
+        TechniciensEnAttente enAttente = new TechniciensEnAttente();
+        //ordre d'un point de reprise : pas forcément celui du fichier
+        enAttente.ajouter(technicien(7, "M00001"));
+        enAttente.ajouter(technicien(2, "M00001"));
+        enAttente.ajouter(technicien(5, "M00002"));
+
+        //When
+        ResultatLigne premier = enAttente.retirer("M00001");
+        ResultatLigne second = enAttente.retirer("M00001");
+        ResultatLigne aucun = enAttente.retirer("M00001");
+
+        //Then
+        Assertions.assertThat(premier.getNumero()).isEqualTo(2);
+        Assertions.assertThat(second.getNumero()).isEqualTo(7);
+        Assertions.assertThat(aucun).isNull();
+        Assertions.assertThat(enAttente.size()).isEqualTo(1);
+        Assertions.assertThat(enAttente.premierNumero()).isEqualTo(5);
+    }
+
+    @Test
+    public void testRetirerPremier() {
+        //Given
+        TechniciensEnAttente enAttente = new TechniciensEnAttente();
+        enAttente.ajouter(technicien(4, "M00002"));
+        enAttente.ajouter(technicien(1, "M00001"));
+        enAttente.ajouter(technicien(3, "M00001"));
+
+        //When
+        ResultatLigne premier = enAttente.retirerPremier();
+
+        //Then
+        Assertions.assertThat(premier.getNumero()).isEqualTo(1);
+        Assertions.assertThat(enAttente.tous()).extracting(ResultatLigne::getNumero).containsExactly(3L, 4L);
+        Assertions.assertThat(enAttente.retirer("M00001").getNumero()).isEqualTo(3);
+        Assertions.assertThat(enAttente.retirerPremier().getNumero()).isEqualTo(4);
+        Assertions.assertThat(enAttente.retirerPremier()).isNull();
+        Assertions.assertThat(enAttente.isEmpty()).isTrue();
+        Assertions.assertThat(enAttente.premierNumero()).isEqualTo(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ipiecoles.java.java230.batch;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ValidateurChampsTest {
+
+    private static final String[] VALEURS = {"", "M12345", "T98765", "C32154", "X12345", "M1234", "M123456", "m12345",
+            "M1234a", "12345", "M00001", "1200.5", "1200.55", "1200.555", "1200.", ".5", "0", "00", "09", "10", "99",
+            "100", "101", "1000", "sdf", "150000", "150000.0", "-5", "1e3", "durand", "Jean-Pierre", "Élodie", "de la Tour",
+            "o'neil", "xxx1"};
+
+    @Test
+    public void testMatriculeIdentiqueALaRegex() {
+        for (String valeur : VALEURS) {
+            Assertions.assertThat(ValidateurChamps.estMatricule(valeur)).as(valeur).isEqualTo(valeur.matches(ValidateurChamps.REGEX_MATRICULE));
+            Assertions.assertThat(ValidateurChamps.estMatriculeManager(valeur)).as(valeur).isEqualTo(valeur.matches(ValidateurChamps.REGEX_MATRICULE_MANAGER));
+        }
+    }
+
+    @Test
+    public void testNombresIdentiquesALaRegex() {
+        for (String valeur : VALEURS) {
+            Assertions.assertThat(ValidateurChamps.estDecimal(valeur)).as(valeur).isEqualTo(valeur.matches(ValidateurChamps.REGEX_SALAIRE));
+            Assertions.assertThat(ValidateurChamps.estPerformance(valeur)).as(valeur).isEqualTo(valeur.matches(ValidateurChamps.REGEX_PERF));
+        }
+    }
+
+    @Test
+    public void testNomIdentiqueALaRegex() {
+        for (String valeur : VALEURS) {
+            Assertions.assertThat(ValidateurChamps.estNom(valeur)).as(valeur).isEqualTo(valeur.matches(ValidateurChamps.REGEX_NOM));
+        }
+    }
+
+    @Test
+    public void testPortionDeLigne() {
+        //Given
+        String ligne = "T98765,dupont,pierre,12/03/2003,1700.5,5,M87654";
+
+        //When/Then
+        Assertions.assertThat(ValidateurChamps.estMatricule(ligne, 0, 6)).isTrue();
+        Assertions.assertThat(ValidateurChamps.estNom(ligne, 7, 13)).isTrue();
+        Assertions.assertThat(ValidateurChamps.estNom(ligne, 7, 14)).isFalse();
+        Assertions.assertThat(ValidateurChamps.estDecimal(ligne, 32, 38)).isTrue();
+        Assertions.assertThat(ValidateurChamps.estMatriculeManager(ligne, 41, 47)).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ipiecoles.java.java230.model;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ColonnesEmployesTest {
+
+    @Test
+    public void testCalculerPrimesIdentiquesAuxEntites() throws TechnicienException {
+        //Given
+        //assez d'employés pour que le calcul soit découpé en plusieurs morceaux
+        Random random = new Random(42);
+        List<Employe> employes = new ArrayList<>();
+        Manager manager = null;
+        for (int i = 0; i < 50000; i++) {
+            LocalDate dateEmbauche = new LocalDate(1990 + random.nextInt(30), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            double salaire = 1200 + random.nextInt(30000) / 10d;
+            Employe employe;
+            if (i % 10 == 0) {
+                manager = new Manager("durand", "jacques", "M" + i, dateEmbauche, salaire, new HashSet<>());
+                employe = manager;
+            } else if (i % 10 < 7) {
+                Technicien technicien = new Technicien("dupont", "pierre", "T" + i, dateEmbauche, salaire, 1 + random.nextInt(5));
+                manager.ajoutTechnicienEquipe(technicien);
+                employe = technicien;
+            } else {
+                employe = new Commercial("martin", "marie", "C" + i, dateEmbauche, salaire, random.nextInt(100000) / 7d);
+            }
+            employe.setId((long) i);
+            employes.add(employe);
+        }
+
+        //When
+        ColonnesEmployes colonnes = ColonnesEmployes.de(employes);
+        double[] primes = colonnes.calculerPrimes();
+
+        //Then
+        Map<Long, Double> primesEntites = new HashMap<>();
+        employes.forEach(employe -> primesEntites.put(employe.getId(), employe.getPrimeAnnuelle()));
+        long[] ids = colonnes.getIds();
+        Assertions.assertThat(colonnes.getNombre()).isEqualTo(50000);
+        for (int i = 0; i < colonnes.getNombre(); i++) {
+            Assertions.assertThat(primes[i]).isEqualTo(primesEntites.get(ids[i]));
+        }
+    }
+
+    @Test
+    public void testCalculerPrimesDonneeNulle() {
+        //Given
+        ColonnesEmployes colonnes = new ColonnesEmployes.Constructeur()
+                .ajouterCommercial(1L, 2000d, 2010, Double.NaN)
+                .ajouterTechnicien(2L, 1800d, 2012, 3)
+                .construire();
+
+        //When
+        double[] primes = colonnes.calculerPrimes(2020);
+
+        //Then
+        Assertions.assertThat(colonnes.getIds()).containsExactly(2L, 1L);
+        Assertions.assertThat(primes[0]).isEqualTo(1010 + 1010 * 1.3 + 800);
+        Assertions.assertThat(primes[1]).isNaN();
+    }
+
+    @Test
+    public void testColonnesNonModifiables() {
+        //Given
+        ColonnesEmployes colonnes = new ColonnesEmployes.Constructeur()
+                .ajouterCommercial(1L, 2000d, 2010, 40000d)
+                .construire();
+
+        //When
+        colonnes.getIds()[0] = 2L;
+        colonnes.getSalaires()[0] = 0d;
+
+        //Then
+        Assertions.assertThat(colonnes.getIds()).containsExactly(1L);
+        Assertions.assertThat(colonnes.getSalaires()).containsExactly(2000d);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ipiecoles.java.java230.model;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+public class EmployeResumeTest {
+
+    @Before
+    public void setUp() {
+        ReferencePaie.fixer(new LocalDate(2020, 6, 30));
+    }
+
+    @After
+    public void tearDown() {
+        ReferencePaie.liberer();
+    }
+
+    @Test
+    public void testPrimesCommeLesEntites() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien technicien = new Technicien("dupont", "pierre", "T00001", new LocalDate(2010, 3, 12), 1500d, 3);
+        Commercial commercial = new Commercial("martin", "marie", "C00001", new LocalDate(2012, 5, 2), 2000d, 25000d);
+        manager.ajoutTechnicienEquipe(technicien);
+
+        //When
+        EmployeResume resumeManager = new EmployeResume("M00001", "durand", "jacques", manager.getSalaire(), 1L);
+        EmployeResume resumeTechnicien = new EmployeResume("T00001", "dupont", "pierre", technicien.getSalaire(),
+                technicien.getDateEmbauche(), technicien.getGrade());
+        EmployeResume resumeCommercial = new EmployeResume("C00001", "martin", "marie", commercial.getSalaire(),
+                commercial.getCaAnnuel());
+
+        //Then
+        Assertions.assertThat(resumeManager.getPrimeAnnuelle()).isEqualTo(manager.getPrimeAnnuelle());
+        Assertions.assertThat(resumeTechnicien.getPrimeAnnuelle()).isEqualTo(technicien.getPrimeAnnuelle());
+        Assertions.assertThat(resumeCommercial.getPrimeAnnuelle()).isEqualTo(commercial.getPrimeAnnuelle());
+        Assertions.assertThat(resumeTechnicien.getMatricule()).isEqualTo("T00001");
+        Assertions.assertThat(resumeTechnicien.getSalaire()).isEqualTo(technicien.getSalaire());
+    }
+
+    @Test
+    public void testPrimeNulleSiDonneeManquante() {
+        //Given
+        Double caAnnuel = null;
+
+        //When
+        EmployeResume commercial = new EmployeResume("C00001", "martin", "marie", 2000d, caAnnuel);
+        EmployeResume technicien = new EmployeResume("T00001", "dupont", "pierre", 1500d, new LocalDate(2010, 3, 12), null);
+
+        //Then
+        Assertions.assertThat(commercial.getPrimeAnnuelle()).isNull();
+        Assertions.assertThat(technicien.getPrimeAnnuelle()).isNull();
+    }
+}
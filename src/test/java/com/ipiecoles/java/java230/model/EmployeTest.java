@@ -1,7 +1,9 @@
 package com.ipiecoles.java.java230.model;
 
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
 import com.ipiecoles.java.java230.utils.TestUtils;
 import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
 import org.junit.Test;
 
 import javax.persistence.*;
@@ -30,4 +32,39 @@ public class EmployeTest {
         TestUtils.checkAnnotation("Employe", Inheritance.class);
         Assertions.assertThat(TestUtils.getClasse("Employe").getAnnotation(Inheritance.class).strategy()).isEqualTo(InheritanceType.JOINED);
     }
+
+    @Test
+    public void testEqualsMatricule() throws TechnicienException {
+        //Given
+        Technicien technicien = new Technicien("dupont", "pierre", "T00001", new LocalDate(2010, 3, 12), 1500d, 2);
+        Technicien copie = new Technicien("dupont", "pierre", "T00001", new LocalDate(2010, 3, 12), 1500d, 2);
+        int hashCode = technicien.hashCode();
+
+        //When
+        technicien.augmenterSalaire(0.1);
+
+        //Then
+        Assertions.assertThat(technicien.hashCode()).isEqualTo(hashCode);
+        Assertions.assertThat(technicien).isEqualTo(copie);
+        Assertions.assertThat(technicien).isNotEqualTo(new Technicien("dupont", "pierre", "T00002", new LocalDate(2010, 3, 12), 1500d, 2));
+        Assertions.assertThat(Employe.COMPARATEUR_VALEURS.compare(technicien, copie)).isNotEqualTo(0);
+    }
+
+    @Test
+    public void testComparateurValeurs() throws TechnicienException {
+        //Given
+        Technicien technicien = new Technicien("dupont", "pierre", "T00001", new LocalDate(2010, 3, 12), 1500d, 2);
+        Technicien autreGrade = new Technicien("dupont", "pierre", "T00001", new LocalDate(2010, 3, 12), 1500d, 3);
+        Commercial commercial = new Commercial("dupont", "pierre", "C00001", new LocalDate(2010, 3, 12), 1500d, 1000d);
+        Commercial memesValeurs = new Commercial("dupont", "pierre", "C00001", new LocalDate(2010, 3, 12), 1500d, 1000d);
+
+        //When
+        int comparaisonGrade = Employe.COMPARATEUR_VALEURS.compare(technicien, autreGrade);
+        int comparaisonCommerciaux = Employe.COMPARATEUR_VALEURS.compare(commercial, memesValeurs);
+
+        //Then
+        Assertions.assertThat(comparaisonGrade).isLessThan(0);
+        Assertions.assertThat(comparaisonCommerciaux).isEqualTo(0);
+        Assertions.assertThat(Employe.COMPARATEUR_VALEURS.compare(commercial, technicien)).isNotEqualTo(0);
+    }
 }
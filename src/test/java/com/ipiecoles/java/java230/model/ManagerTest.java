@@ -0,0 +1,264 @@
+package com.ipiecoles.java.java230.model;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+public class ManagerTest {
+
+    private static Technicien technicien(String matricule, double salaire, int grade) throws TechnicienException {
+        return new Technicien("dupont", "pierre", matricule, new LocalDate(2010, 3, 12), salaire, grade);
+    }
+
+    @Test
+    public void testIndexEquipeTenuAJour() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien t1 = technicien("T00001", 1500d, 1);
+        Technicien t2 = technicien("T00002", 1600d, 1);
+        Technicien t3 = technicien("T00003", 1700d, 3);
+        manager.ajoutTechnicienEquipe(t1);
+        manager.ajoutTechnicienEquipe(t2);
+        Assertions.assertThat(manager.salaireEquipeGrade1()).isEqualTo(1500d + 1600d);
+
+        //When
+        manager.ajoutTechnicienEquipe(t3);
+        manager.retraitTechnicienEquipe(t3);
+        manager.augmenterSalaire(0.1);
+        t2.setGrade(3);
+
+        //Then
+        Assertions.assertThat(manager.nombreTechniciensGrade(1)).isEqualTo(1);
+        Assertions.assertThat(manager.nombreTechniciensGrade(3)).isEqualTo(1);
+        Assertions.assertThat(manager.getEquipe()).hasSize(2);
+        Assertions.assertThat(manager.salaireEquipeGrade1()).isCloseTo(t1.getSalaire(), Offset.offset(1e-9));
+        Assertions.assertThat(manager.salaireEquipeGrade(3)).isCloseTo(t2.getSalaire(), Offset.offset(1e-9));
+    }
+
+    @Test
+    public void testRetraitApresAugmentation() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien technicien = technicien("T00001", 1500d, 2);
+        manager.ajoutTechnicienEquipe(technicien);
+        manager.augmenterSalaire(0.1);
+
+        //When
+        manager.retraitTechnicienEquipe(technicien);
+
+        //Then
+        Assertions.assertThat(manager.getEquipe()).isEmpty();
+        Assertions.assertThat(manager.nombreTechniciensGrade(2)).isEqualTo(0);
+    }
+
+    @Test
+    public void testEquipeModifiableParGetEquipe() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien t1 = technicien("T00001", 1500d, 1);
+        Technicien t2 = technicien("T00002", 1600d, 3);
+        manager.ajoutTechnicienEquipe(t1);
+        Assertions.assertThat(manager.nombreTechniciensGrade(1)).isEqualTo(1);
+
+        //When
+        //remplacement d'un technicien par un autre : la taille de l'équipe ne change pas
+        manager.getEquipe().remove(t1);
+        manager.getEquipe().add(t2);
+
+        //Then
+        Assertions.assertThat(manager.nombreTechniciensGrade(1)).isEqualTo(0);
+        Assertions.assertThat(manager.nombreTechniciensGrade(3)).isEqualTo(1);
+        Assertions.assertThat(manager.salaireEquipeGrade(3)).isEqualTo(t2.getSalaire());
+        Assertions.assertThat(t2.getManager()).isSameAs(manager);
+        t2.setSalaire(2000d);
+        Assertions.assertThat(manager.salaireEquipeGrade(3)).isEqualTo(t2.getSalaire());
+    }
+
+    @Test
+    public void testTechnicienDUneAutreEquipe() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Manager autre = new Manager("martin", "paul", "M00002", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien technicien = technicien("T00001", 1500d, 2);
+        manager.ajoutTechnicienEquipe(technicien);
+        Assertions.assertThat(manager.nombreTechniciensGrade(2)).isEqualTo(1);
+        Assertions.assertThat(autre.nombreTechniciensGrade(2)).isEqualTo(0);
+
+        //When/Then
+        Assertions.assertThatThrownBy(() -> autre.ajoutTechnicienEquipe(technicien)).isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> autre.setEquipe(new HashSet<>(Collections.singleton(technicien))))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThat(autre.getEquipe()).isEmpty();
+        Assertions.assertThat(technicien.getManager()).isSameAs(manager);
+        Assertions.assertThat(manager.nombreTechniciensGrade(2)).isEqualTo(1);
+
+        //un changement d'équipe est explicite : retrait puis ajout
+        manager.retraitTechnicienEquipe(technicien);
+        autre.ajoutTechnicienEquipe(technicien);
+        technicien.setSalaire(2000d);
+        Assertions.assertThat(technicien.getManager()).isSameAs(autre);
+        Assertions.assertThat(manager.nombreTechniciensGrade(2)).isEqualTo(0);
+        Assertions.assertThat(manager.salaireEquipeGrade(2)).isEqualTo(0d);
+        Assertions.assertThat(autre.salaireEquipeGrade(2)).isEqualTo(technicien.getSalaire());
+    }
+
+    @Test
+    public void testEquipeParGrade() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        for (int i = 0; i < 50; i++) {
+            manager.ajoutTechnicienEquipe(technicien(String.format("T%05d", i), 1500d + i, 1 + i * 7 % 5));
+        }
+
+        //When
+        List<Technicien> equipe = manager.equipeParGrade();
+
+        //Then
+        Assertions.assertThat(equipe).containsExactlyElementsOf(
+                manager.getEquipe().stream().sorted(Technicien::compareTo).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testEquipeParGradeApresModifications() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien t1 = technicien("T00001", 1500d, 2);
+        Technicien t2 = technicien("T00002", 1500d, 4);
+        Technicien t3 = technicien("T00003", 1500d, 2);
+        Technicien t4 = technicien("T00004", 1500d, 2);
+        manager.ajoutTechnicienEquipe(t1);
+        List<Technicien> equipe = manager.equipeParGrade();
+
+        //When
+        manager.ajoutTechnicienEquipe(t2);
+        manager.ajoutTechnicienEquipe(t3);
+        manager.ajoutTechnicienEquipe(t4);
+        t1.setGrade(5);
+        manager.retraitTechnicienEquipe(t3);
+
+        //Then
+        Assertions.assertThat(equipe).containsExactly(t1, t2, t4);
+        Assertions.assertThat(equipe.get(2)).isSameAs(t4);
+        Assertions.assertThat(manager.equipeParGrade()).isSameAs(equipe);
+    }
+
+    @Test
+    public void testEquipeParGradeApresRemplacementDeLEquipe() throws TechnicienException {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien t1 = technicien("T00001", 1500d, 2);
+        Technicien t2 = technicien("T00002", 1500d, 4);
+        Technicien t3 = technicien("T00003", 1500d, 3);
+        manager.ajoutTechnicienEquipe(t1);
+        List<Technicien> equipe = manager.equipeParGrade();
+        Assertions.assertThat(equipe).containsExactly(t1);
+
+        //When
+        manager.setEquipe(new HashSet<>(Arrays.asList(t2, t3)));
+
+        //Then
+        //la liste obtenue avant le remplacement suit le nouvel index
+        Assertions.assertThat(equipe).containsExactly(t2, t3);
+        Assertions.assertThat(equipe.get(1)).isSameAs(t3);
+        Assertions.assertThat(manager.equipeParGrade()).isSameAs(equipe);
+    }
+
+    @Test
+    public void testAugmentationsParallelesEquipeEtTechniciens() throws Exception {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Technicien t1 = technicien("T00001", 1500d, 1);
+        Technicien t2 = technicien("T00002", 1500d, 1);
+        manager.ajoutTechnicienEquipe(t1);
+        manager.ajoutTechnicienEquipe(t2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //When
+        //l'équipe est augmentée pendant que d'autres threads augmentent directement ses techniciens
+        List<Future<Void>> taches = new ArrayList<>();
+        taches.add(executor.submit(() -> {
+            for (int i = 0; i < 30000; i++) {
+                manager.augmenterSalaire(0.00001);
+            }
+            return null;
+        }));
+        for (Technicien technicien : Arrays.asList(t1, t2, t1)) {
+            taches.add(executor.submit(() -> {
+                for (int i = 0; i < 30000; i++) {
+                    technicien.augmenterSalaire(0.00001);
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> tache : taches) {
+            tache.get();
+        }
+        executor.shutdown();
+
+        //Then
+        //aucune augmentation perdue : l'ordre des multiplications ne change le salaire qu'à l'arrondi près
+        Assertions.assertThat(t1.getSalaire()).isCloseTo(1500d * Math.pow(1.00001, 90000), Offset.offset(1e-6));
+        Assertions.assertThat(t2.getSalaire()).isCloseTo(1500d * Math.pow(1.00001, 60000), Offset.offset(1e-6));
+        Assertions.assertThat(manager.salaireEquipeGrade1()).isCloseTo(t1.getSalaire() + t2.getSalaire(), Offset.offset(1e-6));
+    }
+
+    @Test
+    public void testModificationsParalleles() throws Exception {
+        //Given
+        Manager manager = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        Commercial commercial = new Commercial("martin", "marie", "C00001", new LocalDate(2005, 1, 1), 2000d, 0d);
+        manager.equipeParGrade();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //When
+        List<Future<Void>> taches = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int debut = thread * 1000;
+            taches.add(executor.submit(() -> {
+                for (int i = debut; i < debut + 1000; i++) {
+                    Technicien technicien = technicien(String.format("T%05d", i), 1500d + i, 1 + i % 5);
+                    manager.ajoutTechnicienEquipe(technicien);
+                    technicien.augmenterSalaire(0.01);
+                    if (i % 10 == 0) {
+                        technicien.setGrade(1 + (i / 10) % 5);
+                        manager.augmenterSalaire(0.001);
+                    }
+                    commercial.augmenterSalaire(0.001);
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> tache : taches) {
+            tache.get();
+        }
+        executor.shutdown();
+
+        //Then
+        double salaireAttendu = 2000d;
+        for (int i = 0; i < 4000; i++) {
+            salaireAttendu = salaireAttendu * (1 + 0.001);
+        }
+        Assertions.assertThat(commercial.getSalaire()).isEqualTo(salaireAttendu);
+        Assertions.assertThat(manager.getEquipe()).hasSize(4000);
+        Assertions.assertThat(manager.equipeParGrade()).hasSize(4000);
+        for (int grade = 1; grade <= 5; grade++) {
+            int g = grade;
+            List<Technicien> techniciens = manager.getEquipe().stream().filter(t -> t.getGrade() == g).collect(Collectors.toList());
+            Assertions.assertThat(manager.nombreTechniciensGrade(grade)).isEqualTo(techniciens.size());
+            Assertions.assertThat(manager.salaireEquipeGrade(grade)).isCloseTo(
+                    techniciens.stream().mapToDouble(Technicien::getSalaire).sum(), Offset.offset(1e-6));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ipiecoles.java.java230.model;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Test;
+
+public class ReferencePaieTest {
+
+    @After
+    public void tearDown() {
+        ReferencePaie.liberer();
+    }
+
+    @Test
+    public void testFixer() throws TechnicienException {
+        //Given
+        Technicien technicien = new Technicien("dupont", "pierre", "T00001", new LocalDate(2010, 3, 12), 1500d, 3);
+
+        //When
+        ReferencePaie.fixer(new LocalDate(2020, 6, 30));
+
+        //Then
+        Assertions.assertThat(ReferencePaie.isFixee()).isTrue();
+        Assertions.assertThat(technicien.getNombreAnneeAnciennete()).isEqualTo(10);
+        Assertions.assertThat(technicien.getPrimeAnnuelle()).isEqualTo(1010 + 1010 * 1.3 + 1000);
+    }
+
+    @Test
+    public void testLiberer() {
+        //Given
+        ReferencePaie.fixer(new LocalDate(2020, 6, 30));
+
+        //When
+        ReferencePaie.liberer();
+
+        //Then
+        Assertions.assertThat(ReferencePaie.isFixee()).isFalse();
+        Assertions.assertThat(ReferencePaie.getDate()).isEqualTo(LocalDate.now());
+        Assertions.assertThat(Entreprise.primeAnnuelleBase()).isEqualTo(LocalDate.now().getYear() * 0.5);
+    }
+}
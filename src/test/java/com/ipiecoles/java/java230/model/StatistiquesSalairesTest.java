@@ -0,0 +1,147 @@
+package com.ipiecoles.java.java230.model;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class StatistiquesSalairesTest {
+
+    private StatistiquesSalaires statistiques(double... salaires) {
+        StatistiquesSalaires statistiques = new StatistiquesSalaires();
+        statistiques.initialiser(0, 0, null, null, new HashMap<>());
+        for (double salaire : salaires) {
+            statistiques.modifier(null, salaire);
+        }
+        return statistiques;
+    }
+
+    @Test
+    public void testModifier() {
+        //Given
+        StatistiquesSalaires statistiques = statistiques(1500.0, 2000.0, 3250.5);
+
+        //When
+        statistiques.modifier(2000.0, 2200.0);
+        statistiques.modifier(1500.0, null);
+
+        //Then
+        Assertions.assertThat(statistiques.getNombre()).isEqualTo(2);
+        Assertions.assertThat(statistiques.getMoyenne()).isEqualTo(2725.25);
+        Assertions.assertThat(statistiques.isBornesConnues()).isFalse();
+        Assertions.assertThat(statistiques.getMax()).isEqualTo(3250.5);
+    }
+
+    @Test
+    public void testTrancheDuRang() {
+        //Given
+        StatistiquesSalaires statistiques = statistiques(1550.0, 1500.0, 2000.0, 1599.99, 3250.5);
+
+        //When
+        StatistiquesSalaires.Tranche tranche = statistiques.trancheDuRang(3);
+
+        //Then
+        Assertions.assertThat(tranche.getBorneInf()).isEqualTo(2000.0);
+        Assertions.assertThat(tranche.getBorneSup()).isEqualTo(2100.0);
+        Assertions.assertThat(tranche.getDecalage()).isEqualTo(0);
+        Assertions.assertThat(statistiques.trancheDuRang(2).getDecalage()).isEqualTo(2);
+        Assertions.assertThat(statistiques.trancheDuRang(5)).isNull();
+    }
+
+    @Test
+    public void testModificationsIgnoreesAvantInitialisation() {
+        //Given
+        StatistiquesSalaires statistiques = new StatistiquesSalaires();
+        Map<Long, Long> tranches = new HashMap<>();
+        tranches.put(15L, 1L);
+
+        //When
+        statistiques.modifier(null, 1000.0);
+        statistiques.initialiser(1, 1500.0, 1500.0, 1500.0, tranches);
+
+        //Then
+        Assertions.assertThat(statistiques.getNombre()).isEqualTo(1);
+        Assertions.assertThat(statistiques.getMoyenne()).isEqualTo(1500.0);
+        Assertions.assertThat(StatistiquesSalaires.tranche(1599.999)).isEqualTo(15);
+    }
+
+    @Test
+    public void testChargementApresLesTransactionsEnCours() throws Exception {
+        //Given
+        StatistiquesSalaires statistiques = new StatistiquesSalaires();
+        Map<Long, Long> tranches = new HashMap<>();
+        tranches.put(15L, 1L);
+        tranches.put(25L, 1L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        statistiques.commencerModifications();
+
+        //When
+        Future<?> chargement = executor.submit(() -> {
+            statistiques.commencerChargement();
+            try {
+                //lecture en BDD, qui voit la transaction validée
+                statistiques.initialiser(2, 4000.0, 1500.0, 2500.0, tranches);
+            } finally {
+                statistiques.terminerChargement();
+            }
+        });
+        Thread.sleep(100);
+        boolean chargeAvantValidation = chargement.isDone();
+        statistiques.terminerModifications(Collections.singletonList(new Double[]{null, 2500.0}));
+        chargement.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //Then
+        Assertions.assertThat(chargeAvantValidation).isFalse();
+        //la modification validée avant la lecture n'est comptée qu'une fois
+        Assertions.assertThat(statistiques.getNombre()).isEqualTo(2);
+        Assertions.assertThat(statistiques.getSomme()).isEqualTo(4000.0);
+    }
+
+    @Test
+    public void testTransactionValideeApresLeChargement() throws Exception {
+        //Given
+        StatistiquesSalaires statistiques = new StatistiquesSalaires();
+        Map<Long, Long> tranches = new HashMap<>();
+        tranches.put(15L, 1L);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        statistiques.commencerChargement();
+
+        //When
+        Future<?> transaction = executor.submit(() -> {
+            statistiques.commencerModifications();
+            statistiques.terminerModifications(Collections.singletonList(new Double[]{1500.0, 1700.0}));
+        });
+        Thread.sleep(100);
+        boolean valideeAvantChargement = transaction.isDone();
+        statistiques.initialiser(1, 1500.0, 1500.0, 1500.0, tranches);
+        statistiques.terminerChargement();
+        transaction.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //Then
+        Assertions.assertThat(valideeAvantChargement).isFalse();
+        Assertions.assertThat(statistiques.getNombre()).isEqualTo(1);
+        Assertions.assertThat(statistiques.getSomme()).isEqualTo(1700.0);
+        Assertions.assertThat(statistiques.trancheDuRang(0).getBorneInf()).isEqualTo(1700.0);
+    }
+
+    @Test
+    public void testChargementImpossiblePendantSesModifications() {
+        //Given
+        StatistiquesSalaires statistiques = new StatistiquesSalaires();
+        statistiques.commencerModifications();
+
+        //When/Then
+        Assertions.assertThat(statistiques.isModificationsEnCours()).isTrue();
+        Assertions.assertThatThrownBy(statistiques::commencerChargement).isInstanceOf(IllegalStateException.class);
+        statistiques.terminerModifications(Collections.emptyList());
+        Assertions.assertThat(statistiques.isModificationsEnCours()).isFalse();
+    }
+}
@@ -0,0 +1,151 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+public class BaseEmployeRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    private static Commercial commercial(String matricule, String nom, int anneeEmbauche, double salaire) {
+        return new Commercial(nom, "marie", matricule, new LocalDate(anneeEmbauche, 1, 1), salaire, 10000d);
+    }
+
+    private List<Employe> creerEmployes() {
+        List<Employe> employes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Commercial commercial = commercial(String.format("C%05d", i), i % 3 == 0 ? "durand" : "martin", 2000 + i, 1500d + i * 100);
+            entityManager.persist(commercial);
+            employes.add(commercial);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return employes;
+    }
+
+    private static List<Long> ids(Stream<? extends Employe> employes) {
+        try (Stream<? extends Employe> stream = employes) {
+            return stream.map(Employe::getId).collect(Collectors.toList());
+        }
+    }
+
+    private static List<Long> ids(Iterable<? extends Employe> employes) {
+        return ids(StreamSupport.stream(employes.spliterator(), false));
+    }
+
+    @Test
+    public void testRecherchesSansCasseSurLesColonnesCalculees() {
+        //Given
+        creerEmployes();
+        Commercial prenomDurand = new Commercial("Petit", "DURAND", "C00100", new LocalDate(2015, 1, 1), 1500d, 10000d);
+        entityManager.persist(prenomDurand);
+        Employe renomme = employeRepository.findByMatricule("C00001");
+        renomme.setNom("DuRand");
+        entityManager.flush();
+        entityManager.clear();
+
+        //When
+        List<Long> parNom = ids(employeRepository.findByNomIgnoreCase("DURAND"));
+        List<Long> parNomOuPrenom = ids(employeRepository.findByNomOrPrenomAllIgnoreCase("Durand"));
+        Page<Employe> page = employeRepository.findByNomIgnoreCase("durand", new PageRequest(0, 3));
+        List<Long> apresRenomme = ids(employeRepository.findByNomIgnoreCaseAndIdGreaterThanOrderByIdAsc("durand", renomme.getId(), new PageRequest(0, 100)));
+
+        //Then
+        //les colonnes calculées suivent la modification du nom
+        Assertions.assertThat(parNom).hasSize(8).contains(renomme.getId()).doesNotContain(prenomDurand.getId());
+        Assertions.assertThat(parNomOuPrenom).hasSize(9).containsAll(parNom).contains(prenomDurand.getId());
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(8);
+        Assertions.assertThat(page.getContent()).hasSize(3);
+        Assertions.assertThat(apresRenomme).hasSize(6).isSorted();
+    }
+
+    @Test
+    public void testStreamsCommeLesListes() {
+        //Given
+        creerEmployes();
+        LocalDate date = new LocalDate(2010, 6, 1);
+
+        //When
+        List<Long> tous = ids(employeRepository.streamAll());
+        List<Long> avant = ids(employeRepository.streamByDateEmbaucheBefore(date));
+        List<Long> apres = ids(employeRepository.streamByDateEmbaucheAfter(date));
+        List<Long> parSalaire = ids(employeRepository.streamBySalaireGreaterThanOrderBySalaireDesc(2000d));
+        List<Long> plusRiches = ids(employeRepository.streamEmployePlusRiches());
+
+        //Then
+        Assertions.assertThat(tous).hasSize(20).containsExactlyInAnyOrder(ids(employeRepository.findAll()).toArray(new Long[0]));
+        Assertions.assertThat(avant).containsExactlyInAnyOrder(ids(employeRepository.findByDateEmbaucheBefore(date)).toArray(new Long[0]));
+        Assertions.assertThat(apres).containsExactlyInAnyOrder(ids(employeRepository.findByDateEmbaucheAfter(date)).toArray(new Long[0]));
+        Assertions.assertThat(avant.size() + apres.size()).isEqualTo(20);
+        Assertions.assertThat(parSalaire).containsExactlyElementsOf(ids(employeRepository.findBySalaireGreaterThanOrderBySalaireDesc(2000d)));
+        //salaires de 1500 à 3400, moyenne 2450
+        Assertions.assertThat(plusRiches).containsExactlyInAnyOrder(ids(employeRepository.findBySalaireGreaterThanOrderBySalaireDesc(2450d)).toArray(new Long[0]));
+    }
+
+    @Test
+    //Spring Data passe le stream en lecture seule selon la transaction qui l'entoure, pas selon l'indice readOnly
+    @Transactional(readOnly = true)
+    public void testStreamEnLectureSeule() {
+        //Given
+        creerEmployes();
+        Session session = entityManager.unwrap(Session.class);
+
+        //When
+        List<Boolean> lectureSeule;
+        try (Stream<Employe> employes = employeRepository.streamAll()) {
+            lectureSeule = employes.map(session::isReadOnly).collect(Collectors.toList());
+        }
+
+        //Then
+        Assertions.assertThat(lectureSeule).hasSize(20).containsOnly(true);
+    }
+
+    @Test
+    public void testPaginationParCle() {
+        //Given
+        List<Employe> employes = creerEmployes();
+
+        //When
+        List<Long> parId = new ArrayList<>();
+        CurseurKeyset.parId(employeRepository, 3).forEachRemaining(e -> parId.add(e.getId()));
+        List<Long> parIdDurand = new ArrayList<>();
+        CurseurKeyset.parId(employeRepository, "DURAND", 3).forEachRemaining(e -> parIdDurand.add(e.getId()));
+        List<String> parNom = new ArrayList<>();
+        CurseurKeyset.parNom(employeRepository, 3).forEachRemaining(e -> parNom.add(e.getNom() + e.getId()));
+
+        //Then
+        Assertions.assertThat(parId).isSorted().containsExactlyElementsOf(ids(employes));
+        Assertions.assertThat(parIdDurand).isSorted().containsExactlyElementsOf(
+                employes.stream().filter(e -> e.getNom().equals("durand")).map(Employe::getId).collect(Collectors.toList()));
+        Assertions.assertThat(parNom).containsExactlyElementsOf(employes.stream()
+                .sorted((e1, e2) -> e1.getNom().equals(e2.getNom()) ? e1.getId().compareTo(e2.getId()) : e1.getNom().compareTo(e2.getNom()))
+                .map(e -> e.getNom() + e.getId()).collect(Collectors.toList()));
+    }
+}
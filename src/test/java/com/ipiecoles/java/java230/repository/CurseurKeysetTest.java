@@ -0,0 +1,51 @@
+package com.ipiecoles.java.java230.repository;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CurseurKeysetTest {
+
+    @Test
+    public void testParcoursPageParPage() {
+        //Given
+        List<Integer> valeurs = Arrays.asList(1, 3, 5, 7, 9, 11, 13);
+        List<Integer> derniersDemandes = new ArrayList<>();
+        CurseurKeyset<Integer> curseur = new CurseurKeyset<>((dernier, page) -> {
+            derniersDemandes.add(dernier);
+            Assertions.assertThat(page.getPageNumber()).isEqualTo(0);
+            List<Integer> suivants = valeurs.stream().filter(v -> dernier == null || v > dernier).collect(Collectors.toList());
+            List<Integer> contenu = suivants.subList(0, Math.min(page.getPageSize(), suivants.size()));
+            return new SliceImpl<>(contenu, page, suivants.size() > page.getPageSize());
+        }, 3);
+
+        //When
+        List<Integer> lus = new ArrayList<>();
+        lus.add(curseur.next());
+        int pagesApresPremierElement = derniersDemandes.size();
+        curseur.forEachRemaining(lus::add);
+
+        //Then
+        Assertions.assertThat(pagesApresPremierElement).isEqualTo(1);
+        Assertions.assertThat(lus).isEqualTo(valeurs);
+        Assertions.assertThat(derniersDemandes).containsExactly(null, 5, 11);
+        Assertions.assertThat(curseur.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testParcoursVide() {
+        //Given
+        CurseurKeyset<Integer> curseur = new CurseurKeyset<>((dernier, page) -> new SliceImpl<>(new ArrayList<>(), page, false), 10);
+
+        //When
+        boolean suivant = curseur.hasNext();
+
+        //Then
+        Assertions.assertThat(suivant).isFalse();
+    }
+}
@@ -92,7 +92,7 @@ public class EmployeRepositoryTest {
             TestUtils.getClasse("BaseEmployeRepository");
             Method m = TestUtils.checkMethod("BaseEmployeRepository", "findByNomOrPrenomAllIgnoreCase", TestUtils.LIST, TestUtils.STRING);
             Assertions.assertThat(m.isAnnotationPresent(Query.class)).isTrue();
-            Assertions.assertThat(m.getAnnotation(Query.class).value()).isEqualToIgnoringCase("select e from #{#entityName} e where lower(e.prenom) = lower(:nomOuPrenom) or lower(e.nom) = lower(:nomOuPrenom)");
+            Assertions.assertThat(m.getAnnotation(Query.class).value()).isEqualToIgnoringCase("select e from #{#entityName} e where e.prenomMinuscules = lower(:nomOuPrenom) or e.nomMinuscules = lower(:nomOuPrenom)");
         } catch (ClassNotFoundException e){
             Method m = TestUtils.checkMethod("EmployeRepository", "findByNomOrPrenomAllIgnoreCase", TestUtils.LIST, TestUtils.STRING);
             Assertions.assertThat(m.isAnnotationPresent(Query.class)).isTrue();
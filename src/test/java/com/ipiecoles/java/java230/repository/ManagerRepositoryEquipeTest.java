@@ -0,0 +1,86 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+public class ManagerRepositoryEquipeTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    private Manager manager(String matricule, int nbTechniciens) throws TechnicienException {
+        Manager manager = new Manager("durand", "jacques", matricule, new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        entityManager.persist(manager);
+        for (int i = 0; i < nbTechniciens; i++) {
+            Technicien technicien = new Technicien("dupont", "pierre", "T" + matricule.substring(1) + i,
+                    new LocalDate(2010, 3, 12), 1500d, 1 + i % 5);
+            technicien.setManager(manager);
+            entityManager.persist(technicien);
+        }
+        return manager;
+    }
+
+    private void enregistrer() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testEquipeChargeeParLaRequete() throws TechnicienException {
+        //Given
+        Long id = manager("M00001", 2).getId();
+        manager("M00002", 1);
+        enregistrer();
+
+        //When
+        Manager manager = managerRepository.findOneWithEquipeById(id);
+        List<Manager> durand = managerRepository.findDistinctWithEquipeByNomIgnoreCase("DURAND");
+
+        //Then
+        Assertions.assertThat(Hibernate.isInitialized(manager.getEquipe())).isTrue();
+        Assertions.assertThat(manager.getEquipe()).hasSize(2);
+        Assertions.assertThat(durand).hasSize(2);
+        Assertions.assertThat(durand).allMatch(m -> Hibernate.isInitialized(m.getEquipe()));
+    }
+
+    @Test
+    public void testEquipesChargeesParLots() throws TechnicienException {
+        //Given
+        manager("M00001", 2);
+        manager("M00002", 1);
+        manager("M00003", 0);
+        enregistrer();
+        List<Manager> managers = managerRepository.findByMatriculeIn(Arrays.asList("M00001", "M00002", "M00003"));
+
+        //When
+        boolean initialiseeAvant = Hibernate.isInitialized(managers.get(0).getEquipe());
+        managers.get(0).getEquipe().size();
+
+        //Then
+        Assertions.assertThat(initialiseeAvant).isFalse();
+        Assertions.assertThat(managers).allMatch(m -> Hibernate.isInitialized(m.getEquipe()));
+        Assertions.assertThat(managers.stream().mapToInt(m -> m.getEquipe().size()).sum()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ipiecoles.java.java230.repository;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.EmployeResume;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+public class ManagerRepositoryTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    @Autowired
+    private TechnicienRepository technicienRepository;
+
+    @Autowired
+    private CommercialRepository commercialRepository;
+
+    private Manager manager(String matricule, int nbTechniciens) throws TechnicienException {
+        Manager manager = new Manager("durand", "jacques", matricule, new LocalDate(2005, 1, 1), 2500d, new HashSet<>());
+        entityManager.persist(manager);
+        for (int i = 0; i < nbTechniciens; i++) {
+            Technicien technicien = new Technicien("dupont", "pierre", "T" + matricule.substring(1) + i,
+                    new LocalDate(2010, 3, 12), 1500d, 1 + i % 5);
+            technicien.setManager(manager);
+            entityManager.persist(technicien);
+        }
+        return manager;
+    }
+
+    private void enregistrer() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testResumes() throws TechnicienException {
+        //Given
+        manager("M00001", 2);
+        manager("M00002", 0);
+        entityManager.persist(new Commercial("martin", "marie", "C00001", new LocalDate(2012, 5, 2), 2000d, 25000d));
+        enregistrer();
+
+        //When
+        Map<String, EmployeResume> resumes;
+        try (Stream<EmployeResume> managers = managerRepository.streamResumes();
+             Stream<EmployeResume> techniciens = technicienRepository.streamResumes();
+             Stream<EmployeResume> commerciaux = commercialRepository.streamResumes()) {
+            resumes = Stream.of(managers, techniciens, commerciaux).flatMap(Function.identity())
+                    .collect(Collectors.toMap(EmployeResume::getMatricule, Function.identity()));
+        }
+
+        //Then
+        Assertions.assertThat(resumes).hasSize(5);
+        Assertions.assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isEqualTo(0);
+        for (EmployeResume resume : resumes.values()) {
+            Assertions.assertThat(resume.getPrimeAnnuelle()).as(resume.getMatricule())
+                    .isEqualTo(employeRepository.findByMatricule(resume.getMatricule()).getPrimeAnnuelle());
+        }
+        Assertions.assertThat(resumes.get("M00002").getSalaire()).isEqualTo(2500d);
+    }
+}
@@ -0,0 +1,205 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.model.StatistiquesSalairesListener;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import com.ipiecoles.java.java230.repository.ManagerRepository;
+import com.ipiecoles.java.java230.repository.TechnicienRepository;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({AugmentationSalaireService.class, StatistiquesSalairesService.class, StatistiquesSalaires.class,
+        StatistiquesSalairesListener.class})
+//chaque appel au service ou aux repositories valide sa transaction, comme en production
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AugmentationSalaireServiceTest {
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private ManagerRepository managerRepository;
+
+    @Autowired
+    private TechnicienRepository technicienRepository;
+
+    @Autowired
+    private AugmentationSalaireService augmentationSalaireService;
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        technicienRepository.deleteAll();
+        employeRepository.deleteAll();
+        statistiquesSalaires.reinitialiser();
+    }
+
+    @After
+    public void tearDown() {
+        setUp();
+    }
+
+    private Manager manager(String matricule, double salaire) {
+        return managerRepository.save(new Manager("durand", "jacques", matricule, new LocalDate(2005, 1, 1), salaire, new HashSet<>()));
+    }
+
+    private Technicien technicien(String matricule, double salaire, int grade, Manager manager) throws TechnicienException {
+        Technicien technicien = new Technicien("dupont", "pierre", matricule, new LocalDate(2010, 3, 12), salaire, grade);
+        technicien.setManager(manager);
+        return technicienRepository.save(technicien);
+    }
+
+    private Commercial commercial(String matricule, double salaire) {
+        return employeRepository.save(new Commercial("martin", "marie", matricule, new LocalDate(2012, 5, 2), salaire, 25000d));
+    }
+
+    private double salaire(Employe employe) {
+        return employeRepository.findOne(employe.getId()).getSalaire();
+    }
+
+    @Test
+    public void testManagerEtEquipeCommeAugmenterSalaire() throws TechnicienException {
+        //Given
+        Manager manager = manager("M00001", 2500d);
+        Technicien t1 = technicien("T00002", 1500d, 1, manager);
+        Technicien t2 = technicien("T00003", 1700d, 4, manager);
+        Technicien autreEquipe = technicien("T00004", 1600d, 2, manager("M00005", 2600d));
+        Commercial commercial = commercial("C00006", 2000d);
+        //même calcul sur des entités hors BDD : le constructeur reprend le salaire tel quel
+        Manager attendu = new Manager("durand", "jacques", "M00001", new LocalDate(2005, 1, 1), manager.getSalaire(), new HashSet<>());
+        Technicien attendu1 = new Technicien("dupont", "pierre", "T00002", new LocalDate(2010, 3, 12), t1.getSalaire(), 1);
+        Technicien attendu2 = new Technicien("dupont", "pierre", "T00003", new LocalDate(2010, 3, 12), t2.getSalaire(), 4);
+        attendu.ajoutTechnicienEquipe(attendu1);
+        attendu.ajoutTechnicienEquipe(attendu2);
+        attendu.augmenterSalaire(0.02);
+
+        //When
+        int nbAugmentes = augmentationSalaireService.augmenterManagerEtEquipe(manager.getId(), 0.02);
+
+        //Then
+        Assertions.assertThat(nbAugmentes).isEqualTo(3);
+        Assertions.assertThat(salaire(manager)).isEqualTo(attendu.getSalaire());
+        Assertions.assertThat(salaire(t1)).isEqualTo(attendu1.getSalaire());
+        Assertions.assertThat(salaire(t2)).isEqualTo(attendu2.getSalaire());
+        Assertions.assertThat(salaire(autreEquipe)).isEqualTo(autreEquipe.getSalaire());
+        Assertions.assertThat(salaire(commercial)).isEqualTo(commercial.getSalaire());
+        Assertions.assertThat(augmentationSalaireService.augmenterManagerEtEquipe(commercial.getId(), 0.02)).isEqualTo(0);
+    }
+
+    @Test
+    public void testAugmentationsParCritere() throws TechnicienException {
+        //Given
+        Manager manager = manager("M00001", 2500d);
+        Technicien grade1 = technicien("T00002", 1500d, 1, manager);
+        Technicien grade3 = technicien("T00003", 1700d, 3, manager);
+        Commercial commercial = commercial("C00004", 2000d);
+
+        //When
+        int nbTechniciens = augmentationSalaireService.augmenterTechniciensParGrade(2, 5, 0.1);
+        int nbCommerciaux = augmentationSalaireService.augmenterParType(Commercial.class, 0.05);
+        int nbAnciens = augmentationSalaireService.augmenterEmbauchesAvant(new LocalDate(2011, 1, 1), 0.01);
+        int nbTous = augmentationSalaireService.augmenterTous(0.02);
+
+        //Then
+        Assertions.assertThat(new int[]{nbTechniciens, nbCommerciaux, nbAnciens, nbTous}).containsExactly(1, 1, 3, 4);
+        grade3.augmenterSalaire(0.1);
+        commercial.augmenterSalaire(0.05);
+        for (Employe employe : new Employe[]{manager, grade1, grade3}) {
+            employe.augmenterSalaire(0.01);
+        }
+        for (Employe employe : new Employe[]{manager, grade1, grade3, commercial}) {
+            employe.augmenterSalaire(0.02);
+            Assertions.assertThat(salaire(employe)).as(employe.getMatricule()).isEqualTo(employe.getSalaire());
+        }
+    }
+
+    @Test
+    public void testCachesVides() {
+        //Given
+        Commercial commercial = commercial("C00001", 2000d);
+        Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        employeRepository.findByMatricule("C00001");
+        Assertions.assertThat(entityManagerFactory.getCache().contains(Employe.class, commercial.getId())).isTrue();
+        statistiques.clear();
+        employeRepository.findByMatricule("C00001");
+        Assertions.assertThat(statistiques.getQueryCacheHitCount()).isEqualTo(1);
+
+        //When
+        augmentationSalaireService.augmenterManagerEtEquipe(commercial.getId(), 0.1);
+        augmentationSalaireService.augmenterParType(Commercial.class, 0.1);
+
+        //Then
+        Assertions.assertThat(entityManagerFactory.getCache().contains(Employe.class, commercial.getId())).isFalse();
+        statistiques.clear();
+        Assertions.assertThat(employeRepository.findByMatricule("C00001").getSalaire()).isEqualTo(2000d * 1.1);
+        Assertions.assertThat(statistiques.getQueryCacheHitCount()).isEqualTo(0);
+        Assertions.assertThat(statistiques.getSecondLevelCacheHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testStatistiquesReinitialiseesApresValidation() {
+        //Given
+        commercial("C00001", 2000d);
+        commercial("C00002", 3000d);
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMoyen()).isEqualTo(2500d);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        //When
+        boolean initialiseesAvantValidation = transaction.execute(status -> {
+            augmentationSalaireService.augmenterTous(0.1);
+            return statistiquesSalaires.isInitialisees();
+        });
+        boolean initialiseesApresValidation = statistiquesSalaires.isInitialisees();
+        Double moyenne = statistiquesSalairesService.getSalaireMoyen();
+        transaction.execute(status -> {
+            augmentationSalaireService.augmenterTous(0.1);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        //Then
+        Assertions.assertThat(initialiseesAvantValidation).isTrue();
+        Assertions.assertThat(initialiseesApresValidation).isFalse();
+        Assertions.assertThat(moyenne).isEqualTo((2000d * 1.1 + 3000d * 1.1) / 2);
+        //une augmentation annulée laisse les statistiques telles quelles
+        Assertions.assertThat(statistiquesSalaires.isInitialisees()).isTrue();
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMoyen()).isEqualTo(moyenne);
+    }
+}
@@ -20,7 +20,7 @@ import java.lang.reflect.Field;
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest
+@SpringBootTest(properties = "batch.ecriture-bdd=false")
 public class EmployeServiceTest {
 
     @Autowired
@@ -0,0 +1,171 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.repository.BaseEmployeRepository;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({ParcoursEmployesService.class, ParcoursEmployesServiceTest.EspionFetchSize.class})
+public class ParcoursEmployesServiceTest {
+
+    private static final int NB_EMPLOYES = 2500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private ParcoursEmployesService parcoursEmployesService;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < NB_EMPLOYES; i++) {
+            entityManager.persist(new Commercial("martin", "marie", String.format("C%05d", i), new LocalDate(2010, 1, 1), 1500d + i, 10000d));
+            if (i % 500 == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        EspionFetchSize.TAILLES.clear();
+    }
+
+    private int nbEntitesGerees() {
+        return entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+    }
+
+    @Test
+    public void testParcoursDetacheLesEmployes() {
+        //Given
+        List<Employe> traites = new ArrayList<>();
+        int[] maxEntites = {0};
+
+        //When
+        long nbTraites = parcoursEmployesService.parcourir(() -> employeRepository.streamAll(), employe -> {
+            Assertions.assertThat(entityManager.contains(employe)).isTrue();
+            maxEntites[0] = Math.max(maxEntites[0], nbEntitesGerees());
+            if (traites.size() < 3) {
+                traites.add(employe);
+            }
+        });
+
+        //Then
+        Assertions.assertThat(nbTraites).isEqualTo(NB_EMPLOYES);
+        //au plus un lot d'employés, détachés un à un puis vidés tous les 1000
+        Assertions.assertThat(maxEntites[0]).isBetween(1, 1000);
+        Assertions.assertThat(traites).allMatch(employe -> !entityManager.contains(employe));
+    }
+
+    @Test
+    public void testTailleFetchTransmiseAuPilote() throws Exception {
+        //Given
+        String url = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"))
+                .getProperty("spring.datasource.url");
+
+        //When
+        parcoursEmployesService.parcourir(() -> employeRepository.streamAll(), employe -> { });
+
+        //Then
+        //MySQL Connector/J ne lit le résultat par blocs de cette taille qu'avec useCursorFetch
+        Assertions.assertThat(url).contains("useCursorFetch=true");
+        Assertions.assertThat(EspionFetchSize.TAILLES).containsValue(Integer.parseInt(BaseEmployeRepository.TAILLE_FETCH));
+    }
+
+    @Test
+    public void testParcoursResumesSansEntite() {
+        //Given
+        int[] maxEntites = {0};
+        double[] sommeSalaires = {0};
+
+        //When
+        long nbTraites = parcoursEmployesService.parcourirResumes(resume -> {
+            maxEntites[0] = Math.max(maxEntites[0], nbEntitesGerees());
+            sommeSalaires[0] += resume.getSalaire();
+        });
+
+        //Then
+        Assertions.assertThat(nbTraites).isEqualTo(NB_EMPLOYES);
+        Assertions.assertThat(maxEntites[0]).isEqualTo(0);
+        Assertions.assertThat(sommeSalaires[0]).isEqualTo(NB_EMPLOYES * 1500d + (NB_EMPLOYES - 1) * NB_EMPLOYES / 2d);
+    }
+
+    /**
+     * Enregistre la taille de fetch demandée au pilote JDBC pour chaque requête préparée
+     */
+    @TestConfiguration
+    static class EspionFetchSize {
+
+        static final Map<String, Integer> TAILLES = new ConcurrentHashMap<>();
+
+        @Bean
+        static BeanPostProcessor espionDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String nom) {
+                    return bean;
+                }
+
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String nom) {
+                    return bean instanceof DataSource ? espion(bean, null) : bean;
+                }
+            };
+        }
+
+        private static Object espion(Object cible, String sql) {
+            return Proxy.newProxyInstance(EspionFetchSize.class.getClassLoader(), ClassUtils.getAllInterfaces(cible), (proxy, methode, arguments) -> {
+                if (cible instanceof Statement && methode.getName().equals("setFetchSize")) {
+                    TAILLES.put(sql, (Integer) arguments[0]);
+                }
+                Object resultat;
+                try {
+                    resultat = methode.invoke(cible, arguments);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (resultat instanceof Connection) {
+                    return espion(resultat, null);
+                }
+                if (resultat instanceof Statement && methode.getName().startsWith("prepare")) {
+                    return espion(resultat, (String) arguments[0]);
+                }
+                return resultat;
+            });
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.exceptions.TechnicienException;
+import com.ipiecoles.java.java230.model.ColonnesEmployes;
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.Manager;
+import com.ipiecoles.java.java230.model.Technicien;
+import com.ipiecoles.java.java230.repository.BaseEmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashSet;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({PrimesService.class, ParcoursEmployesServiceTest.EspionFetchSize.class})
+public class PrimesServiceTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PrimesService primesService;
+
+    @Before
+    public void setUp() throws TechnicienException {
+        Manager manager = null;
+        for (int i = 0; i < 60; i++) {
+            LocalDate dateEmbauche = new LocalDate(1995 + i % 20, 1 + i % 12, 1 + i % 28);
+            if (i % 10 == 0) {
+                manager = new Manager("durand", "jacques", String.format("M%05d", i), dateEmbauche, 2500d + i, new HashSet<>());
+                entityManager.persist(manager);
+            } else if (i % 10 < 7) {
+                Technicien technicien = new Technicien("dupont", "pierre", String.format("T%05d", i), dateEmbauche, 1500d + i, 1 + i % 5);
+                //le dernier manager n'a pas d'équipe et un technicien n'a pas de manager
+                if (i < 50 && i != 13) {
+                    technicien.setManager(manager);
+                }
+                entityManager.persist(technicien);
+            } else {
+                entityManager.persist(new Commercial("martin", "marie", String.format("C%05d", i), dateEmbauche, 2000d + i, i * 1234.5));
+            }
+        }
+        manager = new Manager("durand", "jacques", "M00060", new LocalDate(2015, 6, 1), 2500d, new HashSet<>());
+        entityManager.persist(manager);
+        entityManager.flush();
+        entityManager.clear();
+        ParcoursEmployesServiceTest.EspionFetchSize.TAILLES.clear();
+    }
+
+    @Test
+    public void testPrimesIdentiquesAuxEntites() {
+        //Given
+        int nbEmployes = entityManager.createQuery("select count(e) from Employe e", Long.class).getSingleResult().intValue();
+
+        //When
+        ColonnesEmployes colonnes = primesService.chargerColonnes();
+        double[] primes = colonnes.calculerPrimes();
+
+        //Then
+        long[] ids = colonnes.getIds();
+        double[] salaires = colonnes.getSalaires();
+        Assertions.assertThat(colonnes.getNombre()).isEqualTo(nbEmployes);
+        for (int i = 0; i < ids.length; i++) {
+            Employe employe = entityManager.find(Employe.class, ids[i]);
+            Assertions.assertThat(primes[i]).as(employe.getMatricule()).isEqualTo(employe.getPrimeAnnuelle());
+            Assertions.assertThat(salaires[i]).as(employe.getMatricule()).isEqualTo(employe.getSalaire());
+        }
+    }
+
+    @Test
+    public void testTailleFetchDesTroisRequetes() {
+        //When
+        primesService.chargerColonnes();
+
+        //Then
+        Assertions.assertThat(ParcoursEmployesServiceTest.EspionFetchSize.TAILLES).hasSize(3);
+        Assertions.assertThat(ParcoursEmployesServiceTest.EspionFetchSize.TAILLES.values())
+                .containsOnly(Integer.parseInt(BaseEmployeRepository.TAILLE_FETCH));
+    }
+}
@@ -0,0 +1,67 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import(StatistiquesCacheService.class)
+//chaque appel au repository dans sa propre transaction validée, comme dans l'application : le cache de requêtes
+//n'est pas utilisé pour une table modifiée par la transaction en cours
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StatistiquesCacheServiceTest {
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private StatistiquesCacheService statistiquesCacheService;
+
+    private static Commercial commercial(String matricule, int anneeEmbauche, double salaire) {
+        return new Commercial("durand", "marie", matricule, new LocalDate(anneeEmbauche, 1, 1), salaire, 10000d);
+    }
+
+    @After
+    public void tearDown() {
+        employeRepository.deleteAll();
+    }
+
+    @Test
+    public void testCacheDeSecondNiveauEtDeRequetes() {
+        //Given
+        Commercial commercial = employeRepository.save(commercial("C00001", 2010, 1500d));
+        statistiquesCacheService.reinitialiser();
+
+        //When
+        employeRepository.findByMatricule("C00001");
+        employeRepository.findByMatricule("C00001");
+        Employe parId = employeRepository.findOne(commercial.getId());
+        List<Employe> avantAjout = employeRepository.findByNomIgnoreCase("DURAND");
+        employeRepository.save(commercial("C00002", 2011, 1600d));
+        List<Employe> apresAjout = employeRepository.findByNomIgnoreCase("DURAND");
+
+        //Then
+        Assertions.assertThat(statistiquesCacheService.isActif()).isTrue();
+        Assertions.assertThat(statistiquesCacheService.getNbSuccesRequetes()).isEqualTo(1);
+        Assertions.assertThat(statistiquesCacheService.getNbSuccesCache()).isGreaterThanOrEqualTo(1);
+        Assertions.assertThat(parId.getMatricule()).isEqualTo("C00001");
+        Assertions.assertThat(avantAjout).hasSize(1);
+        Assertions.assertThat(apresAjout).hasSize(2);
+    }
+}
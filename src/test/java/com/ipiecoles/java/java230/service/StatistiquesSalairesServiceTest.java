@@ -0,0 +1,147 @@
+package com.ipiecoles.java.java230.service;
+
+import com.ipiecoles.java.java230.model.Commercial;
+import com.ipiecoles.java.java230.model.Employe;
+import com.ipiecoles.java.java230.model.StatistiquesSalaires;
+import com.ipiecoles.java.java230.model.StatistiquesSalairesListener;
+import com.ipiecoles.java.java230.repository.EmployeRepository;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(showSql = false)
+@ActiveProfiles("test")
+@Import({StatistiquesSalairesService.class, StatistiquesSalaires.class, StatistiquesSalairesListener.class})
+//le listener n'applique les modifications qu'à la validation de la transaction : chaque appel au repository valide
+//la sienne
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StatistiquesSalairesServiceTest {
+
+    @Autowired
+    private EmployeRepository employeRepository;
+
+    @Autowired
+    private StatistiquesSalairesService statistiquesSalairesService;
+
+    @Autowired
+    private StatistiquesSalaires statistiquesSalaires;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Before
+    public void setUp() {
+        employeRepository.deleteAll();
+        statistiquesSalaires.reinitialiser();
+    }
+
+    @After
+    public void tearDown() {
+        setUp();
+    }
+
+    private Employe enregistrer(String matricule, double salaire) {
+        return employeRepository.save(new Commercial("martin", "marie", matricule, new LocalDate(2010, 1, 1), salaire, 10000d));
+    }
+
+    @Test
+    public void testChargementDepuisLaBdd() {
+        //Given
+        enregistrer("C00001", 1500d);
+        enregistrer("C00002", 2500d);
+        enregistrer("C00003", 3500d);
+
+        //When
+        long nombre = statistiquesSalairesService.getNombreSalaires();
+
+        //Then
+        Assertions.assertThat(nombre).isEqualTo(3);
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMoyen()).isEqualTo(2500d);
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMin()).isEqualTo(1500d);
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMax()).isEqualTo(3500d);
+        Assertions.assertThat(statistiquesSalairesService.getCentile(0.5)).isEqualTo(2500d);
+    }
+
+    @Test
+    public void testModificationsSuiviesParLeListener() {
+        //Given
+        enregistrer("C00001", 1500d);
+        Employe employe = enregistrer("C00002", 2500d);
+        statistiquesSalairesService.getNombreSalaires();
+
+        //When
+        enregistrer("C00003", 3500d);
+        employe.setSalaire(2000d);
+        employeRepository.save(employe);
+        employeRepository.delete(employeRepository.findByMatricule("C00001"));
+
+        //Then
+        Assertions.assertThat(statistiquesSalairesService.getNombreSalaires()).isEqualTo(2);
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMoyen()).isEqualTo(2750d);
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMin()).isEqualTo(2000d);
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMax()).isEqualTo(3500d);
+        Assertions.assertThat(statistiquesSalairesService.getCentile(0.5)).isEqualTo(2000d);
+        //les statistiques tenues par le listener sont celles qu'on relirait en BDD
+        statistiquesSalaires.reinitialiser();
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMoyen()).isEqualTo(2750d);
+    }
+
+    @Test
+    public void testChargementEnUneTransaction() {
+        //Given
+        enregistrer("C00001", 1500d);
+        enregistrer("C00002", 2500d);
+        Statistics statistiques = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiques.clear();
+
+        //When
+        long nombre = statistiquesSalairesService.getNombreSalaires();
+
+        //Then
+        Assertions.assertThat(nombre).isEqualTo(2);
+        //l'agrégat et l'histogramme sont lus dans la même transaction
+        Assertions.assertThat(statistiques.getQueryExecutionCount()).isEqualTo(2);
+        Assertions.assertThat(statistiques.getTransactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStatistiquesDansUneTransactionQuiModifieDesSalaires() {
+        //Given
+        enregistrer("C00001", 1500d);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        //When
+        Double moyenneDansLaTransaction = transaction.execute(status -> {
+            enregistrer("C00002", 2500d);
+            return statistiquesSalairesService.getSalaireMoyen();
+        });
+        boolean partageesInitialisees = statistiquesSalaires.isInitialisees();
+
+        //Then
+        //lues avec la modification pas encore validée, sans charger les statistiques partagées
+        Assertions.assertThat(moyenneDansLaTransaction).isEqualTo(2000d);
+        Assertions.assertThat(partageesInitialisees).isFalse();
+        Assertions.assertThat(statistiquesSalairesService.getSalaireMoyen()).isEqualTo(2000d);
+        Assertions.assertThat(statistiquesSalairesService.getNombreSalaires()).isEqualTo(2);
+    }
+}